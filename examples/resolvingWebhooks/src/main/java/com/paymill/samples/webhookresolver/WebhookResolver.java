@@ -13,6 +13,8 @@ import com.paymill.models.Subscription;
 import com.paymill.models.Transaction;
 import com.paymill.models.Webhook;
 import com.paymill.models.Webhook.EventType;
+import com.paymill.utils.JacksonCodec;
+import com.paymill.utils.JsonCodec;
 
 /**
  * You can use this object to deserialize incoming webhooks.
@@ -73,11 +75,15 @@ public class WebhookResolver {
   }
 
   public static WebhookResolver fromString( String requestBody ) {
+    return WebhookResolver.fromString( requestBody, new JacksonCodec( PaymillContext.PARSER ) );
+  }
+
+  public static WebhookResolver fromString( String requestBody, JsonCodec codec ) {
     try {
       WebhookResolver resolver = new WebhookResolver();
       JsonNode eventNode = PaymillContext.PARSER.readValue( requestBody, JsonNode.class ).get( "event" );
       if( eventNode != null && eventNode.has( "event_type" ) ) {
-        resolver.eventType = PaymillContext.PARSER.readValue( eventNode.get( "event_type" ).toString(), Webhook.EventType.class );
+        resolver.eventType = Webhook.EventType.create( eventNode.get( "event_type" ).asText() );
       } else {
         throw new RuntimeException( "Invalid webhook:" + requestBody );
       }
@@ -85,35 +91,35 @@ public class WebhookResolver {
 
       if( resolver.getEventType() == EventType.CHARGEBACK_EXECUTED || resolver.getEventType() == EventType.TRANSACTION_CREATED
           || resolver.getEventType() == EventType.TRANSACTION_SUCCEEDED || resolver.getEventType() == EventType.TRANSACTION_FAILED ) {
-        resolver.transaction = PaymillContext.PARSER.readValue( eventResource.toString(), Transaction.class );
+        resolver.transaction = codec.read( eventResource.toString(), Transaction.class );
       }
       if( resolver.getEventType() == EventType.SUBSCRIPTION_CREATED || resolver.getEventType() == EventType.SUBSCRIPTION_UPDATED
           || resolver.getEventType() == EventType.SUBSCRIPTION_DELETED || resolver.getEventType() == EventType.SUBSCRIPTION_EXPIRING
           || resolver.getEventType() == EventType.SUBSCRIPTION_DEACTIVATED || resolver.getEventType() == EventType.SUBSCRIPTION_ACTIVATED
           || resolver.getEventType() == EventType.SUBSCRIPTION_CANCELED ) {
-        resolver.subscription = PaymillContext.PARSER.readValue( eventResource.toString(), Subscription.class );
+        resolver.subscription = codec.read( eventResource.toString(), Subscription.class );
       }
       if( resolver.getEventType() == EventType.REFUND_CREATED || resolver.getEventType() == EventType.REFUND_SUCCEEDED
           || resolver.getEventType() == EventType.REFUND_FAILED ) {
-        resolver.refund = PaymillContext.PARSER.readValue( eventResource.toString(), Refund.class );
+        resolver.refund = codec.read( eventResource.toString(), Refund.class );
       }
       if( resolver.getEventType() == EventType.CLIENT_UPDATED ) {
-        resolver.client = PaymillContext.PARSER.readValue( eventResource.toString(), Client.class );
+        resolver.client = codec.read( eventResource.toString(), Client.class );
       }
       if( resolver.getEventType() == EventType.SUBSCRIPTION_SUCCEEDED || resolver.getEventType() == EventType.SUBSCRIPTION_FAILED ) {
-        resolver.subscription = PaymillContext.PARSER.readValue( eventResource.get( "subscription" ).toString(), Subscription.class );
-        resolver.transaction = PaymillContext.PARSER.readValue( eventResource.get( "transaction" ).toString(), Transaction.class );
+        resolver.subscription = codec.read( eventResource.get( "subscription" ).toString(), Subscription.class );
+        resolver.transaction = codec.read( eventResource.get( "transaction" ).toString(), Transaction.class );
       }
       if( resolver.getEventType() == EventType.PAYMENT_EXPIRED ) {
-        resolver.payment = PaymillContext.PARSER.readValue( eventResource.toString(), Payment.class );
+        resolver.payment = codec.read( eventResource.toString(), Payment.class );
       }
       if( resolver.getEventType() == EventType.PAYOUT_TRANSFERRED || resolver.getEventType() == EventType.INVOICE_AVAILABLE ) {
-        resolver.invoice = PaymillContext.PARSER.readValue( eventResource.toString(), Invoice.class );
+        resolver.invoice = codec.read( eventResource.toString(), Invoice.class );
       }
       if( resolver.getEventType() == EventType.APP_MERCHANT_ACTIVATED || resolver.getEventType() == EventType.APP_MERCHANT_DEACTIVATED
           || resolver.getEventType() == EventType.APP_MERCHANT_REJECTED || resolver.getEventType() == EventType.APP_MERCHANT_LIVE_REQUESTS_ALLOWED
           || resolver.getEventType() == EventType.APP_MERCHANT_LIVE_REQUESTS_NOT_ALLOWED || resolver.getEventType() == EventType.APP_MERCHANT_APP_DISABLED ) {
-        resolver.merchant = PaymillContext.PARSER.readValue( eventResource.toString(), Merchant.class );
+        resolver.merchant = codec.read( eventResource.toString(), Merchant.class );
       }
       if( eventNode.has( "created_at" ) ) {
         resolver.createdAt = new Date( Long.parseLong( eventNode.get( "created_at" ).toString() ) * 1000 );
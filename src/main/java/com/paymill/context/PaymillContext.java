@@ -3,13 +3,20 @@ package com.paymill.context;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Constructor;
-import java.util.Date;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.paymill.utils.HttpClient;
+import com.paymill.utils.JacksonCodec;
 import com.paymill.utils.JerseyClient;
-import org.apache.commons.beanutils.ConvertUtils;
-import org.apache.commons.beanutils.converters.DateConverter;
+import com.paymill.utils.JsonCodec;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paymill.models.Deserializer;
@@ -65,6 +72,11 @@ http://jobs.paymill.com
  * <li>{@link WebhookService}</li>
  * </ul>
  * This services should not be created directly. They have to be obtained by the context's accessors.
+ * <p>
+ * Iterators, publishers and reference resolution of the services fetch in the background, on the {@link ExecutorService} of the
+ * context. Unless one is given, the context creates a pool of at most {@value #MAX_THREADS} daemon threads, which stop when idle;
+ * while all of them are busy, the submitting thread fetches the page itself. Call {@link #shutdown()} when the context is no
+ * longer needed, to stop its threads right away.
  * @author Vassil Nikolov
  * @since 3.0.0
  */
@@ -73,8 +85,19 @@ public class PaymillContext {
   public final static ObjectMapper PARSER     = new ObjectMapper();
   private final static Properties  PROPERTIES = new Properties();
 
+  /**
+   * Maximum number of background threads of a context, which creates its own {@link ExecutorService}.
+   */
+  public final static int          MAX_THREADS = 16;
+
   private final HttpClient         httpClient;
 
+  private final ExecutorService    executor;
+
+  private final JsonCodec          codec;
+
+  private final boolean            ownsExecutor;
+
   private ChecksumService          checksumService;
   private ClientService            clientService;
   private OfferService             offerService;
@@ -116,21 +139,51 @@ public class PaymillContext {
    *          Http client implementation.
    */
   public PaymillContext( final HttpClient client ) {
-    ConvertUtils.register( new DateConverter( null ), Date.class );
+    this( client, null );
+  }
+
+  /**
+   * Creates a PAYMILL context with the given HttpClient implementation and executor for background fetches.
+   * @param client
+   *          Http client implementation.
+   * @param executor
+   *          Executor, which runs the background fetches of all services, or <code>null</code> to create a bounded pool for this
+   *          context. A given executor is owned by the caller and not shut down by {@link #shutdown()}; if it is bounded, it
+   *          should run rejected tasks in the calling thread, since iterators wait for their fetches.
+   */
+  public PaymillContext( final HttpClient client, final ExecutorService executor ) {
+    this( client, executor, null );
+  }
+
+  /**
+   * Creates a PAYMILL context with the given HttpClient implementation, executor for background fetches and codec.
+   * @param client
+   *          Http client implementation.
+   * @param executor
+   *          Executor, which runs the background fetches of all services, or <code>null</code> to create a bounded pool for this
+   *          context.
+   * @param codec
+   *          {@link JsonCodec}, which binds the responses of this context to models, or <code>null</code> for a {@link JacksonCodec}
+   *          over {@link #PARSER}.
+   */
+  public PaymillContext( final HttpClient client, final ExecutorService executor, final JsonCodec codec ) {
     InputStream input = null;
 
     try {
       this.httpClient = client;
-
-      this.checksumService = this.getPrivateConstructor( ChecksumService.class ).newInstance( this.httpClient );
-      this.clientService = this.getPrivateConstructor( ClientService.class ).newInstance( this.httpClient );
-      this.offerService = this.getPrivateConstructor( OfferService.class ).newInstance( this.httpClient );
-      this.paymentService = this.getPrivateConstructor( PaymentService.class ).newInstance( this.httpClient );
-      this.preauthorizationService = this.getPrivateConstructor( PreauthorizationService.class ).newInstance( this.httpClient );
-      this.refundService = this.getPrivateConstructor( RefundService.class ).newInstance( this.httpClient );
-      this.subscriptionService = this.getPrivateConstructor( SubscriptionService.class ).newInstance( this.httpClient );
-      this.transactionService = this.getPrivateConstructor( TransactionService.class ).newInstance( this.httpClient );
-      this.webhookService = this.getPrivateConstructor( WebhookService.class ).newInstance( this.httpClient );
+      this.ownsExecutor = executor == null;
+      this.executor = executor != null ? executor : PaymillContext.createExecutor();
+      this.codec = codec != null ? codec : new JacksonCodec( PaymillContext.PARSER );
+
+      this.checksumService = this.getPrivateConstructor( ChecksumService.class ).newInstance( this.httpClient, this.codec );
+      this.clientService = this.createService( ClientService.class );
+      this.offerService = this.createService( OfferService.class );
+      this.paymentService = this.createService( PaymentService.class );
+      this.preauthorizationService = this.createService( PreauthorizationService.class );
+      this.refundService = this.createService( RefundService.class );
+      this.subscriptionService = this.createService( SubscriptionService.class );
+      this.transactionService = this.createService( TransactionService.class );
+      this.webhookService = this.createService( WebhookService.class );
 
       input = PaymillContext.class.getClassLoader().getResourceAsStream( "META-INF/maven/com.paymill/paymill-java/pom.properties" );
       PaymillContext.PROPERTIES.load( input );
@@ -156,6 +209,32 @@ public class PaymillContext {
     return PaymillContext.PROPERTIES.getProperty( "version" );
   }
 
+  /**
+   * @return the {@link JsonCodec}, which binds the responses of this context to models. Webhooks of the account can be bound with
+   *         it as well.
+   */
+  public JsonCodec getCodec() {
+    return this.codec;
+  }
+
+  /**
+   * @return the {@link ExecutorService}, which runs the background fetches of the services.
+   */
+  public ExecutorService getExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * Stops the background threads of this context, if it created them. Running iterators finish their current fetches; iterators,
+   * publishers and reference resolution started afterwards fail with a {@link RejectedExecutionException}. An executor, which was
+   * passed to the constructor, is left running.
+   */
+  public void shutdown() {
+    if( this.ownsExecutor ) {
+      this.executor.shutdown();
+    }
+  }
+
   public ChecksumService getChecksumService() {
     return this.checksumService;
   }
@@ -193,9 +272,52 @@ public class PaymillContext {
   }
 
   private <T> Constructor<T> getPrivateConstructor( final Class<T> clazz ) throws Exception {
-    Constructor<T> declaredConstructor = clazz.getDeclaredConstructor( HttpClient.class );
+    Constructor<T> declaredConstructor = clazz.getDeclaredConstructor( HttpClient.class, JsonCodec.class );
     declaredConstructor.setAccessible( true );
     return declaredConstructor;
   }
 
+  private <T> T createService( final Class<T> clazz ) throws Exception {
+    Constructor<T> declaredConstructor = clazz.getDeclaredConstructor( HttpClient.class, ExecutorService.class, JsonCodec.class );
+    declaredConstructor.setAccessible( true );
+    return declaredConstructor.newInstance( this.httpClient, this.executor, this.codec );
+  }
+
+  private static ExecutorService createExecutor() {
+    return new ThreadPoolExecutor( 0, PaymillContext.MAX_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new FetchThreadFactory(),
+        new CallerRunsUnlessShutdown() );
+  }
+
+  /**
+   * Creates daemon threads, so pending fetches do not keep the JVM alive.
+   */
+  private static final class FetchThreadFactory implements ThreadFactory {
+
+    private final static AtomicInteger COUNT = new AtomicInteger();
+
+    @Override
+    public Thread newThread( final Runnable runnable ) {
+      Thread thread = new Thread( runnable, "paymill-fetch-" + FetchThreadFactory.COUNT.incrementAndGet() );
+      thread.setDaemon( true );
+      return thread;
+    }
+
+  }
+
+  /**
+   * Runs a task in the submitting thread, while all threads are busy, so nested fetches can not starve the pool. Unlike
+   * {@link ThreadPoolExecutor.CallerRunsPolicy} it rejects tasks after a shutdown, instead of dropping them silently.
+   */
+  private static final class CallerRunsUnlessShutdown implements RejectedExecutionHandler {
+
+    @Override
+    public void rejectedExecution( final Runnable runnable, final ThreadPoolExecutor executor ) {
+      if( executor.isShutdown() ) {
+        throw new RejectedExecutionException( "PaymillContext has been shut down" );
+      }
+      runnable.run();
+    }
+
+  }
+
 }
@@ -0,0 +1,16 @@
+package com.paymill.exceptions;
+
+import java.util.Map;
+
+/**
+ * The API key is missing, invalid or not allowed to access the resource (HTTP 401 and 403).
+ */
+public class AuthenticationException extends PaymillException {
+
+  private static final long serialVersionUID = 5538768364698856135L;
+
+  public AuthenticationException( String message, int httpStatus, String errorCode, Integer responseCode, Map<String, String> fieldErrors ) {
+    super( message, httpStatus, errorCode, responseCode, fieldErrors, false );
+  }
+
+}
@@ -0,0 +1,16 @@
+package com.paymill.exceptions;
+
+import java.util.Map;
+
+/**
+ * The requested resource does not exist (HTTP 404).
+ */
+public class NotFoundException extends PaymillException {
+
+  private static final long serialVersionUID = 8775166789795038263L;
+
+  public NotFoundException( String message, int httpStatus, String errorCode, Integer responseCode, Map<String, String> fieldErrors ) {
+    super( message, httpStatus, errorCode, responseCode, fieldErrors, false );
+  }
+
+}
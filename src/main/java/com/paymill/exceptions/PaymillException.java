@@ -1,11 +1,79 @@
 package com.paymill.exceptions;
 
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Thrown when PAYMILL answers with an error. Besides the message, the exception carries the HTTP status, the PAYMILL error code
+ * and response code, field errors and whether the request may succeed, when it is retried. Concrete failures are signaled by the
+ * subclasses {@link AuthenticationException}, {@link NotFoundException}, {@link ValidationException}, {@link RateLimitException}
+ * and {@link ServerException}.
+ */
 public class PaymillException extends RuntimeException {
 
-  private static final long serialVersionUID = 6388394678517581517L;
+  private static final long         serialVersionUID = 6388394678517581517L;
+
+  private final int                 httpStatus;
+
+  private final String              errorCode;
+
+  private final Integer             responseCode;
+
+  private final Map<String, String> fieldErrors;
+
+  private final boolean             retryable;
 
   public PaymillException( String message ) {
+    this( message, 0, null, null, null, false );
+  }
+
+  public PaymillException( String message, int httpStatus, String errorCode, Integer responseCode, Map<String, String> fieldErrors, boolean retryable ) {
     super( message );
+    this.httpStatus = httpStatus;
+    this.errorCode = errorCode;
+    this.responseCode = responseCode;
+    this.fieldErrors = fieldErrors != null ? Collections.unmodifiableMap( fieldErrors ) : Collections.<String, String> emptyMap();
+    this.retryable = retryable;
+  }
+
+  /**
+   * Returns the HTTP status of the response.
+   * @return the status or <code>0</code>, if the http client does not provide it.
+   */
+  public int getHttpStatus() {
+    return this.httpStatus;
+  }
+
+  /**
+   * Returns the PAYMILL error code, e.g. <code>transaction_not_found</code>.
+   * @return {@link String} or <code>null</code>.
+   */
+  public String getErrorCode() {
+    return this.errorCode;
+  }
+
+  /**
+   * Returns the PAYMILL response code, if the response contained one.
+   * @return {@link Integer} or <code>null</code>.
+   */
+  public Integer getResponseCode() {
+    return this.responseCode;
+  }
+
+  /**
+   * Returns the validation errors by request parameter.
+   * @return unmodifiable {@link Map} of parameter name to message, never <code>null</code>.
+   */
+  public Map<String, String> getFieldErrors() {
+    return this.fieldErrors;
+  }
+
+  /**
+   * Checks if the failure is temporary, so the same request may succeed, when it is sent again later.
+   * @return <code>true</code> if the request can be retried.
+   */
+  public boolean isRetryable() {
+    return this.retryable;
   }
 
 }
@@ -0,0 +1,16 @@
+package com.paymill.exceptions;
+
+import java.util.Map;
+
+/**
+ * Too many requests were sent in a short time (HTTP 429). The request can be retried after a while.
+ */
+public class RateLimitException extends PaymillException {
+
+  private static final long serialVersionUID = 3500998669282507872L;
+
+  public RateLimitException( String message, int httpStatus, String errorCode, Integer responseCode, Map<String, String> fieldErrors ) {
+    super( message, httpStatus, errorCode, responseCode, fieldErrors, true );
+  }
+
+}
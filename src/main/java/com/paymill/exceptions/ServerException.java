@@ -0,0 +1,16 @@
+package com.paymill.exceptions;
+
+import java.util.Map;
+
+/**
+ * PAYMILL failed to process the request (HTTP 5xx). The request can be retried.
+ */
+public class ServerException extends PaymillException {
+
+  private static final long serialVersionUID = 3512835274004822562L;
+
+  public ServerException( String message, int httpStatus, String errorCode, Integer responseCode, Map<String, String> fieldErrors ) {
+    super( message, httpStatus, errorCode, responseCode, fieldErrors, true );
+  }
+
+}
@@ -0,0 +1,17 @@
+package com.paymill.exceptions;
+
+import java.util.Map;
+
+/**
+ * The request was rejected, because of invalid parameters (HTTP 400, 412 and other client errors). The offending parameters are
+ * available as field errors.
+ */
+public class ValidationException extends PaymillException {
+
+  private static final long serialVersionUID = 8919955680791465167L;
+
+  public ValidationException( String message, int httpStatus, String errorCode, Integer responseCode, Map<String, String> fieldErrors ) {
+    super( message, httpStatus, errorCode, responseCode, fieldErrors, false );
+  }
+
+}
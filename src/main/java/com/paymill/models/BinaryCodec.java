@@ -0,0 +1,622 @@
+package com.paymill.models;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Compact binary encoding of models for caches and persistent stores. All instance fields of a model are written in the order of
+ * their names, absent values cost a single bit and repeated strings, like currencies, app ids or enum constants, are written only
+ * once per buffer. The layout of version {@value #VERSION} is:
+ *
+ * <pre>
+ * buffer  := 'P', version : varint, fingerprint : int32, object
+ * object  := presence bitmap with one bit per field, followed by the values of the present fields
+ * string  := 0 : varint, length : varint, UTF-8 bytes   a new string, which is appended to the dictionary
+ *          | index : varint                            the index-th string of the dictionary
+ * integer := zig-zag varint
+ * date    := zig-zag varint of seconds * 2 or, with a fraction of a second, of milliseconds * 2 + 1
+ * enum    := string with the name of the constant
+ * list    := size : varint, followed by a presence byte and the value of each element
+ * period  := presence bitmap, interval : integer, unit : enum, weekday : enum
+ * </pre>
+ *
+ * The fingerprint is computed from the field names and types of the encoded model and of all models nested in it. Buffers of another version or fingerprint are
+ * rejected, so stale cache entries are detected after an upgrade of the SDK. Encoded models must be trees; nested models are
+ * written by value.
+ * @since 5.1.4
+ */
+public final class BinaryCodec {
+
+  public final static int                              VERSION   = 1;
+
+  private final static byte                            MAGIC     = 'P';
+
+  private final static Charset                         UTF_8     = Charset.forName( "UTF-8" );
+
+  private final static ConcurrentMap<Class<?>, Schema> SCHEMAS   = new ConcurrentHashMap<Class<?>, Schema>();
+
+  private final static int                             STRING    = 0;
+  private final static int                             INTERNED  = 1;
+  private final static int                             INTEGER   = 2;
+  private final static int                             LONG      = 3;
+  private final static int                             BOOLEAN   = 4;
+  private final static int                             DATE      = 5;
+  private final static int                             ENUM      = 6;
+  private final static int                             PERIOD    = 7;
+  private final static int                             CHARGEDAY = 8;
+  private final static int                             LIST      = 9;
+  private final static int                             ARRAY     = 10;
+  private final static int                             MODEL     = 11;
+
+  private BinaryCodec() {
+    super();
+  }
+
+  /**
+   * @param model
+   *          the model to encode.
+   * @return buffer with the encoded model, positioned at its start.
+   */
+  public static ByteBuffer encode( final Object model ) {
+    Output output = BinaryCodec.write( model );
+    return ByteBuffer.wrap( output.bytes, 0, output.size );
+  }
+
+  /**
+   * Writes the encoded model at the current position of the given buffer.
+   * @param model
+   *          the model to encode.
+   * @param buffer
+   *          target buffer, its position is advanced by the size of the encoded model.
+   * @throws java.nio.BufferOverflowException
+   *           if the remaining space of the buffer is too small.
+   */
+  public static void encode( final Object model, final ByteBuffer buffer ) {
+    Output output = BinaryCodec.write( model );
+    buffer.put( output.bytes, 0, output.size );
+  }
+
+  /**
+   * Reads a model from the current position of the given buffer and advances the position behind it.
+   * @param buffer
+   *          buffer with a model encoded by {@link #encode(Object)}.
+   * @param clazz
+   *          class of the encoded model.
+   * @return the decoded model.
+   * @throws IllegalArgumentException
+   *           if the buffer was not encoded with this version or for another class.
+   */
+  public static <T> T decode( final ByteBuffer buffer, final Class<T> clazz ) {
+    Schema schema = BinaryCodec.schemaOf( clazz );
+    if( buffer.get() != BinaryCodec.MAGIC ) {
+      throw new IllegalArgumentException( "Buffer does not contain an encoded model" );
+    }
+    Input input = new Input( buffer );
+    int version = input.readVarint();
+    if( version != BinaryCodec.VERSION ) {
+      throw new IllegalArgumentException( "Unsupported encoding version " + version + ", expected " + BinaryCodec.VERSION );
+    }
+    if( buffer.getInt() != schema.fingerprint() ) {
+      throw new IllegalArgumentException( "Buffer was not encoded for the current layout of " + clazz.getName() );
+    }
+    return clazz.cast( BinaryCodec.readObject( input, schema, null ) );
+  }
+
+  private static Output write( final Object model ) {
+    if( model == null ) {
+      throw new IllegalArgumentException( "Model can not be null" );
+    }
+    Schema schema = BinaryCodec.schemaOf( model.getClass() );
+    Output output = new Output();
+    output.writeByte( BinaryCodec.MAGIC );
+    output.writeVarint( BinaryCodec.VERSION );
+    output.writeInt( schema.fingerprint() );
+    BinaryCodec.writeObject( output, schema, model );
+    return output;
+  }
+
+  private static void writeObject( final Output output, final Schema schema, final Object model ) {
+    Property[] properties = schema.properties;
+    Object[] values = new Object[properties.length];
+    int bitmap = 0;
+    for( int i = 0; i < properties.length; i++ ) {
+      values[i] = properties[i].get( model );
+      if( values[i] != null ) {
+        bitmap |= 1 << (i & 7);
+      }
+      if( (i & 7) == 7 || i == properties.length - 1 ) {
+        output.writeByte( bitmap );
+        bitmap = 0;
+      }
+    }
+    for( int i = 0; i < properties.length; i++ ) {
+      if( values[i] != null ) {
+        BinaryCodec.writeValue( output, properties[i].kind, values[i] );
+      }
+    }
+  }
+
+  private static void writeValue( final Output output, final Kind kind, final Object value ) {
+    switch( kind.id ) {
+      case STRING:
+      case INTERNED:
+        output.writeString( (String) value );
+        break;
+      case INTEGER:
+        output.writeVarint( BinaryCodec.zigZag( (Integer) value ) );
+        break;
+      case LONG:
+        output.writeVarlong( BinaryCodec.zigZag( (Long) value ) );
+        break;
+      case BOOLEAN:
+        output.writeByte( ((Boolean) value) ? 1 : 0 );
+        break;
+      case DATE:
+        long millis = ((Date) value).getTime();
+        output.writeVarlong( BinaryCodec.zigZag( millis % 1000 == 0 ? (millis / 1000) << 1 : (millis << 1) | 1 ) );
+        break;
+      case ENUM:
+        output.writeString( ((Enum<?>) value).name() );
+        break;
+      case PERIOD:
+        Interval.Period period = (Interval.Period) value;
+        BinaryCodec.writePeriod( output, period.getInterval(), period.getUnit(), null );
+        break;
+      case CHARGEDAY:
+        Interval.PeriodWithChargeDay chargeDay = (Interval.PeriodWithChargeDay) value;
+        BinaryCodec.writePeriod( output, chargeDay.getInterval(), chargeDay.getUnit(), chargeDay.getWeekday() );
+        break;
+      case LIST:
+        List<?> list = (List<?>) value;
+        output.writeVarint( list.size() );
+        for( Object element : list ) {
+          BinaryCodec.writeElement( output, kind.element, element );
+        }
+        break;
+      case ARRAY:
+        int length = Array.getLength( value );
+        output.writeVarint( length );
+        for( int i = 0; i < length; i++ ) {
+          BinaryCodec.writeElement( output, kind.element, Array.get( value, i ) );
+        }
+        break;
+      default:
+        BinaryCodec.writeObject( output, BinaryCodec.schemaOf( kind.type ), value );
+    }
+  }
+
+  private static void writeElement( final Output output, final Kind kind, final Object element ) {
+    if( element == null ) {
+      output.writeByte( 0 );
+    } else {
+      output.writeByte( 1 );
+      BinaryCodec.writeValue( output, kind, element );
+    }
+  }
+
+  private static void writePeriod( final Output output, final Integer interval, final Interval.Unit unit, final Interval.Weekday weekday ) {
+    output.writeByte( (interval != null ? 1 : 0) | (unit != null ? 2 : 0) | (weekday != null ? 4 : 0) );
+    if( interval != null ) {
+      output.writeVarint( BinaryCodec.zigZag( interval ) );
+    }
+    if( unit != null ) {
+      output.writeString( unit.name() );
+    }
+    if( weekday != null ) {
+      output.writeString( weekday.name() );
+    }
+  }
+
+  private static Object readObject( final Input input, final Schema schema, final Object outer ) {
+    Property[] properties = schema.properties;
+    byte[] bitmap = new byte[(properties.length + 7) >> 3];
+    input.buffer.get( bitmap );
+    Object model = schema.newInstance( outer );
+    for( int i = 0; i < properties.length; i++ ) {
+      if( (bitmap[i >> 3] & (1 << (i & 7))) != 0 ) {
+        properties[i].set( model, BinaryCodec.readValue( input, properties[i].kind, model ) );
+      }
+    }
+    return model;
+  }
+
+  @SuppressWarnings( { "unchecked", "rawtypes" } )
+  private static Object readValue( final Input input, final Kind kind, final Object outer ) {
+    switch( kind.id ) {
+      case STRING:
+        return input.readString();
+      case INTERNED:
+        return Interning.string( input.readString() );
+      case INTEGER:
+        return BinaryCodec.unZigZag( input.readVarint() );
+      case LONG:
+        return BinaryCodec.unZigZag( input.readVarlong() );
+      case BOOLEAN:
+        return input.buffer.get() != 0;
+      case DATE:
+        long value = BinaryCodec.unZigZag( input.readVarlong() );
+        return new Date( (value & 1) == 0 ? (value >> 1) * 1000 : value >> 1 );
+      case ENUM:
+        return Enum.valueOf( (Class<? extends Enum>) kind.type, input.readString() );
+      case PERIOD:
+      case CHARGEDAY:
+        int bitmap = input.buffer.get();
+        Integer interval = (bitmap & 1) != 0 ? BinaryCodec.unZigZag( input.readVarint() ) : null;
+        Interval.Unit unit = (bitmap & 2) != 0 ? Interval.Unit.valueOf( input.readString() ) : null;
+        Interval.Weekday weekday = (bitmap & 4) != 0 ? Interval.Weekday.valueOf( input.readString() ) : null;
+        return kind.id == BinaryCodec.PERIOD ? Interval.period( interval, unit ) : Interval.periodWithChargeDay( interval, unit, weekday );
+      case LIST:
+        int size = input.readVarint();
+        List<Object> list = new ArrayList<Object>( size );
+        for( int i = 0; i < size; i++ ) {
+          list.add( input.buffer.get() != 0 ? BinaryCodec.readValue( input, kind.element, outer ) : null );
+        }
+        return list;
+      case ARRAY:
+        int length = input.readVarint();
+        Object array = Array.newInstance( kind.element.type, length );
+        for( int i = 0; i < length; i++ ) {
+          Array.set( array, i, input.buffer.get() != 0 ? BinaryCodec.readValue( input, kind.element, outer ) : null );
+        }
+        return array;
+      default:
+        return BinaryCodec.readObject( input, BinaryCodec.schemaOf( kind.type ), outer );
+    }
+  }
+
+  private static Schema schemaOf( final Class<?> clazz ) {
+    Schema schema = BinaryCodec.SCHEMAS.get( clazz );
+    if( schema == null ) {
+      schema = new Schema( clazz );
+      Schema existing = BinaryCodec.SCHEMAS.putIfAbsent( clazz, schema );
+      if( existing != null ) {
+        schema = existing;
+      }
+    }
+    return schema;
+  }
+
+  private static int zigZag( final int value ) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static long zigZag( final long value ) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static int unZigZag( final int value ) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static long unZigZag( final long value ) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Type of a field or of the elements of a list or array.
+   */
+  private static final class Kind {
+
+    private final int      id;
+
+    private final Class<?> type;
+
+    private final Kind     element;
+
+    private Kind( final int id, final Class<?> type, final Kind element ) {
+      this.id = id;
+      this.type = type;
+      this.element = element;
+    }
+
+    private static Kind of( final Class<?> type, final Type genericType, final String name ) {
+      if( type == String.class ) {
+        return new Kind( BinaryCodec.STRING, type, null );
+      }
+      if( type == Integer.class || type == int.class ) {
+        return new Kind( BinaryCodec.INTEGER, type, null );
+      }
+      if( type == Long.class || type == long.class ) {
+        return new Kind( BinaryCodec.LONG, type, null );
+      }
+      if( type == Boolean.class || type == boolean.class ) {
+        return new Kind( BinaryCodec.BOOLEAN, type, null );
+      }
+      if( type == Date.class ) {
+        return new Kind( BinaryCodec.DATE, type, null );
+      }
+      if( type.isEnum() ) {
+        return new Kind( BinaryCodec.ENUM, type, null );
+      }
+      if( type == Interval.Period.class ) {
+        return new Kind( BinaryCodec.PERIOD, type, null );
+      }
+      if( type == Interval.PeriodWithChargeDay.class ) {
+        return new Kind( BinaryCodec.CHARGEDAY, type, null );
+      }
+      if( type == List.class && genericType instanceof ParameterizedType ) {
+        Type elementType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        if( elementType instanceof Class ) {
+          return new Kind( BinaryCodec.LIST, type, Kind.of( (Class<?>) elementType, elementType, name ) );
+        }
+      }
+      if( type.isArray() ) {
+        return new Kind( BinaryCodec.ARRAY, type, Kind.of( type.getComponentType(), type.getComponentType(), name ) );
+      }
+      if( type.getPackage() == BinaryCodec.class.getPackage() && !type.isInterface() ) {
+        return new Kind( BinaryCodec.MODEL, type, null );
+      }
+      throw new IllegalArgumentException( "Can not encode " + name + " of type " + genericType );
+    }
+
+    /**
+     * Combines the type with the layout of nested models. A model, which is already being fingerprinted, contributes only its
+     * name, so recursive models terminate.
+     */
+    private int fingerprint( final Set<Class<?>> visited ) {
+      int fingerprint = 31 * this.id + this.type.getName().hashCode();
+      if( this.id == BinaryCodec.MODEL && visited.add( this.type ) ) {
+        fingerprint = 31 * fingerprint + BinaryCodec.schemaOf( this.type ).fingerprint( visited );
+        visited.remove( this.type );
+      }
+      return this.element != null ? 31 * fingerprint + this.element.fingerprint( visited ) : fingerprint;
+    }
+
+  }
+
+  private static final class Property {
+
+    private final Field field;
+
+    private final Kind  kind;
+
+    private Property( final Field field ) {
+      Kind kind = Kind.of( field.getType(), field.getGenericType(), field.toString() );
+      JsonDeserialize deserialize = field.getAnnotation( JsonDeserialize.class );
+      if( kind.id == BinaryCodec.STRING && deserialize != null && deserialize.using() == Interning.StringDeserializer.class ) {
+        kind = new Kind( BinaryCodec.INTERNED, kind.type, null );
+      }
+      this.field = field;
+      this.kind = kind;
+    }
+
+    private Object get( final Object model ) {
+      try {
+        return this.field.get( model );
+      } catch( IllegalAccessException exc ) {
+        throw new RuntimeException( exc );
+      }
+    }
+
+    private void set( final Object model, final Object value ) {
+      try {
+        this.field.set( model, value );
+      } catch( IllegalAccessException exc ) {
+        throw new RuntimeException( exc );
+      }
+    }
+
+  }
+
+  /**
+   * Fields and constructor of a model. Inner classes, like {@link Offer.SubscriptionCount}, are created with the model, in which
+   * they are decoded.
+   */
+  private static final class Schema {
+
+    private final Class<?>       type;
+
+    private final Constructor<?> constructor;
+
+    private final boolean        inner;
+
+    private final Property[]     properties;
+
+    private volatile Integer     fingerprint;
+
+    private Schema( final Class<?> clazz ) {
+      this.type = clazz;
+      this.inner = clazz.isMemberClass() && !Modifier.isStatic( clazz.getModifiers() );
+      try {
+        this.constructor = this.inner ? clazz.getDeclaredConstructor( clazz.getEnclosingClass() ) : clazz.getDeclaredConstructor();
+        this.constructor.setAccessible( true );
+      } catch( NoSuchMethodException exc ) {
+        throw new IllegalArgumentException( "Can not encode " + clazz.getName() + " without a no-argument constructor", exc );
+      }
+
+      List<Field> fields = new ArrayList<Field>();
+      for( Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass() ) {
+        for( Field field : type.getDeclaredFields() ) {
+          int modifiers = field.getModifiers();
+          if( Modifier.isStatic( modifiers ) || Modifier.isFinal( modifiers ) || Modifier.isTransient( modifiers ) || field.isSynthetic() ) {
+            continue;
+          }
+          field.setAccessible( true );
+          fields.add( field );
+        }
+      }
+      Field[] sorted = fields.toArray( new Field[fields.size()] );
+      Arrays.sort( sorted, new Comparator<Field>() {
+
+        @Override
+        public int compare( final Field first, final Field second ) {
+          return first.getName().compareTo( second.getName() );
+        }
+
+      } );
+
+      this.properties = new Property[sorted.length];
+      for( int i = 0; i < sorted.length; i++ ) {
+        this.properties[i] = new Property( sorted[i] );
+      }
+    }
+
+    /**
+     * Computed on first use, as nested models may refer back to this one and their schemas can only be created afterwards.
+     */
+    private int fingerprint() {
+      Integer fingerprint = this.fingerprint;
+      if( fingerprint == null ) {
+        Set<Class<?>> visited = new HashSet<Class<?>>();
+        visited.add( this.type );
+        fingerprint = this.fingerprint( visited );
+        this.fingerprint = fingerprint;
+      }
+      return fingerprint;
+    }
+
+    private int fingerprint( final Set<Class<?>> visited ) {
+      int fingerprint = this.type.getName().hashCode();
+      for( Property property : this.properties ) {
+        fingerprint = 31 * (31 * fingerprint + property.field.getName().hashCode()) + property.kind.fingerprint( visited );
+      }
+      return fingerprint;
+    }
+
+    private Object newInstance( final Object outer ) {
+      try {
+        return this.inner ? this.constructor.newInstance( outer ) : this.constructor.newInstance();
+      } catch( Exception exc ) {
+        throw new RuntimeException( exc );
+      }
+    }
+
+  }
+
+  private static final class Output {
+
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+
+    private byte[]                     bytes      = new byte[256];
+
+    private int                        size;
+
+    private void ensure( final int length ) {
+      if( this.size + length > this.bytes.length ) {
+        this.bytes = Arrays.copyOf( this.bytes, Math.max( this.bytes.length * 2, this.size + length ) );
+      }
+    }
+
+    private void writeByte( final int value ) {
+      this.ensure( 1 );
+      this.bytes[this.size++] = (byte) value;
+    }
+
+    private void writeInt( final int value ) {
+      this.ensure( 4 );
+      this.bytes[this.size++] = (byte) (value >>> 24);
+      this.bytes[this.size++] = (byte) (value >>> 16);
+      this.bytes[this.size++] = (byte) (value >>> 8);
+      this.bytes[this.size++] = (byte) value;
+    }
+
+    private void writeVarint( int value ) {
+      this.ensure( 5 );
+      while( (value & ~0x7F) != 0 ) {
+        this.bytes[this.size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      this.bytes[this.size++] = (byte) value;
+    }
+
+    private void writeVarlong( long value ) {
+      this.ensure( 10 );
+      while( (value & ~0x7FL) != 0 ) {
+        this.bytes[this.size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      this.bytes[this.size++] = (byte) value;
+    }
+
+    private void writeString( final String value ) {
+      Integer index = this.dictionary.get( value );
+      if( index != null ) {
+        this.writeVarint( index );
+        return;
+      }
+      this.dictionary.put( value, this.dictionary.size() + 1 );
+      byte[] utf8 = value.getBytes( BinaryCodec.UTF_8 );
+      this.writeVarint( 0 );
+      this.writeVarint( utf8.length );
+      this.ensure( utf8.length );
+      System.arraycopy( utf8, 0, this.bytes, this.size, utf8.length );
+      this.size += utf8.length;
+    }
+
+  }
+
+  private static final class Input {
+
+    private final ByteBuffer   buffer;
+
+    private final List<String> dictionary = new ArrayList<String>();
+
+    private Input( final ByteBuffer buffer ) {
+      this.buffer = buffer;
+    }
+
+    private int readVarint() {
+      int value = 0;
+      for( int shift = 0; shift < 32; shift += 7 ) {
+        byte b = this.buffer.get();
+        value |= (b & 0x7F) << shift;
+        if( b >= 0 ) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException( "Malformed varint" );
+    }
+
+    private long readVarlong() {
+      long value = 0;
+      for( int shift = 0; shift < 64; shift += 7 ) {
+        byte b = this.buffer.get();
+        value |= (long) (b & 0x7F) << shift;
+        if( b >= 0 ) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException( "Malformed varint" );
+    }
+
+    private String readString() {
+      int index = this.readVarint();
+      if( index > 0 ) {
+        return this.dictionary.get( index - 1 );
+      }
+      int length = this.readVarint();
+      String value;
+      if( this.buffer.hasArray() ) {
+        value = new String( this.buffer.array(), this.buffer.arrayOffset() + this.buffer.position(), length, BinaryCodec.UTF_8 );
+        this.buffer.position( this.buffer.position() + length );
+      } else {
+        byte[] utf8 = new byte[length];
+        this.buffer.get( utf8 );
+        value = new String( utf8, BinaryCodec.UTF_8 );
+      }
+      this.dictionary.add( value );
+      return value;
+    }
+
+  }
+
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * The clients object is used to edit, delete, update clients as well as to permit refunds, subscriptions, insert credit card
@@ -38,8 +39,14 @@ public final class Client {
   private List<Subscription> subscriptions;
 
   @JsonProperty( "app_id" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String             appId;
 
+  /**
+   * Parameter values of the updateable fields, when the client was loaded from PAYMILL.
+   */
+  private transient String[] snapshot;
+
   public Client() {
     super();
   }
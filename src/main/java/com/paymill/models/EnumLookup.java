@@ -0,0 +1,105 @@
+package com.paymill.models;
+
+import java.lang.reflect.Method;
+
+/**
+ * Case-insensitive lookup of model enums by their PAYMILL value. The values are read once from the <code>getValue()</code> method
+ * of the enum and put into two open addressing tables. The first one is probed with the cached {@link String#hashCode()}, which
+ * resolves values in their original case with a single {@link String#equals(Object)}. Other spellings hash the characters of the
+ * given value directly and compare with {@link String#regionMatches(boolean, int, String, int, int)}, so decoding an enum allocates
+ * nothing.
+ */
+final class EnumLookup<E extends Enum<E>> {
+
+  private final String[] exactKeys;
+
+  private final Object[] exactConstants;
+
+  private final String[] keys;
+
+  private final Object[] constants;
+
+  private final int      mask;
+
+  private EnumLookup( final E[] constants ) {
+    int capacity = Integer.highestOneBit( Math.max( constants.length, 1 ) * 4 - 1 ) << 1;
+    this.exactKeys = new String[capacity];
+    this.exactConstants = new Object[capacity];
+    this.keys = new String[capacity];
+    this.constants = new Object[capacity];
+    this.mask = capacity - 1;
+
+    for( E constant : constants ) {
+      String key = EnumLookup.valueOf( constant );
+      EnumLookup.put( this.exactKeys, this.exactConstants, EnumLookup.spread( key.hashCode() ) & this.mask, this.mask, key, constant );
+      EnumLookup.put( this.keys, this.constants, EnumLookup.hash( key ) & this.mask, this.mask, key, constant );
+    }
+  }
+
+  /**
+   * @param constants
+   *          all constants of the enum, i.e. the result of its <code>values()</code> method.
+   * @return lookup over the values of the given constants.
+   */
+  static <E extends Enum<E>> EnumLookup<E> of( final E[] constants ) {
+    return new EnumLookup<E>( constants );
+  }
+
+  /**
+   * @param value
+   *          PAYMILL value of the constant, in any case.
+   * @return the constant or <code>null</code>, if the value is <code>null</code> or unknown.
+   */
+  @SuppressWarnings( "unchecked" )
+  E get( final String value ) {
+    if( value == null ) {
+      return null;
+    }
+    int slot = EnumLookup.spread( value.hashCode() ) & this.mask;
+    String key;
+    while( (key = this.exactKeys[slot]) != null ) {
+      if( key.equals( value ) ) {
+        return (E) this.exactConstants[slot];
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    slot = EnumLookup.hash( value ) & this.mask;
+    while( (key = this.keys[slot]) != null ) {
+      if( key.length() == value.length() && key.regionMatches( true, 0, value, 0, value.length() ) ) {
+        return (E) this.constants[slot];
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    return null;
+  }
+
+  private static void put( final String[] keys, final Object[] constants, int slot, final int mask, final String key, final Object constant ) {
+    while( keys[slot] != null ) {
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    constants[slot] = constant;
+  }
+
+  private static int hash( final String value ) {
+    int hash = 0;
+    for( int i = 0; i < value.length(); i++ ) {
+      hash = 31 * hash + Character.toLowerCase( value.charAt( i ) );
+    }
+    return EnumLookup.spread( hash );
+  }
+
+  private static int spread( final int hash ) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static String valueOf( final Enum<?> constant ) {
+    try {
+      Method getValue = constant.getDeclaringClass().getMethod( "getValue" );
+      return String.valueOf( getValue.invoke( constant ) );
+    } catch( Exception exc ) {
+      throw new IllegalStateException( "Can not read the value of " + constant.getDeclaringClass().getName() + "." + constant.name(), exc );
+    }
+  }
+
+}
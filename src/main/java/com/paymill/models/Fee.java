@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 public final class Fee {
 
@@ -17,6 +18,7 @@ public final class Fee {
 
   private Integer  amount;
 
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String   currency;
 
   @JsonProperty( "billed_at" )
@@ -140,6 +142,8 @@ public final class Fee {
 
     private String value;
 
+    private final static EnumLookup<Type> LOOKUP = EnumLookup.of( Type.values() );
+
     private Type( final String value ) {
       this.value = value;
     }
@@ -151,10 +155,9 @@ public final class Fee {
 
     @JsonCreator
     public static Type create( final String value ) {
-      for( Type type : Type.values() ) {
-        if( type.getValue().equals( value ) ) {
-          return type;
-        }
+      Type type = Type.LOOKUP.get( value );
+      if( type != null ) {
+        return type;
       }
       throw new IllegalArgumentException( "Invalid value for Fee.Type" );
     }
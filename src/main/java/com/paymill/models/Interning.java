@@ -0,0 +1,148 @@
+package com.paymill.models;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.paymill.utils.Interner;
+
+/**
+ * Opt-in interning of values, which repeat throughout large result sets. When enabled, currencies, app ids and countries are
+ * canonicalized while they are decoded, so all models of a list share one instance per distinct value. Statuses, types and
+ * interval units are enums and therefore shared anyway. Interval periods such as <code>1 MONTH</code> are parsed once per
+ * distinct value, but each model gets its own copy, because periods are mutable.
+ * @since 5.1.4
+ */
+public final class Interning {
+
+  private static volatile Tables tables;
+
+  private Interning() {
+    super();
+  }
+
+  /**
+   * Enables interning for all subsequently decoded models and drops the values interned so far.
+   * @param maxSize
+   *          maximal number of distinct values kept per kind of value, e.g. 1000.
+   */
+  public static void enable( final int maxSize ) {
+    Interning.tables = new Tables( maxSize );
+  }
+
+  /**
+   * Disables interning and drops all interned values.
+   */
+  public static void disable() {
+    Interning.tables = null;
+  }
+
+  public static boolean isEnabled() {
+    return Interning.tables != null;
+  }
+
+  static String string( final String value ) {
+    Tables tables = Interning.tables;
+    return tables != null ? tables.strings.intern( value, value ) : value;
+  }
+
+  static Interval.Period period( final String value ) {
+    Tables tables = Interning.tables;
+    if( tables == null ) {
+      return new Interval.Period( value );
+    }
+    Interval.Period period = tables.periods.get( value );
+    if( period == null ) {
+      period = tables.periods.intern( value, new Interval.Period( value ) );
+    }
+    return Interval.period( period.getInterval(), period.getUnit() );
+  }
+
+  static Interval.PeriodWithChargeDay periodWithChargeDay( final String value ) {
+    Tables tables = Interning.tables;
+    if( tables == null ) {
+      return new Interval.PeriodWithChargeDay( value );
+    }
+    Interval.PeriodWithChargeDay period = tables.periodsWithChargeDay.get( value );
+    if( period == null ) {
+      period = tables.periodsWithChargeDay.intern( value, new Interval.PeriodWithChargeDay( value ) );
+    }
+    return Interval.periodWithChargeDay( period.getInterval(), period.getUnit(), period.getWeekday() );
+  }
+
+  /**
+   * The interned strings are shared, the periods are only parsed templates, which never leave this class.
+   */
+  private static final class Tables {
+
+    private final Interner<String, String>                       strings;
+
+    private final Interner<String, Interval.Period>              periods;
+
+    private final Interner<String, Interval.PeriodWithChargeDay> periodsWithChargeDay;
+
+    private Tables( final int maxSize ) {
+      this.strings = new Interner<String, String>( maxSize );
+      this.periods = new Interner<String, Interval.Period>( maxSize );
+      this.periodsWithChargeDay = new Interner<String, Interval.PeriodWithChargeDay>( maxSize );
+    }
+
+  }
+
+  static final class StringDeserializer extends StdDeserializer<String> {
+
+    private static final long serialVersionUID = -2311843256406931390L;
+
+    StringDeserializer() {
+      super( String.class );
+    }
+
+    @Override
+    public String deserialize( final JsonParser parser, final DeserializationContext context ) throws IOException {
+      if( parser.getCurrentToken() == JsonToken.VALUE_STRING ) {
+        return Interning.string( parser.getText() );
+      }
+      return com.fasterxml.jackson.databind.deser.std.StringDeserializer.instance.deserialize( parser, context );
+    }
+
+  }
+
+  static final class PeriodDeserializer extends StdDeserializer<Interval.Period> {
+
+    private static final long serialVersionUID = 4790325513542216387L;
+
+    PeriodDeserializer() {
+      super( Interval.Period.class );
+    }
+
+    @Override
+    public Interval.Period deserialize( final JsonParser parser, final DeserializationContext context ) throws IOException {
+      if( parser.getCurrentToken() == JsonToken.VALUE_STRING ) {
+        return Interning.period( parser.getText() );
+      }
+      return context.readValue( parser, Interval.Period.class );
+    }
+
+  }
+
+  static final class PeriodWithChargeDayDeserializer extends StdDeserializer<Interval.PeriodWithChargeDay> {
+
+    private static final long serialVersionUID = -6468335372707187795L;
+
+    PeriodWithChargeDayDeserializer() {
+      super( Interval.PeriodWithChargeDay.class );
+    }
+
+    @Override
+    public Interval.PeriodWithChargeDay deserialize( final JsonParser parser, final DeserializationContext context ) throws IOException {
+      if( parser.getCurrentToken() == JsonToken.VALUE_STRING ) {
+        return Interning.periodWithChargeDay( parser.getText() );
+      }
+      return context.readValue( parser, Interval.PeriodWithChargeDay.class );
+    }
+
+  }
+
+}
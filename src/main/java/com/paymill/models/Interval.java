@@ -130,6 +130,8 @@ public class Interval {
 
     private String value;
 
+    private final static EnumLookup<Unit> LOOKUP = EnumLookup.of( Unit.values() );
+
     private Unit( final String value ) {
       this.value = value;
     }
@@ -141,10 +143,9 @@ public class Interval {
 
     @JsonCreator
     public static Unit create( final String value ) {
-      for( Unit unit : Unit.values() ) {
-        if( unit.getValue().equals( value.toUpperCase() ) ) {
-          return unit;
-        }
+      Unit unit = Unit.LOOKUP.get( value );
+      if( unit != null ) {
+        return unit;
       }
       throw new IllegalArgumentException( "Invalid value for Interval.Unit:" + value );
     }
@@ -160,6 +161,8 @@ public class Interval {
 
     private String value;
 
+    private final static EnumLookup<Weekday> LOOKUP = EnumLookup.of( Weekday.values() );
+
     private Weekday( final String value ) {
       this.value = value;
     }
@@ -171,10 +174,9 @@ public class Interval {
 
     @JsonCreator
     public static Weekday create( final String value ) {
-      for( Weekday weekday : Weekday.values() ) {
-        if( weekday.getValue().equals( value.toUpperCase() ) ) {
-          return weekday;
-        }
+      Weekday weekday = Weekday.LOOKUP.get( value );
+      if( weekday != null ) {
+        return weekday;
       }
       throw new IllegalArgumentException( "Invalid value for Interval.Weekday" + value );
     }
@@ -5,6 +5,7 @@ import java.util.Date;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * An offer is a recurring plan which a user can subscribe to. You can create different offers with different plan attributes e.g.
@@ -32,12 +33,14 @@ public final class Offer {
   private Integer                 amount;
 
   @Updateable( "interval" )
+  @JsonDeserialize( using = Interning.PeriodDeserializer.class )
   private Interval.Period         interval;
 
   @JsonProperty( "trial_period_days" )
   private Integer                 trialPeriodDays;
 
   @Updateable( "currency" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String                  currency;
 
   @JsonProperty( "created_at" )
@@ -47,11 +50,17 @@ public final class Offer {
   private Date                    updatedAt;
 
   @JsonProperty( "app_id" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String                  appId;
 
   @JsonProperty( "subscription_count" )
   private Offer.SubscriptionCount subscriptionCount;
 
+  /**
+   * Parameter values of the updateable fields, when the offer was loaded from PAYMILL.
+   */
+  private transient String[]      snapshot;
+
   public String getId() {
     return this.id;
   }
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * The Payment object represents a payment with a credit card or via direct debit. It is used for several function calls (e.g.
@@ -40,6 +41,7 @@ public final class Payment {
   private Date             updatedAt;
 
   @JsonProperty( "app_id" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String           appId;
 
   // Direct debit attributes
@@ -55,6 +57,7 @@ public final class Payment {
   @JsonProperty( "card_type" )
   private Payment.CardType cardType;
 
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String           country;
 
   @JsonProperty( "expire_month" )
@@ -397,6 +400,8 @@ public final class Payment {
 
     private String value;
 
+    private final static EnumLookup<CardType> LOOKUP = EnumLookup.of( CardType.values() );
+
     private CardType( final String value ) {
       this.value = value;
     }
@@ -408,12 +413,8 @@ public final class Payment {
 
     @JsonCreator
     public static CardType create( final String value ) {
-      for( CardType type : CardType.values() ) {
-        if( type.getValue().equals( value ) ) {
-          return type;
-        }
-      }
-      return CardType.UNDEFINDED;
+      CardType type = CardType.LOOKUP.get( value );
+      return type != null ? type : CardType.UNDEFINDED;
     }
   }
 
@@ -427,6 +428,8 @@ public final class Payment {
 
     private String value;
 
+    private final static EnumLookup<Type> LOOKUP = EnumLookup.of( Type.values() );
+
     private Type( final String value ) {
       this.value = value;
     }
@@ -438,12 +441,8 @@ public final class Payment {
 
     @JsonCreator
     public static Type create( final String value ) {
-      for( Type type : Type.values() ) {
-        if( type.getValue().equals( value ) ) {
-          return type;
-        }
-      }
-      return Type.UNDEFINDED;
+      Type type = Type.LOOKUP.get( value );
+      return type != null ? type : Type.UNDEFINDED;
     }
   }
 
@@ -0,0 +1,161 @@
+package com.paymill.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Immutable, read-only view of a {@link Payment}, decoded directly from JSON. Expiry dates are kept as <code>int</code>, timestamps
+ * as <code>long</code> epoch seconds and the client only as its id. Missing numbers and timestamps are <code>0</code>.
+ * @since 5.1.4
+ */
+@JsonIgnoreProperties( ignoreUnknown = true )
+public final class PaymentView {
+
+  private final String           id;
+
+  private final Payment.Type     type;
+
+  private final String           clientId;
+
+  private final Payment.CardType cardType;
+
+  private final String           country;
+
+  private final int              expireMonth;
+
+  private final int              expireYear;
+
+  private final String           cardHolder;
+
+  private final String           last4;
+
+  private final String           code;
+
+  private final String           account;
+
+  private final String           holder;
+
+  private final boolean          recurring;
+
+  private final boolean          usableForPreauthorization;
+
+  private final long             createdAt;
+
+  private final long             updatedAt;
+
+  private final String           appId;
+
+  @JsonCreator
+  PaymentView( @JsonProperty( "id" ) final String id,
+               @JsonProperty( "type" ) final Payment.Type type,
+               @JsonProperty( "client" ) @JsonDeserialize( using = ReferenceDeserializer.class ) final String clientId,
+               @JsonProperty( "card_type" ) final Payment.CardType cardType,
+               @JsonProperty( "country" ) @JsonDeserialize( using = Interning.StringDeserializer.class ) final String country,
+               @JsonProperty( "expire_month" ) final int expireMonth,
+               @JsonProperty( "expire_year" ) final int expireYear,
+               @JsonProperty( "card_holder" ) final String cardHolder,
+               @JsonProperty( "last4" ) final String last4,
+               @JsonProperty( "code" ) final String code,
+               @JsonProperty( "account" ) final String account,
+               @JsonProperty( "holder" ) final String holder,
+               @JsonProperty( "is_recurring" ) final boolean recurring,
+               @JsonProperty( "is_usable_for_preauthorization" ) final boolean usableForPreauthorization,
+               @JsonProperty( "created_at" ) final long createdAt,
+               @JsonProperty( "updated_at" ) final long updatedAt,
+               @JsonProperty( "app_id" ) @JsonDeserialize( using = Interning.StringDeserializer.class ) final String appId ) {
+    this.id = id;
+    this.type = type;
+    this.clientId = clientId;
+    this.cardType = cardType;
+    this.country = country;
+    this.expireMonth = expireMonth;
+    this.expireYear = expireYear;
+    this.cardHolder = cardHolder;
+    this.last4 = last4;
+    this.code = code;
+    this.account = account;
+    this.holder = holder;
+    this.recurring = recurring;
+    this.usableForPreauthorization = usableForPreauthorization;
+    this.createdAt = createdAt;
+    this.updatedAt = updatedAt;
+    this.appId = appId;
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public Payment.Type getType() {
+    return this.type;
+  }
+
+  public String getClientId() {
+    return this.clientId;
+  }
+
+  public Payment.CardType getCardType() {
+    return this.cardType;
+  }
+
+  public String getCountry() {
+    return this.country;
+  }
+
+  public int getExpireMonth() {
+    return this.expireMonth;
+  }
+
+  public int getExpireYear() {
+    return this.expireYear;
+  }
+
+  public String getCardHolder() {
+    return this.cardHolder;
+  }
+
+  public String getLast4() {
+    return this.last4;
+  }
+
+  public String getCode() {
+    return this.code;
+  }
+
+  public String getAccount() {
+    return this.account;
+  }
+
+  public String getHolder() {
+    return this.holder;
+  }
+
+  public boolean isRecurring() {
+    return this.recurring;
+  }
+
+  public boolean isUsableForPreauthorization() {
+    return this.usableForPreauthorization;
+  }
+
+  /**
+   * @return creation time in seconds since epoch.
+   */
+  public long getCreatedAt() {
+    return this.createdAt;
+  }
+
+  /**
+   * @return last update time in seconds since epoch.
+   */
+  public long getUpdatedAt() {
+    return this.updatedAt;
+  }
+
+  public String getAppId() {
+    return this.appId;
+  }
+
+}
@@ -16,7 +16,7 @@ public final class PaymillList<T> {
   private List<T> data;
 
   @JsonProperty( "data_count" )
-  private int     dataCount;
+  private Integer dataCount;
 
   public List<T> getData() {
     return this.data;
@@ -26,8 +26,18 @@ public final class PaymillList<T> {
     this.data = data;
   }
 
+  /**
+   * @return the total number of matching objects or <code>0</code>, if PAYMILL did not report it.
+   */
   public int getDataCount() {
-    return this.dataCount;
+    return this.dataCount != null ? this.dataCount : 0;
+  }
+
+  /**
+   * @return <code>true</code> if PAYMILL reported the total number of matching objects.
+   */
+  public boolean hasDataCount() {
+    return this.dataCount != null;
   }
 
   public void setDataCount( final int dataCount ) {
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * If you’d like to reserve some money from the client’s credit card but you’d also like to execute the transaction itself a bit
@@ -22,6 +23,7 @@ public final class Preauthorization {
 
   private Integer                 amount;
 
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String                  currency;
 
   private String                  description;
@@ -43,6 +45,7 @@ public final class Preauthorization {
   private Date                    updatedAt;
 
   @JsonProperty( "app_id" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String                  appId;
 
   public Preauthorization() {
@@ -117,6 +120,33 @@ public final class Preauthorization {
     this.transaction = transaction;
   }
 
+  /**
+   * Returns the response code of the underlying transaction as detailed message.
+   * @return the message or <code>null</code> if no message is available.
+   */
+  @JsonIgnore
+  public String getResponseCodeDetail() {
+    return this.transaction != null ? this.transaction.getResponseCodeDetail() : null;
+  }
+
+  /**
+   * Classifies the response code of the underlying transaction, e.g. to decide if a failed preauthorization should be retried.
+   * @return the {@link ResponseCode.Category} or <code>null</code> if the response code is unknown.
+   */
+  @JsonIgnore
+  public ResponseCode.Category getResponseCategory() {
+    return this.transaction != null ? this.transaction.getResponseCategory() : null;
+  }
+
+  /**
+   * Checks if the preauthorization failed, but may succeed when it is retried with the same data.
+   * @return true for soft declines and technical errors, false otherwise
+   */
+  @JsonIgnore
+  public boolean isRetryable() {
+    return this.transaction != null && this.transaction.isRetryable();
+  }
+
   public Client getClient() {
     return this.client;
   }
@@ -203,6 +233,8 @@ public final class Preauthorization {
 
     private String value;
 
+    private final static EnumLookup<Status> LOOKUP = EnumLookup.of( Status.values() );
+
     private Status( final String value ) {
       this.value = value;
     }
@@ -214,12 +246,8 @@ public final class Preauthorization {
 
     @JsonCreator
     public static Status create( final String value ) {
-      for( Status status : Status.values() ) {
-        if( status.getValue().equals( value ) ) {
-          return status;
-        }
-      }
-      return Status.UNDEFINED;
+      Status status = Status.LOOKUP.get( value );
+      return status != null ? status : Status.UNDEFINED;
     }
   }
 
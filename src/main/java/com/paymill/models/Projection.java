@@ -0,0 +1,65 @@
+package com.paymill.models;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A {@link Projection} limits the properties of a model, which are bound, when a PAYMILL response is decoded. All other properties
+ * are skipped without being parsed into objects and remain <code>null</code>. The id of the model is always bound, so projected
+ * instances can still be refreshed or updated.
+ * <p>
+ * Properties are referenced by their JSON names, e.g.:
+ *
+ * <pre>
+ * Projection projection = Projection.of( &quot;amount&quot;, &quot;currency&quot;, &quot;created_at&quot; );
+ * </pre>
+ * @since 5.1.4
+ */
+public final class Projection {
+
+  private final Set<String> fields;
+
+  private Projection( final Set<String> fields ) {
+    this.fields = Collections.unmodifiableSet( fields );
+  }
+
+  /**
+   * Creates a {@link Projection} for the given properties.
+   * @param fields
+   *          JSON names of the properties to bind, e.g. <code>created_at</code>.
+   * @return {@link Projection} which binds the given properties and the id.
+   */
+  public static Projection of( final String... fields ) {
+    if( fields == null )
+      throw new IllegalArgumentException( "Projection fields can not be null" );
+
+    Set<String> names = new LinkedHashSet<String>();
+    names.add( "id" );
+    for( String field : fields ) {
+      if( field == null || field.trim().length() == 0 )
+        throw new IllegalArgumentException( "Projection field can not be blank" );
+      names.add( field );
+    }
+    return new Projection( names );
+  }
+
+  /**
+   * Checks if the property with the given JSON name is part of this {@link Projection}.
+   * @param field
+   *          JSON name of the property.
+   * @return <code>true</code> if the property is bound, <code>false</code> if it is skipped.
+   */
+  public boolean contains( final String field ) {
+    return this.fields.contains( field );
+  }
+
+  /**
+   * Returns the JSON names of all bound properties, including the id.
+   * @return unmodifiable {@link Set} of property names.
+   */
+  public Set<String> getFields() {
+    return this.fields;
+  }
+
+}
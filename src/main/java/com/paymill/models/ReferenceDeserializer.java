@@ -0,0 +1,44 @@
+package com.paymill.models;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Reads only the id of a nested model, e.g. the payment of a transaction. PAYMILL sends nested models either expanded as object,
+ * as plain id or as empty array; for an object all other properties are skipped on token level.
+ */
+final class ReferenceDeserializer extends StdDeserializer<String> {
+
+  private static final long serialVersionUID = 6083744417227006718L;
+
+  ReferenceDeserializer() {
+    super( String.class );
+  }
+
+  @Override
+  public String deserialize( final JsonParser parser, final DeserializationContext context ) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if( token == JsonToken.VALUE_STRING ) {
+      return parser.getText();
+    }
+    if( token != JsonToken.START_OBJECT ) {
+      parser.skipChildren();
+      return null;
+    }
+    String id = null;
+    while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = parser.getCurrentName();
+      if( parser.nextToken() == JsonToken.VALUE_STRING && "id".equals( name ) ) {
+        id = parser.getText();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return id;
+  }
+
+}
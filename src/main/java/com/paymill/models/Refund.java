@@ -7,6 +7,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * Refunds are own objects with own calls for existing transactions. The refunded amount will be credited to the account of the
@@ -39,6 +40,7 @@ public final class Refund {
   private Integer       responseCode;
 
   @JsonProperty( "app_id" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String        appId;
 
   public Refund() {
@@ -105,6 +107,36 @@ public final class Refund {
     this.responseCode = responseCode;
   }
 
+  /**
+   * Returns the response code as detailed message.
+   * @return the message or <code>null</code> if no message is available.
+   */
+  @JsonIgnore
+  public String getResponseCodeDetail() {
+    ResponseCode code = ResponseCode.fromCode( this.responseCode );
+    return code != null ? code.getMessage() : null;
+  }
+
+  /**
+   * Classifies the response code, e.g. to decide if a failed refund should be retried.
+   * @return the {@link ResponseCode.Category} or <code>null</code> if the response code is unknown.
+   */
+  @JsonIgnore
+  public ResponseCode.Category getResponseCategory() {
+    ResponseCode code = ResponseCode.fromCode( this.responseCode );
+    return code != null ? code.getCategory() : null;
+  }
+
+  /**
+   * Checks if the refund failed, but may succeed when it is retried with the same data.
+   * @return true for soft declines and technical errors, false otherwise
+   */
+  @JsonIgnore
+  public boolean isRetryable() {
+    ResponseCode code = ResponseCode.fromCode( this.responseCode );
+    return code != null && code.isRetryable();
+  }
+
   /**
    * Returns App (ID) that created this refund or <code>null</code> if created by yourself.
    * @return {@link String} or <code>null</code>.
@@ -321,6 +353,8 @@ public final class Refund {
 
     private String value;
 
+    private final static EnumLookup<Status> LOOKUP = EnumLookup.of( Status.values() );
+
     private Status( final String value ) {
       this.value = value;
     }
@@ -332,12 +366,8 @@ public final class Refund {
 
     @JsonCreator
     public static Status create( final String value ) {
-      for( Status status : Status.values() ) {
-        if( status.getValue().equals( value ) ) {
-          return status;
-        }
-      }
-      return Status.UNDEFINED;
+      Status status = Status.LOOKUP.get( value );
+      return status != null ? status : Status.UNDEFINED;
     }
   }
 
@@ -0,0 +1,118 @@
+package com.paymill.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Immutable, read-only view of a {@link Refund}, decoded directly from JSON. The amount is kept as <code>int</code> cents,
+ * timestamps as <code>long</code> epoch seconds and the refunded transaction only as its id. Missing numbers and timestamps are
+ * <code>0</code>.
+ * @since 5.1.4
+ */
+@JsonIgnoreProperties( ignoreUnknown = true )
+public final class RefundView {
+
+  private final String        id;
+
+  private final String        transactionId;
+
+  private final int           amount;
+
+  private final Refund.Status status;
+
+  private final String        description;
+
+  private final boolean       livemode;
+
+  private final long          createdAt;
+
+  private final long          updatedAt;
+
+  private final int           responseCode;
+
+  private final String        appId;
+
+  @JsonCreator
+  RefundView( @JsonProperty( "id" ) final String id,
+              @JsonProperty( "transaction" ) @JsonDeserialize( using = ReferenceDeserializer.class ) final String transactionId,
+              @JsonProperty( "amount" ) final int amount,
+              @JsonProperty( "status" ) final Refund.Status status,
+              @JsonProperty( "description" ) final String description,
+              @JsonProperty( "livemode" ) final boolean livemode,
+              @JsonProperty( "created_at" ) final long createdAt,
+              @JsonProperty( "updated_at" ) final long updatedAt,
+              @JsonProperty( "response_code" ) final int responseCode,
+              @JsonProperty( "app_id" ) @JsonDeserialize( using = Interning.StringDeserializer.class ) final String appId ) {
+    this.id = id;
+    this.transactionId = transactionId;
+    this.amount = amount;
+    this.status = status;
+    this.description = description;
+    this.livemode = livemode;
+    this.createdAt = createdAt;
+    this.updatedAt = updatedAt;
+    this.responseCode = responseCode;
+    this.appId = appId;
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public String getTransactionId() {
+    return this.transactionId;
+  }
+
+  /**
+   * @return refunded amount in cents.
+   */
+  public int getAmount() {
+    return this.amount;
+  }
+
+  public Refund.Status getStatus() {
+    return this.status;
+  }
+
+  public String getDescription() {
+    return this.description;
+  }
+
+  public boolean isLivemode() {
+    return this.livemode;
+  }
+
+  /**
+   * @return creation time in seconds since epoch.
+   */
+  public long getCreatedAt() {
+    return this.createdAt;
+  }
+
+  /**
+   * @return last update time in seconds since epoch.
+   */
+  public long getUpdatedAt() {
+    return this.updatedAt;
+  }
+
+  public int getResponseCode() {
+    return this.responseCode;
+  }
+
+  /**
+   * Classifies the response code, e.g. to decide if a failed refund should be retried.
+   * @return the {@link ResponseCode.Category} or <code>null</code> if the response code is unknown.
+   */
+  public ResponseCode.Category getResponseCategory() {
+    ResponseCode code = ResponseCode.fromCode( this.responseCode );
+    return code != null ? code.getCategory() : null;
+  }
+
+  public String getAppId() {
+    return this.appId;
+  }
+
+}
@@ -0,0 +1,205 @@
+package com.paymill.models;
+
+/**
+ * Registry of the response codes of transactions, preauthorizations and refunds. Every code carries its message and a
+ * {@link Category}, which tells successful, retryable and final outcomes apart. Codes are resolved with {@link #fromCode(int)} in
+ * constant time from an open addressing table, which is built once when the class is loaded.
+ * @since 5.1.4
+ */
+public enum ResponseCode {
+
+  UNDEFINED_RESPONSE(10001, "General undefined response", Category.TECHNICAL_ERROR),
+
+  WAITING(10002, "Still waiting on something.", Category.PENDING),
+
+  SUCCESS(20000, "General success response.", Category.SUCCESS),
+
+  DATA_PROBLEM(40000, "General problem with data.", Category.HARD_DECLINE),
+
+  PAYMENT_DATA_PROBLEM(40001, "General problem with payment data.", Category.HARD_DECLINE),
+
+  CARD_DATA_PROBLEM(40100, "Problem with credit card data.", Category.HARD_DECLINE),
+
+  CVV_PROBLEM(40101, "Problem with cvv.", Category.HARD_DECLINE),
+
+  CARD_EXPIRED(40102, "Card expired or not yet valid.", Category.HARD_DECLINE),
+
+  LIMIT_EXCEEDED(40103, "Limit exceeded.", Category.SOFT_DECLINE),
+
+  CARD_INVALID(40104, "Card invalid.", Category.HARD_DECLINE),
+
+  EXPIRY_DATE_INVALID(40105, "Expiry date not valid.", Category.HARD_DECLINE),
+
+  CARD_BRAND_REQUIRED(40106, "Credit card brand required.", Category.HARD_DECLINE),
+
+  BANK_ACCOUNT_DATA_PROBLEM(40200, "Problem with bank account data.", Category.HARD_DECLINE),
+
+  BANK_ACCOUNT_MISMATCH(40201, "Bank account data combination mismatch.", Category.HARD_DECLINE),
+
+  USER_AUTHENTICATION_FAILED(40202, "User authentication failed.", Category.HARD_DECLINE),
+
+  THREE_D_SECURE_DATA_PROBLEM(40300, "Problem with 3d secure data.", Category.HARD_DECLINE),
+
+  CURRENCY_AMOUNT_MISMATCH(40301, "Currency / amount mismatch", Category.HARD_DECLINE),
+
+  INPUT_DATA_PROBLEM(40400, "Problem with input data.", Category.HARD_DECLINE),
+
+  AMOUNT_TOO_LOW(40401, "Amount too low or zero.", Category.HARD_DECLINE),
+
+  USAGE_TOO_LONG(40402, "Usage field too long.", Category.HARD_DECLINE),
+
+  CURRENCY_NOT_ALLOWED(40403, "Currency not allowed.", Category.HARD_DECLINE),
+
+  BACKEND_PROBLEM(50000, "General problem with backend.", Category.TECHNICAL_ERROR),
+
+  COUNTRY_BLACKLISTED(50001, "Country blacklisted.", Category.FRAUD),
+
+  IP_BLACKLISTED(50002, "IP address blacklisted.", Category.FRAUD),
+
+  ANONYMOUS_PROXY(50003, "Anonymous IP proxy used.", Category.FRAUD),
+
+  CARD_TECHNICAL_ERROR(50100, "Technical error with credit card.", Category.TECHNICAL_ERROR),
+
+  ERROR_LIMIT_EXCEEDED(50101, "Error limit exceeded.", Category.SOFT_DECLINE),
+
+  CARD_DECLINED(50102, "Card declined by authorization system.", Category.SOFT_DECLINE),
+
+  CARD_STOLEN(50103, "Manipulation or stolen card.", Category.FRAUD),
+
+  CARD_RESTRICTED(50104, "Card restricted.", Category.HARD_DECLINE),
+
+  CARD_CONFIGURATION_INVALID(50105, "Invalid card configuration data.", Category.HARD_DECLINE),
+
+  BANK_ACCOUNT_TECHNICAL_ERROR(50200, "Technical error with bank account.", Category.TECHNICAL_ERROR),
+
+  CARD_BLACKLISTED(50201, "Card blacklisted.", Category.FRAUD),
+
+  THREE_D_SECURE_TECHNICAL_ERROR(50300, "Technical error with 3D secure.", Category.TECHNICAL_ERROR),
+
+  RISK_DECLINE(50400, "Decline because of risk issues.", Category.FRAUD),
+
+  TIMEOUT(50500, "General timeout.", Category.TECHNICAL_ERROR),
+
+  ACQUIRER_TIMEOUT(50501, "Timeout on side of the acquirer.", Category.TECHNICAL_ERROR),
+
+  RISK_MANAGEMENT_TIMEOUT(50502, "Risk management transaction timeout.", Category.TECHNICAL_ERROR),
+
+  DUPLICATE_TRANSACTION(50600, "Duplicate transaction.", Category.HARD_DECLINE);
+
+  /**
+   * Classification of a {@link ResponseCode}.
+   */
+  public enum Category {
+    /** The operation was successful. */
+    SUCCESS(false),
+    /** The operation is not finished yet. */
+    PENDING(false),
+    /** The payment was declined temporarily, the same payment data may succeed later. */
+    SOFT_DECLINE(true),
+    /** The payment was declined, it will not succeed with the same payment data. */
+    HARD_DECLINE(false),
+    /** The payment was declined because of fraud or risk checks and must not be retried. */
+    FRAUD(false),
+    /** A technical problem occurred at PAYMILL or an acquirer, the operation may be retried. */
+    TECHNICAL_ERROR(true);
+
+    private final boolean retryable;
+
+    private Category( final boolean retryable ) {
+      this.retryable = retryable;
+    }
+
+    /**
+     * @return <code>true</code> if an operation with this outcome may be retried with the same data.
+     */
+    public boolean isRetryable() {
+      return this.retryable;
+    }
+  }
+
+  private final static int            MASK;
+
+  private final static int[]          CODES;
+
+  private final static ResponseCode[] VALUES;
+
+  static {
+    ResponseCode[] values = ResponseCode.values();
+    int capacity = Integer.highestOneBit( values.length * 4 - 1 ) << 1;
+    MASK = capacity - 1;
+    CODES = new int[capacity];
+    VALUES = new ResponseCode[capacity];
+    for( ResponseCode value : values ) {
+      int slot = ResponseCode.slot( value.code );
+      while( ResponseCode.VALUES[slot] != null ) {
+        slot = (slot + 1) & ResponseCode.MASK;
+      }
+      ResponseCode.CODES[slot] = value.code;
+      ResponseCode.VALUES[slot] = value;
+    }
+  }
+
+  private final int                   code;
+
+  private final String                message;
+
+  private final Category              category;
+
+  private ResponseCode( final int code, final String message, final Category category ) {
+    this.code = code;
+    this.message = message;
+    this.category = category;
+  }
+
+  public int getCode() {
+    return this.code;
+  }
+
+  public String getMessage() {
+    return this.message;
+  }
+
+  public Category getCategory() {
+    return this.category;
+  }
+
+  /**
+   * @return <code>true</code> if an operation with this response code may be retried with the same data.
+   */
+  public boolean isRetryable() {
+    return this.category.isRetryable();
+  }
+
+  /**
+   * Resolves a response code.
+   * @param code
+   *          numeric response code, e.g. 20000.
+   * @return the {@link ResponseCode} or <code>null</code> if the code is unknown.
+   */
+  public static ResponseCode fromCode( final int code ) {
+    int slot = ResponseCode.slot( code );
+    ResponseCode value;
+    while( (value = ResponseCode.VALUES[slot]) != null ) {
+      if( ResponseCode.CODES[slot] == code ) {
+        return value;
+      }
+      slot = (slot + 1) & ResponseCode.MASK;
+    }
+    return null;
+  }
+
+  /**
+   * Resolves a response code.
+   * @param code
+   *          numeric response code or <code>null</code>.
+   * @return the {@link ResponseCode} or <code>null</code> if the code is <code>null</code> or unknown.
+   */
+  public static ResponseCode fromCode( final Integer code ) {
+    return code != null ? ResponseCode.fromCode( code.intValue() ) : null;
+  }
+
+  private static int slot( final int code ) {
+    return ((code * 0x9E3779B9) >>> 16) & ResponseCode.MASK;
+  }
+
+}
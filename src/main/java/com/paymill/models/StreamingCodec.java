@@ -0,0 +1,459 @@
+package com.paymill.models;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.paymill.context.PaymillContext;
+import com.paymill.utils.JacksonCodec;
+import com.paymill.utils.JsonCodec;
+
+/**
+ * {@link JsonCodec}, which binds {@link Transaction}s, {@link Payment}s and {@link Refund}s directly from the token stream. Property
+ * names are resolved with a single map lookup and values are set with the typed setters, without bean introspection or
+ * per-property deserializer dispatch. All other models, nested clients, preauthorizations and fees as well as serialization are
+ * delegated to a fallback codec, by default a {@link JacksonCodec} over {@link PaymillContext#PARSER}.
+ * <p>
+ * Decoded models are the same as the ones of the Jackson mapping, including empty arrays for absent objects, amounts sent as
+ * strings and {@link Interning}. The bound properties are checked against the Jackson mapping of each model, when the class is
+ * loaded: a model with a property, which this codec does not bind, is delegated to the fallback as well, so new properties are
+ * never dropped. Enable it for a context with:
+ *
+ * <pre>
+ * new PaymillContext( new JerseyClient( apiKey, null ), null, new StreamingCodec() );
+ * </pre>
+ * @since 5.1.4
+ */
+public final class StreamingCodec implements JsonCodec {
+
+  private final static int                        ID                                = 1;
+  private final static int                        AMOUNT                            = 2;
+  private final static int                        ORIGIN_AMOUNT                     = 3;
+  private final static int                        CURRENCY                          = 4;
+  private final static int                        STATUS                            = 5;
+  private final static int                        DESCRIPTION                       = 6;
+  private final static int                        LIVEMODE                          = 7;
+  private final static int                        REFUNDS                           = 8;
+  private final static int                        PAYMENT                           = 9;
+  private final static int                        CLIENT                            = 10;
+  private final static int                        PREAUTHORIZATION                  = 11;
+  private final static int                        CREATED_AT                        = 12;
+  private final static int                        UPDATED_AT                        = 13;
+  private final static int                        RESPONSE_CODE                     = 14;
+  private final static int                        SHORT_ID                          = 15;
+  private final static int                        IS_FRAUD                          = 16;
+  private final static int                        FEES                              = 17;
+  private final static int                        APP_ID                            = 18;
+  private final static int                        MANDATE_REFERENCE                 = 19;
+  private final static int                        TRANSACTION                       = 20;
+  private final static int                        TYPE                              = 21;
+  private final static int                        CODE                              = 22;
+  private final static int                        ACCOUNT                           = 23;
+  private final static int                        HOLDER                            = 24;
+  private final static int                        CARD_TYPE                         = 25;
+  private final static int                        COUNTRY                           = 26;
+  private final static int                        EXPIRE_MONTH                      = 27;
+  private final static int                        EXPIRE_YEAR                       = 28;
+  private final static int                        CARD_HOLDER                       = 29;
+  private final static int                        LAST4                             = 30;
+  private final static int                        IS_RECURRING                      = 31;
+  private final static int                        IS_USABLE_FOR_PREAUTHORIZATION    = 32;
+
+  private final static Map<String, Integer>       PROPERTIES                        = new HashMap<String, Integer>();
+
+  /**
+   * Properties bound by {@link #readTransaction(JsonParser)}, {@link #readPayment(JsonParser)} and {@link #readRefund(JsonParser)}.
+   */
+  private final static Map<Class<?>, Set<String>> BOUND                             = new HashMap<Class<?>, Set<String>>();
+
+  /**
+   * Models, whose Jackson properties are all bound by this codec.
+   */
+  private final static Set<Class<?>>              STREAMED                          = new HashSet<Class<?>>();
+
+  static {
+    String[] names = { "id", "amount", "origin_amount", "currency", "status", "description", "livemode", "refunds", "payment",
+        "client", "preauthorization", "created_at", "updated_at", "response_code", "short_id", "is_fraud", "fees", "app_id",
+        "mandate_reference", "transaction", "type", "code", "account", "holder", "card_type", "country", "expire_month",
+        "expire_year", "card_holder", "last4", "is_recurring", "is_usable_for_preauthorization" };
+    for( int i = 0; i < names.length; i++ ) {
+      StreamingCodec.PROPERTIES.put( names[i], i + 1 );
+    }
+    StreamingCodec.BOUND.put( Transaction.class, new HashSet<String>( Arrays.asList( "id", "amount", "origin_amount", "currency", "status",
+        "description", "livemode", "refunds", "payment", "client", "preauthorization", "created_at", "updated_at", "response_code",
+        "short_id", "is_fraud", "fees", "app_id", "mandate_reference" ) ) );
+    StreamingCodec.BOUND.put( Payment.class, new HashSet<String>( Arrays.asList( "id", "type", "created_at", "updated_at", "app_id", "code",
+        "account", "holder", "client", "card_type", "country", "expire_month", "expire_year", "card_holder", "last4", "is_recurring",
+        "is_usable_for_preauthorization" ) ) );
+    StreamingCodec.BOUND.put( Refund.class, new HashSet<String>( Arrays.asList( "id", "transaction", "amount", "status", "description",
+        "livemode", "created_at", "updated_at", "response_code", "app_id" ) ) );
+    for( Class<?> clazz : StreamingCodec.BOUND.keySet() ) {
+      if( StreamingCodec.getUnboundProperties( clazz ).isEmpty() ) {
+        StreamingCodec.STREAMED.add( clazz );
+      }
+    }
+  }
+
+  private final JsonCodec                   fallback;
+
+  public StreamingCodec() {
+    this( new JacksonCodec( PaymillContext.PARSER ) );
+  }
+
+  /**
+   * @param fallback
+   *          {@link JsonCodec} for all other models and for serialization.
+   */
+  public StreamingCodec( final JsonCodec fallback ) {
+    if( fallback == null )
+      throw new IllegalArgumentException( "Fallback codec can not be null" );
+
+    this.fallback = fallback;
+  }
+
+  /**
+   * Returns the properties of the Jackson mapping of a model, which this codec does not bind. Models with such properties are
+   * bound by the fallback codec.
+   * @param clazz
+   *          class of the model.
+   * @return the names of the unbound properties in PAYMILL's JSON, all of them for models, which this codec never binds.
+   */
+  public static Set<String> getUnboundProperties( final Class<?> clazz ) {
+    Set<String> bound = StreamingCodec.BOUND.containsKey( clazz ) ? StreamingCodec.BOUND.get( clazz ) : Collections.<String> emptySet();
+    Set<String> unbound = new TreeSet<String>();
+    for( BeanPropertyDefinition property : PaymillContext.PARSER.getDeserializationConfig()
+        .introspect( PaymillContext.PARSER.constructType( clazz ) ).findProperties() ) {
+      if( property.couldDeserialize() && !bound.contains( property.getName() ) ) {
+        unbound.add( property.getName() );
+      }
+    }
+    return unbound;
+  }
+
+  @Override
+  public <T> T read( final JsonParser parser, final Class<T> clazz ) throws IOException {
+    if( !StreamingCodec.STREAMED.contains( clazz ) ) {
+      return this.fallback.read( parser, clazz );
+    }
+    if( parser.getCurrentToken() == null ) {
+      parser.nextToken();
+    }
+    if( clazz == Transaction.class ) {
+      return clazz.cast( this.readTransaction( parser ) );
+    }
+    if( clazz == Payment.class ) {
+      return clazz.cast( this.readPayment( parser ) );
+    }
+    return clazz.cast( this.readRefund( parser ) );
+  }
+
+  @Override
+  public <T> T read( final String json, final Class<T> clazz ) throws IOException {
+    if( !StreamingCodec.STREAMED.contains( clazz ) ) {
+      return this.fallback.read( json, clazz );
+    }
+    JsonParser parser = PaymillContext.PARSER.getFactory().createParser( json );
+    try {
+      return this.read( parser, clazz );
+    } finally {
+      parser.close();
+    }
+  }
+
+  @Override
+  public String write( final Object value ) throws IOException {
+    return this.fallback.write( value );
+  }
+
+  private Transaction readTransaction( final JsonParser parser ) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if( token == JsonToken.VALUE_STRING ) {
+      return new Transaction( parser.getText() );
+    }
+    if( token != JsonToken.START_OBJECT ) {
+      parser.skipChildren();
+      return null;
+    }
+    Transaction transaction = new Transaction();
+    while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+      int property = StreamingCodec.property( parser.getCurrentName() );
+      parser.nextToken();
+      switch( property ) {
+        case ID:
+          transaction.setId( StreamingCodec.readString( parser ) );
+          break;
+        case AMOUNT:
+          transaction.setAmount( StreamingCodec.readInteger( parser ) );
+          break;
+        case ORIGIN_AMOUNT:
+          transaction.setOriginAmount( StreamingCodec.readInteger( parser ) );
+          break;
+        case CURRENCY:
+          transaction.setCurrency( Interning.string( StreamingCodec.readString( parser ) ) );
+          break;
+        case STATUS:
+          transaction.setStatus( StreamingCodec.isNull( parser ) ? null : Transaction.Status.create( parser.getText() ) );
+          break;
+        case DESCRIPTION:
+          transaction.setDescription( StreamingCodec.readString( parser ) );
+          break;
+        case LIVEMODE:
+          transaction.setLivemode( StreamingCodec.readBoolean( parser ) );
+          break;
+        case REFUNDS:
+          transaction.setRefunds( this.readRefunds( parser ) );
+          break;
+        case PAYMENT:
+          transaction.setPayment( this.read( parser, Payment.class ) );
+          break;
+        case CLIENT:
+          transaction.setClient( this.fallback.read( parser, Client.class ) );
+          break;
+        case PREAUTHORIZATION:
+          transaction.setPreauthorization( this.fallback.read( parser, Preauthorization.class ) );
+          break;
+        case CREATED_AT:
+          transaction.setCreatedAt( parser.getValueAsLong() );
+          break;
+        case UPDATED_AT:
+          transaction.setUpdatedAt( parser.getValueAsLong() );
+          break;
+        case RESPONSE_CODE:
+          transaction.setResponseCode( StreamingCodec.readInteger( parser ) );
+          break;
+        case SHORT_ID:
+          transaction.setShortId( StreamingCodec.readString( parser ) );
+          break;
+        case IS_FRAUD:
+          transaction.setFraud( StreamingCodec.readBoolean( parser ) );
+          break;
+        case FEES:
+          transaction.setFees( this.readFees( parser ) );
+          break;
+        case APP_ID:
+          transaction.setAppId( Interning.string( StreamingCodec.readString( parser ) ) );
+          break;
+        case MANDATE_REFERENCE:
+          transaction.setMandateReference( StreamingCodec.readString( parser ) );
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return transaction;
+  }
+
+  private Payment readPayment( final JsonParser parser ) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if( token == JsonToken.VALUE_STRING ) {
+      return new Payment( parser.getText() );
+    }
+    if( token != JsonToken.START_OBJECT ) {
+      parser.skipChildren();
+      return null;
+    }
+    Payment payment = new Payment();
+    while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+      int property = StreamingCodec.property( parser.getCurrentName() );
+      parser.nextToken();
+      switch( property ) {
+        case ID:
+          payment.setId( StreamingCodec.readString( parser ) );
+          break;
+        case TYPE:
+          payment.setType( StreamingCodec.isNull( parser ) ? null : Payment.Type.create( parser.getText() ) );
+          break;
+        case CREATED_AT:
+          payment.setCreatedAt( parser.getValueAsLong() );
+          break;
+        case UPDATED_AT:
+          payment.setUpdatedAt( parser.getValueAsLong() );
+          break;
+        case APP_ID:
+          payment.setAppId( Interning.string( StreamingCodec.readString( parser ) ) );
+          break;
+        case CODE:
+          payment.setCode( StreamingCodec.readString( parser ) );
+          break;
+        case ACCOUNT:
+          payment.setAccount( StreamingCodec.readString( parser ) );
+          break;
+        case HOLDER:
+          payment.setHolder( StreamingCodec.readString( parser ) );
+          break;
+        case CLIENT:
+          payment.setClient( this.fallback.read( parser, Client.class ) );
+          break;
+        case CARD_TYPE:
+          payment.setCardType( StreamingCodec.isNull( parser ) ? null : Payment.CardType.create( parser.getText() ) );
+          break;
+        case COUNTRY:
+          payment.setCountry( Interning.string( StreamingCodec.readString( parser ) ) );
+          break;
+        case EXPIRE_MONTH:
+          payment.setExpireMonth( StreamingCodec.readInteger( parser ) );
+          break;
+        case EXPIRE_YEAR:
+          payment.setExpireYear( StreamingCodec.readInteger( parser ) );
+          break;
+        case CARD_HOLDER:
+          payment.setCardHolder( StreamingCodec.readString( parser ) );
+          break;
+        case LAST4:
+          payment.setLast4( StreamingCodec.readString( parser ) );
+          break;
+        case IS_RECURRING:
+          payment.setRecurring( StreamingCodec.readBoolean( parser ) );
+          break;
+        case IS_USABLE_FOR_PREAUTHORIZATION:
+          payment.setUsableForPreauthorization( StreamingCodec.readBoolean( parser ) );
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return payment;
+  }
+
+  private Refund readRefund( final JsonParser parser ) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if( token != JsonToken.START_OBJECT ) {
+      parser.skipChildren();
+      return null;
+    }
+    Refund refund = new Refund();
+    while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+      int property = StreamingCodec.property( parser.getCurrentName() );
+      parser.nextToken();
+      switch( property ) {
+        case ID:
+          refund.setId( StreamingCodec.readString( parser ) );
+          break;
+        case TRANSACTION:
+          refund.setTransaction( this.read( parser, Transaction.class ) );
+          break;
+        case AMOUNT:
+          refund.setAmount( StreamingCodec.readInteger( parser ) );
+          break;
+        case STATUS:
+          refund.setStatus( StreamingCodec.isNull( parser ) ? null : Refund.Status.create( parser.getText() ) );
+          break;
+        case DESCRIPTION:
+          refund.setDescription( StreamingCodec.readString( parser ) );
+          break;
+        case LIVEMODE:
+          refund.setLivemode( StreamingCodec.readBoolean( parser ) );
+          break;
+        case CREATED_AT:
+          refund.setCreatedAt( parser.getValueAsLong() );
+          break;
+        case UPDATED_AT:
+          refund.setUpdatedAt( parser.getValueAsLong() );
+          break;
+        case RESPONSE_CODE:
+          refund.setResponseCode( StreamingCodec.readInteger( parser ) );
+          break;
+        case APP_ID:
+          refund.setAppId( Interning.string( StreamingCodec.readString( parser ) ) );
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return refund;
+  }
+
+  private List<Refund> readRefunds( final JsonParser parser ) throws IOException {
+    if( parser.getCurrentToken() != JsonToken.START_ARRAY ) {
+      parser.skipChildren();
+      return null;
+    }
+    List<Refund> refunds = new ArrayList<Refund>();
+    while( parser.nextToken() != JsonToken.END_ARRAY ) {
+      refunds.add( this.read( parser, Refund.class ) );
+    }
+    return refunds;
+  }
+
+  private List<Fee> readFees( final JsonParser parser ) throws IOException {
+    if( parser.getCurrentToken() != JsonToken.START_ARRAY ) {
+      parser.skipChildren();
+      return null;
+    }
+    List<Fee> fees = new ArrayList<Fee>();
+    while( parser.nextToken() != JsonToken.END_ARRAY ) {
+      fees.add( this.fallback.read( parser, Fee.class ) );
+    }
+    return fees;
+  }
+
+  private static int property( final String name ) {
+    Integer property = StreamingCodec.PROPERTIES.get( name );
+    return property != null ? property : 0;
+  }
+
+  private static boolean isNull( final JsonParser parser ) {
+    return parser.getCurrentToken() == JsonToken.VALUE_NULL;
+  }
+
+  private static String readString( final JsonParser parser ) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if( token == JsonToken.VALUE_STRING ) {
+      return parser.getText();
+    }
+    if( token == JsonToken.VALUE_NULL ) {
+      return null;
+    }
+    if( token.isScalarValue() ) {
+      return parser.getValueAsString();
+    }
+    throw new IOException( "Can not read " + token + " as string at " + parser.getCurrentLocation() );
+  }
+
+  private static Integer readInteger( final JsonParser parser ) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if( token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT ) {
+      return parser.getIntValue();
+    }
+    if( token == JsonToken.VALUE_STRING ) {
+      String text = parser.getText().trim();
+      return text.length() == 0 ? null : Integer.valueOf( text );
+    }
+    if( token == JsonToken.VALUE_NULL ) {
+      return null;
+    }
+    throw new IOException( "Can not read " + token + " as integer at " + parser.getCurrentLocation() );
+  }
+
+  private static Boolean readBoolean( final JsonParser parser ) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if( token == JsonToken.VALUE_TRUE ) {
+      return Boolean.TRUE;
+    }
+    if( token == JsonToken.VALUE_FALSE ) {
+      return Boolean.FALSE;
+    }
+    if( token == JsonToken.VALUE_NULL ) {
+      return null;
+    }
+    if( token == JsonToken.VALUE_NUMBER_INT ) {
+      return parser.getIntValue() != 0;
+    }
+    if( token == JsonToken.VALUE_STRING ) {
+      String text = parser.getText().trim();
+      return text.length() == 0 ? null : Boolean.valueOf( text );
+    }
+    throw new IOException( "Can not read " + token + " as boolean at " + parser.getCurrentLocation() );
+  }
+
+}
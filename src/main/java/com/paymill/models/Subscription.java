@@ -7,6 +7,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * Subscriptions allow you to charge recurring payments on a client’s credit card / to a client’s direct debit. A subscription
@@ -30,12 +31,14 @@ public final class Subscription {
   private Integer                      tempAmount;
 
   @Updateable( "currency" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String                       currency;
 
   @Updateable( "name" )
   private String                       name;
 
   @Updateable( "interval" )
+  @JsonDeserialize( using = Interning.PeriodWithChargeDayDeserializer.class )
   private Interval.PeriodWithChargeDay interval;
 
   @JsonProperty( "trial_start" )
@@ -45,6 +48,7 @@ public final class Subscription {
   private Date                         trialEnd;
 
   @JsonProperty( "period_of_validity" )
+  @JsonDeserialize( using = Interning.PeriodDeserializer.class )
   private Interval.Period              periodOfValidity;
 
   @JsonProperty( "end_of_period" )
@@ -68,6 +72,7 @@ public final class Subscription {
   private Client                       client;
 
   @JsonProperty( "app_id" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String                       appId;
 
   private Subscription.Status          status;
@@ -81,6 +86,11 @@ public final class Subscription {
   @JsonProperty( "mandate_reference" )
   private String                       mandateReference;
 
+  /**
+   * Parameter values of the updateable fields, when the subscription was loaded from PAYMILL.
+   */
+  private transient String[]           snapshot;
+
   public Subscription() {
     super();
   }
@@ -427,6 +437,9 @@ public final class Subscription {
     @SnakeCase( "created_at" )
     private String createdAt;
 
+    @SnakeCase( "updated_at" )
+    private String updatedAt;
+
     private Filter() {
       super();
     }
@@ -452,6 +465,22 @@ public final class Subscription {
       return this;
     }
 
+    /**
+     * Creates filter for updatedAt date. If endDate is given the filter is set for range from date to endDate. If endDate is
+     * <code>null</code> the filter search for exact match.
+     * @param date
+     *          Start or exact date
+     * @param endDate
+     *          End date for the period or <code>null</code>.
+     * @throws IllegalArgumentException
+     *           When date is <code>null</code>.
+     * @return {@link Subscription.Filter} object with populated filter for updatedAt.
+     */
+    public Subscription.Filter byUpdatedAt( final Date date, final Date endDate ) {
+      this.updatedAt = DateRangeBuilder.execute( date, endDate );
+      return this;
+    }
+
   }
 
   public final static class Order {
@@ -516,6 +545,8 @@ public final class Subscription {
 
     private String value;
 
+    private final static EnumLookup<Status> LOOKUP = EnumLookup.of( Status.values() );
+
     private Status( final String value ) {
       this.value = value;
     }
@@ -527,10 +558,9 @@ public final class Subscription {
 
     @JsonCreator
     public static Status create( final String value ) {
-      for( Status status : Status.values() ) {
-        if( status.getValue().equals( value ) ) {
-          return status;
-        }
+      Status status = Status.LOOKUP.get( value );
+      if( status != null ) {
+        return status;
       }
       throw new IllegalArgumentException( "Invalid value for Subscription.status:" + value + ". An update of paymill-java is recommended" );
     }
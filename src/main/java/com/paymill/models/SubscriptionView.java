@@ -0,0 +1,231 @@
+package com.paymill.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Immutable, read-only view of a {@link Subscription}, decoded directly from JSON. Amounts are kept as <code>int</code> cents,
+ * timestamps as <code>long</code> epoch seconds and nested offer, payment and client only as their ids. Missing numbers and
+ * timestamps are <code>0</code>.
+ * @since 5.1.4
+ */
+@JsonIgnoreProperties( ignoreUnknown = true )
+public final class SubscriptionView {
+
+  private final String                       id;
+
+  private final String                       offerId;
+
+  private final boolean                      livemode;
+
+  private final int                          amount;
+
+  private final int                          tempAmount;
+
+  private final String                       currency;
+
+  private final String                       name;
+
+  private final Interval.PeriodWithChargeDay interval;
+
+  private final long                         trialStart;
+
+  private final long                         trialEnd;
+
+  private final Interval.Period              periodOfValidity;
+
+  private final long                         endOfPeriod;
+
+  private final long                         nextCaptureAt;
+
+  private final long                         createdAt;
+
+  private final long                         updatedAt;
+
+  private final long                         canceledAt;
+
+  private final String                       paymentId;
+
+  private final String                       clientId;
+
+  private final String                       appId;
+
+  private final Subscription.Status          status;
+
+  private final boolean                      canceled;
+
+  private final boolean                      deleted;
+
+  private final String                       mandateReference;
+
+  @JsonCreator
+  SubscriptionView( @JsonProperty( "id" ) final String id,
+                    @JsonProperty( "offer" ) @JsonDeserialize( using = ReferenceDeserializer.class ) final String offerId,
+                    @JsonProperty( "livemode" ) final boolean livemode,
+                    @JsonProperty( "amount" ) final int amount,
+                    @JsonProperty( "temp_amount" ) final int tempAmount,
+                    @JsonProperty( "currency" ) @JsonDeserialize( using = Interning.StringDeserializer.class ) final String currency,
+                    @JsonProperty( "name" ) final String name,
+                    @JsonProperty( "interval" ) @JsonDeserialize( using = Interning.PeriodWithChargeDayDeserializer.class ) final Interval.PeriodWithChargeDay interval,
+                    @JsonProperty( "trial_start" ) final long trialStart,
+                    @JsonProperty( "trial_end" ) final long trialEnd,
+                    @JsonProperty( "period_of_validity" ) @JsonDeserialize( using = Interning.PeriodDeserializer.class ) final Interval.Period periodOfValidity,
+                    @JsonProperty( "end_of_period" ) final long endOfPeriod,
+                    @JsonProperty( "next_capture_at" ) final long nextCaptureAt,
+                    @JsonProperty( "created_at" ) final long createdAt,
+                    @JsonProperty( "updated_at" ) final long updatedAt,
+                    @JsonProperty( "canceled_at" ) final long canceledAt,
+                    @JsonProperty( "payment" ) @JsonDeserialize( using = ReferenceDeserializer.class ) final String paymentId,
+                    @JsonProperty( "client" ) @JsonDeserialize( using = ReferenceDeserializer.class ) final String clientId,
+                    @JsonProperty( "app_id" ) @JsonDeserialize( using = Interning.StringDeserializer.class ) final String appId,
+                    @JsonProperty( "status" ) final Subscription.Status status,
+                    @JsonProperty( "is_canceled" ) final boolean canceled,
+                    @JsonProperty( "is_deleted" ) final boolean deleted,
+                    @JsonProperty( "mandate_reference" ) final String mandateReference ) {
+    this.id = id;
+    this.offerId = offerId;
+    this.livemode = livemode;
+    this.amount = amount;
+    this.tempAmount = tempAmount;
+    this.currency = currency;
+    this.name = name;
+    this.interval = interval;
+    this.trialStart = trialStart;
+    this.trialEnd = trialEnd;
+    this.periodOfValidity = periodOfValidity;
+    this.endOfPeriod = endOfPeriod;
+    this.nextCaptureAt = nextCaptureAt;
+    this.createdAt = createdAt;
+    this.updatedAt = updatedAt;
+    this.canceledAt = canceledAt;
+    this.paymentId = paymentId;
+    this.clientId = clientId;
+    this.appId = appId;
+    this.status = status;
+    this.canceled = canceled;
+    this.deleted = deleted;
+    this.mandateReference = mandateReference;
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public String getOfferId() {
+    return this.offerId;
+  }
+
+  public boolean isLivemode() {
+    return this.livemode;
+  }
+
+  /**
+   * @return amount in cents.
+   */
+  public int getAmount() {
+    return this.amount;
+  }
+
+  /**
+   * @return temporary amount in cents or <code>0</code>, if none is set.
+   */
+  public int getTempAmount() {
+    return this.tempAmount;
+  }
+
+  public String getCurrency() {
+    return this.currency;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public Interval.PeriodWithChargeDay getInterval() {
+    return this.interval;
+  }
+
+  /**
+   * @return start of the trial in seconds since epoch or <code>0</code>.
+   */
+  public long getTrialStart() {
+    return this.trialStart;
+  }
+
+  /**
+   * @return end of the trial in seconds since epoch or <code>0</code>.
+   */
+  public long getTrialEnd() {
+    return this.trialEnd;
+  }
+
+  public Interval.Period getPeriodOfValidity() {
+    return this.periodOfValidity;
+  }
+
+  /**
+   * @return end of the period of validity in seconds since epoch or <code>0</code>.
+   */
+  public long getEndOfPeriod() {
+    return this.endOfPeriod;
+  }
+
+  /**
+   * @return next capture time in seconds since epoch or <code>0</code>.
+   */
+  public long getNextCaptureAt() {
+    return this.nextCaptureAt;
+  }
+
+  /**
+   * @return creation time in seconds since epoch.
+   */
+  public long getCreatedAt() {
+    return this.createdAt;
+  }
+
+  /**
+   * @return last update time in seconds since epoch.
+   */
+  public long getUpdatedAt() {
+    return this.updatedAt;
+  }
+
+  /**
+   * @return cancel time in seconds since epoch or <code>0</code>.
+   */
+  public long getCanceledAt() {
+    return this.canceledAt;
+  }
+
+  public String getPaymentId() {
+    return this.paymentId;
+  }
+
+  public String getClientId() {
+    return this.clientId;
+  }
+
+  public String getAppId() {
+    return this.appId;
+  }
+
+  public Subscription.Status getStatus() {
+    return this.status;
+  }
+
+  public boolean isCanceled() {
+    return this.canceled;
+  }
+
+  public boolean isDeleted() {
+    return this.deleted;
+  }
+
+  public String getMandateReference() {
+    return this.mandateReference;
+  }
+
+}
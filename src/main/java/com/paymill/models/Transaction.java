@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * A transaction is the charging of a credit card or a direct debit. In this case you need a new transaction object with either a
@@ -27,6 +28,7 @@ public final class Transaction {
   @JsonProperty( "origin_amount" )
   private Integer            originAmount;
 
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String             currency;
 
   private Transaction.Status status;
@@ -62,11 +64,17 @@ public final class Transaction {
   private List<Fee>          fees;
 
   @JsonProperty( "app_id" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String             appId;
 
   @JsonProperty( "mandate_reference" )
   private String                       mandateReference;
 
+  /**
+   * Parameter values of the updateable fields, when the transaction was loaded from PAYMILL.
+   */
+  private transient String[] snapshot;
+
   public Transaction() {
     super();
   }
@@ -176,89 +184,28 @@ public final class Transaction {
    * @return the message or <code>null</code> if no message is available.
    */
   public String getResponseCodeDetail() {
-    if( this.responseCode == null )
-      return null;
-
-    if( this.responseCode == 10001 )
-      return "General undefined response";
-    if( this.responseCode == 10002 )
-      return "Still waiting on something.";
-    if( this.responseCode == 20000 )
-      return "General success response.";
-    if( this.responseCode == 40000 )
-      return "General problem with data.";
-    if( this.responseCode == 40001 )
-      return "General problem with payment data.";
-    if( this.responseCode == 40100 )
-      return "Problem with credit card data.";
-    if( this.responseCode == 40101 )
-      return "Problem with cvv.";
-    if( this.responseCode == 40102 )
-      return "Card expired or not yet valid.";
-    if( this.responseCode == 40103 )
-      return "Limit exceeded.";
-    if( this.responseCode == 40104 )
-      return "Card invalid.";
-    if( this.responseCode == 40105 )
-      return "Expiry date not valid.";
-    if( this.responseCode == 40106 )
-      return "Credit card brand required.";
-    if( this.responseCode == 40200 )
-      return "Problem with bank account data.";
-    if( this.responseCode == 40201 )
-      return "Bank account data combination mismatch.";
-    if( this.responseCode == 40202 )
-      return "User authentication failed.";
-    if( this.responseCode == 40300 )
-      return "Problem with 3d secure data.";
-    if( this.responseCode == 40301 )
-      return "Currency / amount mismatch";
-    if( this.responseCode == 40400 )
-      return "Problem with input data.";
-    if( this.responseCode == 40401 )
-      return "Amount too low or zero.";
-    if( this.responseCode == 40402 )
-      return "Usage field too long.";
-    if( this.responseCode == 40403 )
-      return "Currency not allowed.";
-    if( this.responseCode == 50000 )
-      return "General problem with backend.";
-    if( this.responseCode == 50001 )
-      return "Country blacklisted.";
-    if( this.responseCode == 50002 )
-      return "IP address blacklisted.";
-    if( this.responseCode == 50003 )
-      return "Anonymous IP proxy used.";
-    if( this.responseCode == 50100 )
-      return "Technical error with credit card.";
-    if( this.responseCode == 50101 )
-      return "Error limit exceeded.";
-    if( this.responseCode == 50102 )
-      return "Card declined by authorization system.";
-    if( this.responseCode == 50103 )
-      return "Manipulation or stolen card.";
-    if( this.responseCode == 50104 )
-      return "Card restricted.";
-    if( this.responseCode == 50105 )
-      return "Invalid card configuration data.";
-    if( this.responseCode == 50200 )
-      return "Technical error with bank account.";
-    if( this.responseCode == 50201 )
-      return "Card blacklisted.";
-    if( this.responseCode == 50300 )
-      return "Technical error with 3D secure.";
-    if( this.responseCode == 50400 )
-      return "Decline because of risk issues.";
-    if( this.responseCode == 50500 )
-      return "General timeout.";
-    if( this.responseCode == 50501 )
-      return "Timeout on side of the acquirer.";
-    if( this.responseCode == 50502 )
-      return "Risk management transaction timeout.";
-    if( this.responseCode == 50600 )
-      return "Duplicate transaction.";
-
-    return null;
+    ResponseCode code = ResponseCode.fromCode( this.responseCode );
+    return code != null ? code.getMessage() : null;
+  }
+
+  /**
+   * Classifies the response code, e.g. to decide if a failed transaction should be retried.
+   * @return the {@link ResponseCode.Category} or <code>null</code> if the response code is unknown.
+   */
+  @JsonIgnore
+  public ResponseCode.Category getResponseCategory() {
+    ResponseCode code = ResponseCode.fromCode( this.responseCode );
+    return code != null ? code.getCategory() : null;
+  }
+
+  /**
+   * Checks if the transaction failed, but may succeed when it is retried with the same data.
+   * @return true for soft declines and technical errors, false otherwise
+   */
+  @JsonIgnore
+  public boolean isRetryable() {
+    ResponseCode code = ResponseCode.fromCode( this.responseCode );
+    return code != null && code.isRetryable();
   }
 
   /**
@@ -266,7 +213,7 @@ public final class Transaction {
    * @return true if successful, false otherwise
    */
   public boolean isSuccessful() {
-    return this.responseCode != null && this.responseCode == 20000;
+    return ResponseCode.fromCode( this.responseCode ) == ResponseCode.SUCCESS;
   }
 
   public String getShortId() {
@@ -542,6 +489,8 @@ public final class Transaction {
 
     private String value;
 
+    private final static EnumLookup<Status> LOOKUP = EnumLookup.of( Status.values() );
+
     private Status( final String value ) {
       this.value = value;
     }
@@ -553,12 +502,8 @@ public final class Transaction {
 
     @JsonCreator
     public static Status create( final String value ) {
-      for( Status status : Status.values() ) {
-        if( status.getValue().equals( value ) ) {
-          return status;
-        }
-      }
-      return Status.UNDEFINED;
+      Status status = Status.LOOKUP.get( value );
+      return status != null ? status : Status.UNDEFINED;
     }
   }
 
@@ -0,0 +1,175 @@
+package com.paymill.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Immutable, read-only view of a {@link Transaction}, decoded directly from JSON. Amounts are kept as <code>int</code> cents,
+ * timestamps as <code>long</code> epoch seconds and nested payment, client and preauthorization only as their ids. Refunds and fees
+ * are not part of the view. Missing numbers and timestamps are <code>0</code>.
+ * <p>
+ * Use views, when a large number of transactions is held in memory, e.g. for reconciliation:
+ *
+ * <pre>
+ * TransactionView view = PaymillContext.PARSER.readValue( json, TransactionView.class );
+ * </pre>
+ * @since 5.1.4
+ */
+@JsonIgnoreProperties( ignoreUnknown = true )
+public final class TransactionView {
+
+  private final String             id;
+
+  private final int                amount;
+
+  private final int                originAmount;
+
+  private final String             currency;
+
+  private final Transaction.Status status;
+
+  private final String             description;
+
+  private final boolean            livemode;
+
+  private final String             paymentId;
+
+  private final String             clientId;
+
+  private final String             preauthorizationId;
+
+  private final long               createdAt;
+
+  private final long               updatedAt;
+
+  private final int                responseCode;
+
+  private final String             shortId;
+
+  private final boolean            fraud;
+
+  private final String             appId;
+
+  @JsonCreator
+  TransactionView( @JsonProperty( "id" ) final String id,
+                   @JsonProperty( "amount" ) final int amount,
+                   @JsonProperty( "origin_amount" ) final int originAmount,
+                   @JsonProperty( "currency" ) @JsonDeserialize( using = Interning.StringDeserializer.class ) final String currency,
+                   @JsonProperty( "status" ) final Transaction.Status status,
+                   @JsonProperty( "description" ) final String description,
+                   @JsonProperty( "livemode" ) final boolean livemode,
+                   @JsonProperty( "payment" ) @JsonDeserialize( using = ReferenceDeserializer.class ) final String paymentId,
+                   @JsonProperty( "client" ) @JsonDeserialize( using = ReferenceDeserializer.class ) final String clientId,
+                   @JsonProperty( "preauthorization" ) @JsonDeserialize( using = ReferenceDeserializer.class ) final String preauthorizationId,
+                   @JsonProperty( "created_at" ) final long createdAt,
+                   @JsonProperty( "updated_at" ) final long updatedAt,
+                   @JsonProperty( "response_code" ) final int responseCode,
+                   @JsonProperty( "short_id" ) final String shortId,
+                   @JsonProperty( "is_fraud" ) final boolean fraud,
+                   @JsonProperty( "app_id" ) @JsonDeserialize( using = Interning.StringDeserializer.class ) final String appId ) {
+    this.id = id;
+    this.amount = amount;
+    this.originAmount = originAmount;
+    this.currency = currency;
+    this.status = status;
+    this.description = description;
+    this.livemode = livemode;
+    this.paymentId = paymentId;
+    this.clientId = clientId;
+    this.preauthorizationId = preauthorizationId;
+    this.createdAt = createdAt;
+    this.updatedAt = updatedAt;
+    this.responseCode = responseCode;
+    this.shortId = shortId;
+    this.fraud = fraud;
+    this.appId = appId;
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  /**
+   * @return amount in cents.
+   */
+  public int getAmount() {
+    return this.amount;
+  }
+
+  /**
+   * @return original amount in cents, before any refunds.
+   */
+  public int getOriginAmount() {
+    return this.originAmount;
+  }
+
+  public String getCurrency() {
+    return this.currency;
+  }
+
+  public Transaction.Status getStatus() {
+    return this.status;
+  }
+
+  public String getDescription() {
+    return this.description;
+  }
+
+  public boolean isLivemode() {
+    return this.livemode;
+  }
+
+  public String getPaymentId() {
+    return this.paymentId;
+  }
+
+  public String getClientId() {
+    return this.clientId;
+  }
+
+  public String getPreauthorizationId() {
+    return this.preauthorizationId;
+  }
+
+  /**
+   * @return creation time in seconds since epoch.
+   */
+  public long getCreatedAt() {
+    return this.createdAt;
+  }
+
+  /**
+   * @return last update time in seconds since epoch.
+   */
+  public long getUpdatedAt() {
+    return this.updatedAt;
+  }
+
+  public int getResponseCode() {
+    return this.responseCode;
+  }
+
+  /**
+   * Classifies the response code, e.g. to decide if a failed transaction should be retried.
+   * @return the {@link ResponseCode.Category} or <code>null</code> if the response code is unknown.
+   */
+  public ResponseCode.Category getResponseCategory() {
+    ResponseCode code = ResponseCode.fromCode( this.responseCode );
+    return code != null ? code.getCategory() : null;
+  }
+
+  public String getShortId() {
+    return this.shortId;
+  }
+
+  public boolean isFraud() {
+    return this.fraud;
+  }
+
+  public String getAppId() {
+    return this.appId;
+  }
+
+}
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * With webhooks we give you the possibility to react automatically to certain events which happen within our system. A webhook is
@@ -40,8 +41,14 @@ public final class Webhook {
   private Webhook.EventType[] eventTypes;
 
   @JsonProperty( "app_id" )
+  @JsonDeserialize( using = Interning.StringDeserializer.class )
   private String              appId;
 
+  /**
+   * Parameter values of the updateable fields, when the webhook was loaded from PAYMILL.
+   */
+  private transient String[]  snapshot;
+
   public Webhook() {
     super();
   }
@@ -456,6 +463,8 @@ public final class Webhook {
 
     private String value;
 
+    private final static EnumLookup<EventType> LOOKUP = EnumLookup.of( EventType.values() );
+
     private EventType( String value ) {
       this.value = value;
     }
@@ -467,12 +476,8 @@ public final class Webhook {
 
     @JsonCreator
     public static EventType create( String value ) {
-      for( EventType type : EventType.values() ) {
-        if( type.getValue().equals( value ) ) {
-          return type;
-        }
-      }
-      return EventType.UNDEFINED;
+      EventType type = EventType.LOOKUP.get( value );
+      return type != null ? type : EventType.UNDEFINED;
     }
 
   }
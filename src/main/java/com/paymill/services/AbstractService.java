@@ -1,13 +1,30 @@
 package com.paymill.services;
 
+import java.util.concurrent.ExecutorService;
+
 import com.paymill.utils.HttpClient;
+import com.paymill.utils.JsonCodec;
 
 class AbstractService {
 
-  protected HttpClient httpClient;
+  protected HttpClient      httpClient;
+
+  /**
+   * Runs the background fetches of iterators, publishers and reference resolution.
+   */
+  protected ExecutorService executor;
 
   protected AbstractService( HttpClient httpClient ) {
-    this.httpClient = httpClient;
+    this( httpClient, null, null );
+  }
+
+  /**
+   * @param codec
+   *          {@link JsonCodec} of the context, which binds the responses, or <code>null</code> for the default codec.
+   */
+  protected AbstractService( HttpClient httpClient, ExecutorService executor, JsonCodec codec ) {
+    this.httpClient = ContextHttpClient.of( httpClient, codec );
+    this.executor = executor;
   }
 
 }
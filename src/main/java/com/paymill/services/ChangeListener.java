@@ -0,0 +1,24 @@
+package com.paymill.services;
+
+/**
+ * Receives the changes of an incremental sync, see {@link Watermark}. Each change of an object is delivered once; an object,
+ * which was created and updated since the last sync, is delivered only as created.
+ * @since 5.1.4
+ */
+public interface ChangeListener<T> {
+
+  /**
+   * Called for an object, which was created since the last sync.
+   * @param object
+   *          the current state of the object.
+   */
+  public void created( T object );
+
+  /**
+   * Called for an object, which was updated since the last sync.
+   * @param object
+   *          the current state of the object.
+   */
+  public void updated( T object );
+
+}
@@ -0,0 +1,128 @@
+package com.paymill.services;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.paymill.models.PaymillList;
+import com.paymill.utils.HttpClient;
+
+/**
+ * Incremental sync of a list endpoint by <code>updated_at</code>. Each sync lists only the objects, which were updated between the
+ * last {@link Watermark} and now, so its cost grows with the number of changes, not with the number of objects.
+ * <p>
+ * The window starts {@value #OVERLAP} seconds before the watermark, which catches objects that became visible late or whose
+ * update shares the second of the watermark. Objects of the overlap, which were already delivered with the same
+ * <code>updated_at</code>, are skipped, as are objects that appear twice, because late objects shift the offsets of a page. An
+ * object, which is updated during the sync, leaves the window and moves all following objects one offset back; its new
+ * <code>updated_at</code> lies after the end of the window, so the next sync delivers it. The objects, which it moved, are
+ * caught by comparing the <code>data_count</code> of each page with the previous one: when it shrank, the offset steps back by
+ * the difference and the objects read twice are skipped.
+ */
+final class ChangeSync {
+
+  /**
+   * Seconds, by which a window overlaps the previous one.
+   */
+  final static int         OVERLAP = 60;
+
+  /**
+   * Page size of the sync, larger than the default, since only changes are listed.
+   */
+  final static int         COUNT   = 100;
+
+  private ChangeSync() {
+    super();
+  }
+
+  /**
+   * @param query
+   *          query ordered by <code>created_at_asc</code>, which is restricted to the window.
+   * @param watermark
+   *          result of the last sync or <code>null</code>, to deliver all objects as created.
+   * @param now
+   *          end of the window, in seconds since the epoch.
+   * @return the {@link Watermark} of the next sync.
+   */
+  static <T> Watermark sync( final String path, final Query<T> query, final Watermark watermark, final ChangeListener<? super T> listener,
+      final HttpClient httpClient, final long now ) {
+    if( listener == null ) {
+      throw new IllegalArgumentException( "Listener can not be null" );
+    }
+    long last = watermark != null ? watermark.getSeconds() : 0;
+    Map<String, Long> seen = watermark != null ? watermark.getSeen() : Collections.<String, Long> emptyMap();
+    long start = Math.max( last - ChangeSync.OVERLAP, 0 );
+    long end = Math.max( now, last );
+
+    ModelMetadata metadata = ModelMetadata.of( query.getModelClass() );
+    Field createdAt = metadata.getProperty( "created_at" );
+    Field updatedAt = metadata.getProperty( "updated_at" );
+
+    Map<String, Long> delivered = new LinkedHashMap<String, Long>();
+    Query<T> window = query.with( "updated_at", start + "-" + end );
+    int count = window.getCount() != null ? window.getCount() : PageIterator.DEFAULT_COUNT;
+    int offset = 0;
+    Integer dataCount = null;
+    while( true ) {
+      PaymillList<T> list = RestfulUtils.list( path, window, offset, null, httpClient );
+      if( list != null && list.hasDataCount() ) {
+        if( dataCount != null && list.getDataCount() < dataCount ) {
+          // objects left the window since the last page and moved the following ones back, read them again
+          offset = Math.max( offset - (dataCount - list.getDataCount()), 0 );
+          dataCount = list.getDataCount();
+          continue;
+        }
+        dataCount = list.getDataCount();
+      }
+      List<T> page = list != null && list.getData() != null ? list.getData() : Collections.<T> emptyList();
+      for( T object : page ) {
+        String id = String.valueOf( metadata.getId( object ) );
+        Long updated = ChangeSync.secondsOf( updatedAt, object );
+        if( delivered.containsKey( id ) || (updated != null && updated.equals( seen.get( id ) )) ) {
+          continue;
+        }
+        delivered.put( id, updated );
+
+        Long created = ChangeSync.secondsOf( createdAt, object );
+        if( created == null || created > last || (created >= start && !seen.containsKey( id )) ) {
+          listener.created( object );
+        } else {
+          listener.updated( object );
+        }
+      }
+      offset += page.size();
+      if( page.size() < count || (dataCount != null && offset >= dataCount) ) {
+        break;
+      }
+    }
+
+    Map<String, Long> next = new LinkedHashMap<String, Long>();
+    ChangeSync.retain( seen, end - ChangeSync.OVERLAP, next );
+    ChangeSync.retain( delivered, end - ChangeSync.OVERLAP, next );
+    return new Watermark( end, next );
+  }
+
+  /**
+   * Copies the objects, which were updated after the given second, since they lie in the overlap of the next window.
+   */
+  private static void retain( final Map<String, Long> source, final long from, final Map<String, Long> target ) {
+    for( Map.Entry<String, Long> entry : source.entrySet() ) {
+      if( entry.getValue() != null && entry.getValue() >= from ) {
+        target.put( entry.getKey(), entry.getValue() );
+      }
+    }
+  }
+
+  private static Long secondsOf( final Field field, final Object object ) {
+    try {
+      Date date = field != null ? (Date) field.get( object ) : null;
+      return date != null ? date.getTime() / 1000 : null;
+    } catch( IllegalAccessException exc ) {
+      throw new RuntimeException( exc );
+    }
+  }
+
+}
@@ -9,6 +9,7 @@ import com.paymill.models.Checksum;
 import com.paymill.models.Fee;
 import com.paymill.models.ShoppingCartItem;
 import com.paymill.utils.HttpClient;
+import com.paymill.utils.JsonCodec;
 import com.paymill.utils.ParameterMap;
 
 /**
@@ -20,8 +21,8 @@ import com.paymill.utils.ParameterMap;
  */
 public class ChecksumService extends AbstractService {
 
-  private ChecksumService(HttpClient httpClient) {
-    super(httpClient);
+  private ChecksumService(HttpClient httpClient, JsonCodec codec) {
+    super(httpClient, null, codec);
   }
 
   private final static String PATH = "/checksums";
@@ -171,7 +172,9 @@ public class ChecksumService extends AbstractService {
     ValidationUtils.validatesUrl(returnUrl);
     ValidationUtils.validatesFee(fee);
     
-    ParameterMap<String, String> params = new ParameterMap<String, String>();
+    // 10 plain parameters, 8 per address and 6 per item
+    int expectedSize = 26 + (items != null ? 6 * items.size() : 0);
+    ParameterMap<String, String> params = new ParameterMap<String, String>(expectedSize);
     
     params.add("checksum_type", "paypal");
     params.add("amount", String.valueOf(amount));
@@ -1,8 +1,14 @@
 package com.paymill.services;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
+import com.paymill.utils.Flow;
 import com.paymill.utils.HttpClient;
+import com.paymill.utils.JsonCodec;
 import com.paymill.utils.ParameterMap;
 import org.apache.commons.lang3.StringUtils;
 
@@ -16,11 +22,11 @@ import com.paymill.models.PaymillList;
  */
 public class ClientService extends AbstractService {
 
-  private ClientService( HttpClient httpClient ) {
-    super( httpClient );
+  private ClientService( HttpClient httpClient, ExecutorService executor, JsonCodec codec ) {
+    super( httpClient, executor, codec );
   }
 
-  private final static String PATH = "/clients";
+  final static String PATH = "/clients";
 
   /**
    * This function returns a {@link List} of PAYMILL {@link Client} objects.
@@ -73,6 +79,216 @@ public class ClientService extends AbstractService {
     return RestfulUtils.list( ClientService.PATH, filter, order, count, offset, Client.class, super.httpClient );
   }
 
+  /**
+   * Compiles the filter, order and page size into an immutable {@link Query}, which lists PAYMILL {@link Client}s with
+   * {@link #list(Query, Integer)}. The filter and order are read only once, later changes to them do not affect the query.
+   * @param filter
+   *          {@link com.paymill.models.Client.Filter} or <code>null</code>
+   * @param order
+   *          {@link com.paymill.models.Client.Order} or <code>null</code>
+   * @param count
+   *          Max {@link Integer} of returned objects in each {@link PaymillList} or <code>null</code>
+   * @return the precompiled {@link Query}.
+   */
+  public Query<Client> query( Client.Filter filter, Client.Order order, Integer count ) {
+    return RestfulUtils.query( filter, order, count, Client.class );
+  }
+
+  /**
+   * This function returns a {@link List} of PAYMILL {@link Client} objects for a precompiled {@link Query}. Only the offset is
+   * added to the parameters of the query, so paging through a result does not read the filter and order again.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Client.Filter, com.paymill.models.Client.Order, Integer)}
+   * @param offset
+   *          {@link Integer} to start from.
+   * @return {@link PaymillList} which contains a {@link List} of PAYMILL {@link Client}s and their total count.
+   */
+  public PaymillList<Client> list( Query<Client> query, Integer offset ) {
+    return RestfulUtils.list( ClientService.PATH, query, offset, null, super.httpClient );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Client} objects, which match the optional filter, in the given order. Pages are
+   * fetched lazily while iterating and the next page is prefetched in the background, so at most two pages are held in memory.
+   * @param filter
+   *          {@link com.paymill.models.Client.Filter} or <code>null</code>
+   * @param order
+   *          {@link com.paymill.models.Client.Order} or <code>null</code>
+   * @return {@link Iterable} over all matching PAYMILL {@link Client}s.
+   */
+  public Iterable<Client> iterate( Client.Filter filter, Client.Order order ) {
+    return this.iterate( this.query( filter, order, null ) );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Client} objects of a precompiled {@link Query}, which are fetched lazily with the
+   * page size of the query.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Client.Filter, com.paymill.models.Client.Order, Integer)}
+   * @return {@link Iterable} over all matching PAYMILL {@link Client}s.
+   */
+  public Iterable<Client> iterate( Query<Client> query ) {
+    return RestfulUtils.iterate( ClientService.PATH, query, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Client} objects of a precompiled {@link Query} in a sequential scan, which fetches the
+   * pages lazily with the size chosen by the controller. The controller tunes the page size towards its target latency and
+   * response size.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Client.Filter, com.paymill.models.Client.Order, Integer)}
+   * @param controller
+   *          {@link PageSizeController}, which measures the pages and chooses their size.
+   * @return {@link Iterable} over all matching PAYMILL {@link Client}s.
+   */
+  public Iterable<Client> scan( Query<Client> query, PageSizeController controller ) {
+    return RestfulUtils.scan( ClientService.PATH, query, controller, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Client} objects of a precompiled {@link Query} and fetches several pages at once.
+   * The offsets of all pages are planned from the <code>data_count</code> of the first page. Use it for full scans of large
+   * accounts; the parallelism should stay below the rate limit of the account.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Client.Filter, com.paymill.models.Client.Order, Integer)}
+   * @param parallelism
+   *          maximum number of pages fetched at once.
+   * @param ordered
+   *          <code>true</code> to return the objects in the order of the query, <code>false</code> to return each page as soon as
+   *          it arrives.
+   * @return {@link Iterable} over all matching PAYMILL {@link Client}s.
+   */
+  public Iterable<Client> iterate( Query<Client> query, int parallelism, boolean ordered ) {
+    return RestfulUtils.iterate( ClientService.PATH, query, parallelism, ordered, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns a {@link PageRange} over all PAYMILL {@link Client} objects of a precompiled {@link Query}, which can be
+   * split by pages and processed concurrently. The first page is fetched at once, its <code>data_count</code> is the size of the
+   * range; all other pages are fetched by the range, which holds them, while it is iterated.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Client.Filter, com.paymill.models.Client.Order, Integer)}
+   * @return {@link PageRange} over all matching PAYMILL {@link Client}s.
+   */
+  public PageRange<Client> pages( Query<Client> query ) {
+    return RestfulUtils.pages( ClientService.PATH, query, super.httpClient );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Client} objects of a precompiled {@link Query}, which were created in the given
+   * time window, in ascending order of creation. The window is split into shards by creation date, which are read concurrently
+   * with small offsets; shards with many objects are split further. A created at filter and order of the query are replaced.
+   * Objects created while scanning a window, which ends in the past, do not affect the result.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Client.Filter, com.paymill.models.Client.Order, Integer)}
+   * @param start
+   *          start of the window.
+   * @param end
+   *          end of the window or <code>null</code> for now.
+   * @param parallelism
+   *          maximum number of shards read at once.
+   * @throws IllegalArgumentException
+   *           When start is <code>null</code> or after end.
+   * @return {@link Iterable} over all matching PAYMILL {@link Client}s of the window.
+   */
+  public Iterable<Client> scan( Query<Client> query, Date start, Date end, int parallelism ) {
+    return RestfulUtils.scan( ClientService.PATH, query, start, end, parallelism, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Client} objects of a precompiled {@link Query}, which were created in the given
+   * time window, like {@link #scan(Query, Date, Date, int)}. The size of each page is chosen by the controller, which can be
+   * shared by concurrent scans.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Client.Filter, com.paymill.models.Client.Order, Integer)}
+   * @param start
+   *          start of the window.
+   * @param end
+   *          end of the window or <code>null</code> for now.
+   * @param parallelism
+   *          maximum number of shards read at once.
+   * @param controller
+   *          {@link PageSizeController}, which measures the pages and chooses their size.
+   * @throws IllegalArgumentException
+   *           When start is <code>null</code> or after end.
+   * @return {@link Iterable} over all matching PAYMILL {@link Client}s of the window.
+   */
+  public Iterable<Client> scan( Query<Client> query, Date start, Date end, int parallelism, PageSizeController controller ) {
+    return RestfulUtils.scan( ClientService.PATH, query, start, end, parallelism, controller, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function merges the PAYMILL {@link Client} objects of several precompiled queries with the same order into a single
+   * {@link Iterable} in that order. Each query is paged lazily with a prefetched page, so the queries are read concurrently and
+   * only two pages of each are held in memory. Typically the queries split a large result by a filter, like shards of a scan.
+   * @param queries
+   *          {@link Query}s with the same {@link com.paymill.models.Client.Order}.
+   * @throws IllegalArgumentException
+   *           When the queries have no or different orders.
+   * @return {@link Iterable} over the PAYMILL {@link Client}s of all queries.
+   */
+  public Iterable<Client> merge( List<Query<Client>> queries ) {
+    return RestfulUtils.merge( ClientService.PATH, queries, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns a {@link Flow.Publisher} of all PAYMILL {@link Client} objects, which match the optional filter, in the
+   * given order. Pages are fetched only as the subscriber requests objects, so a slow subscriber holds at most one page.
+   * @param filter
+   *          {@link com.paymill.models.Client.Filter} or <code>null</code>
+   * @param order
+   *          {@link com.paymill.models.Client.Order} or <code>null</code>
+   * @return {@link Flow.Publisher} of all matching PAYMILL {@link Client}s.
+   */
+  public Flow.Publisher<Client> publish( Client.Filter filter, Client.Order order ) {
+    return this.publish( this.query( filter, order, null ) );
+  }
+
+  /**
+   * This function returns a {@link Flow.Publisher} of all PAYMILL {@link Client} objects of a precompiled {@link Query}, which
+   * fetches pages with the page size of the query as the subscriber requests objects.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Client.Filter, com.paymill.models.Client.Order, Integer)}
+   * @return {@link Flow.Publisher} of all matching PAYMILL {@link Client}s.
+   */
+  public Flow.Publisher<Client> publish( Query<Client> query ) {
+    return RestfulUtils.publish( ClientService.PATH, query, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function writes all PAYMILL {@link Client} objects of a precompiled {@link Query} into a file, in the format of the
+   * {@link Export}. The objects are streamed page by page from the responses to the file, so the memory does not grow with their
+   * number. An interrupted export is resumed from its last page by the next export into the same file.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Client.Filter, com.paymill.models.Client.Order, Integer)}
+   * @param export
+   *          {@link Export} with format, columns and compression of the file.
+   * @param file
+   *          the target file, which is replaced unless an export into it was interrupted.
+   * @return the number of exported {@link Client}s.
+   * @throws IOException
+   *           When the file can not be written.
+   */
+  public long export( Query<Client> query, Export export, File file ) throws IOException {
+    return RestfulUtils.export( ClientService.PATH, query, export, file, super.httpClient );
+  }
+
+  /**
+   * This function delivers all PAYMILL {@link Client} objects, which match the optional filter and were created or updated since
+   * the given {@link Watermark}, to the listener. Only the changed objects are listed, so the cost of a sync grows with the number
+   * of changes. The filter for updatedAt is replaced by the window of the sync.
+   * @param filter
+   *          {@link com.paymill.models.Client.Filter} or <code>null</code>
+   * @param watermark
+   *          {@link Watermark} returned by the last sync or <code>null</code> to deliver all {@link Client}s as created.
+   * @param listener
+   *          {@link ChangeListener} of the created and updated {@link Client}s.
+   * @return {@link Watermark} to persist and pass to the next sync.
+   */
+  public Watermark sync( Client.Filter filter, Watermark watermark, ChangeListener<? super Client> listener ) {
+    return RestfulUtils.sync( ClientService.PATH, filter, Client.class, watermark, listener, super.httpClient );
+  }
+
   /**
    * Get and refresh the details of an existing PAYMILL {@link Client}.
    * @param client
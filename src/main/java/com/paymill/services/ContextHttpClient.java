@@ -0,0 +1,65 @@
+package com.paymill.services;
+
+import com.paymill.utils.HttpClient;
+import com.paymill.utils.JsonCodec;
+import com.paymill.utils.ParameterMap;
+
+/**
+ * The {@link HttpClient} of the services of a context. It carries the {@link JsonCodec} of the context along with the client, so
+ * every response is bound with the codec of the context, which requested it.
+ */
+final class ContextHttpClient implements HttpClient {
+
+  private final HttpClient httpClient;
+
+  private final JsonCodec  codec;
+
+  private ContextHttpClient( final HttpClient httpClient, final JsonCodec codec ) {
+    this.httpClient = httpClient;
+    this.codec = codec;
+  }
+
+  static HttpClient of( final HttpClient httpClient, final JsonCodec codec ) {
+    if( codec == null || httpClient instanceof ContextHttpClient ) {
+      return httpClient;
+    }
+    return new ContextHttpClient( httpClient, codec );
+  }
+
+  /**
+   * @return the client of the context, which sends the requests.
+   */
+  HttpClient getHttpClient() {
+    return this.httpClient;
+  }
+
+  JsonCodec getCodec() {
+    return this.codec;
+  }
+
+  @Override
+  public String get( final String path ) {
+    return this.httpClient.get( path );
+  }
+
+  @Override
+  public String get( final String path, final ParameterMap<String, String> params ) {
+    return this.httpClient.get( path, params );
+  }
+
+  @Override
+  public String post( final String path, final ParameterMap<String, String> params ) {
+    return this.httpClient.post( path, params );
+  }
+
+  @Override
+  public String put( final String path, final ParameterMap<String, String> params ) {
+    return this.httpClient.put( path, params );
+  }
+
+  @Override
+  public String delete( final String path, final ParameterMap<String, String> params ) {
+    return this.httpClient.delete( path, params );
+  }
+
+}
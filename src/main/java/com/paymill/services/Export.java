@@ -0,0 +1,88 @@
+package com.paymill.services;
+
+import java.util.Arrays;
+
+/**
+ * Format of an export, which is passed to the <code>export</code> methods of the services. An export writes one row per object,
+ * either as a JSON object per line (NDJSON) or as comma separated values with a header line (CSV, RFC 4180). Columns are names of
+ * properties in PAYMILL's JSON, nested properties are separated by a dot, like <code>client.email</code>.
+ * @since 5.1.4
+ */
+public final class Export {
+
+  /**
+   * Formats of the rows.
+   */
+  public enum Format {
+    NDJSON, CSV
+  }
+
+  private final Format format;
+
+  private String[]     columns;
+
+  private boolean      gzip;
+
+  private Export( final Format format ) {
+    this.format = format;
+  }
+
+  /**
+   * Creates an export of one JSON object per line. Without columns the objects are copied as PAYMILL returns them.
+   * @return {@link Export} in NDJSON format.
+   */
+  public static Export ndjson() {
+    return new Export( Format.NDJSON );
+  }
+
+  /**
+   * Creates an export of comma separated values.
+   * @param columns
+   *          the columns of each row, in order.
+   * @throws IllegalArgumentException
+   *           When no columns are given.
+   * @return {@link Export} in CSV format.
+   */
+  public static Export csv( final String... columns ) {
+    return new Export( Format.CSV ).columns( columns );
+  }
+
+  /**
+   * Restricts the rows to the given columns. Without columns an NDJSON export copies the objects again.
+   * @param columns
+   *          the columns of each row, in order.
+   * @throws IllegalArgumentException
+   *           When no columns are given for a CSV export.
+   * @return this {@link Export}.
+   */
+  public Export columns( final String... columns ) {
+    if( this.format == Format.CSV && (columns == null || columns.length == 0) ) {
+      throw new IllegalArgumentException( "CSV export requires columns" );
+    }
+    this.columns = columns != null && columns.length > 0 ? Arrays.copyOf( columns, columns.length ) : null;
+    return this;
+  }
+
+  /**
+   * Compresses the file with gzip. The file consists of a gzip member per page, which is read as a single stream by all gzip
+   * tools and allows to resume an export.
+   * @return this {@link Export}.
+   */
+  public Export gzip() {
+    this.gzip = true;
+    return this;
+  }
+
+  public Format getFormat() {
+    return this.format;
+  }
+
+  public String[] getColumns() {
+    return this.columns != null ? Arrays.copyOf( this.columns, this.columns.length ) : null;
+  }
+
+  public boolean isGzip() {
+    return this.gzip;
+  }
+
+}
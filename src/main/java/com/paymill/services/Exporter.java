@@ -0,0 +1,256 @@
+package com.paymill.services;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.paymill.context.PaymillContext;
+import com.paymill.utils.HttpClient;
+
+/**
+ * Streams all objects of a {@link Query} into a file, page by page. The elements of a page are copied from the token stream of the
+ * response to a buffered {@link FileChannel}; with columns only the properties of the columns are read as tree. Neither pages nor
+ * objects are held, so the memory does not grow with the number of rows.
+ * <p>
+ * After each page the position in the file and the offset of the next page are written to a checkpoint file next to the export.
+ * If an export finds a checkpoint, it truncates the file to the checkpointed position and resumes with the next page; a completed
+ * export deletes its checkpoint. The checkpoint relies on stable offsets, e.g. on an order by <code>created_at_asc</code>.
+ */
+final class Exporter {
+
+  private final static int    BUFFER_SIZE = 64 * 1024;
+
+  private final static String CHECKPOINT  = ".checkpoint";
+
+  private final String        path;
+
+  private final Query<?>      query;
+
+  private final Export        export;
+
+  private final File          file;
+
+  private final File          checkpoint;
+
+  private final HttpClient    httpClient;
+
+  private final String[][]    columns;
+
+  private final Set<String>   properties;
+
+  Exporter( final String path, final Query<?> query, final Export export, final File file, final HttpClient httpClient ) {
+    this.path = path;
+    this.query = query;
+    this.export = export;
+    this.file = file;
+    this.checkpoint = new File( file.getPath() + Exporter.CHECKPOINT );
+    this.httpClient = httpClient;
+
+    String[] names = export.getColumns();
+    this.columns = names != null ? new String[names.length][] : null;
+    this.properties = names != null ? new HashSet<String>() : null;
+    for( int i = 0; names != null && i < names.length; i++ ) {
+      this.columns[i] = StringUtils.split( names[i], '.' );
+      this.properties.add( this.columns[i][0] );
+    }
+  }
+
+  /**
+   * @return the number of rows in the file.
+   */
+  long run() throws IOException {
+    long[] state = this.readCheckpoint();
+    int offset = (int) state[0];
+    long rows = state[2];
+    int count = this.query.getCount() != null ? this.query.getCount() : PageIterator.DEFAULT_COUNT;
+
+    RandomAccessFile output = new RandomAccessFile( this.file, "rw" );
+    try {
+      FileChannel channel = output.getChannel();
+      channel.truncate( state[1] );
+      channel.position( state[1] );
+      OutputStream stream = new BufferedOutputStream( Channels.newOutputStream( channel ), Exporter.BUFFER_SIZE );
+      if( offset == 0 && this.export.getFormat() == Export.Format.CSV ) {
+        this.writeHeader( stream );
+      }
+      while( true ) {
+        final JsonGenerator generator = this.createGenerator( stream );
+        final long[] written = new long[1];
+        Integer dataCount;
+        try {
+          dataCount = RestfulUtils.stream( this.path, this.query, offset, new ResponseEnvelope.ElementHandler() {
+
+            @Override
+            public void handle( final JsonParser parser ) throws IOException {
+              Exporter.this.writeRow( parser, generator );
+              written[0]++;
+            }
+
+          }, this.httpClient );
+        } catch( RuntimeException exc ) {
+          if( exc.getCause() instanceof IOException ) {
+            throw (IOException) exc.getCause();
+          }
+          throw exc;
+        }
+        generator.close();
+        stream.flush();
+        offset += written[0];
+        rows += written[0];
+        if( written[0] < count || (dataCount != null && offset >= dataCount) ) {
+          break;
+        }
+        this.writeCheckpoint( offset, channel.position(), rows );
+      }
+    } finally {
+      output.close();
+    }
+    if( this.checkpoint.exists() && !this.checkpoint.delete() ) {
+      throw new IOException( "Can not delete " + this.checkpoint );
+    }
+    return rows;
+  }
+
+  /**
+   * A generator for a page, which writes a separate gzip member, if the export is compressed.
+   */
+  private JsonGenerator createGenerator( final OutputStream stream ) throws IOException {
+    OutputStream target = new FilterOutputStream( stream ) {
+
+      @Override
+      public void write( final byte[] b, final int off, final int len ) throws IOException {
+        this.out.write( b, off, len );
+      }
+
+      @Override
+      public void close() throws IOException {
+        this.flush();
+      }
+
+    };
+    if( this.export.isGzip() ) {
+      target = new GZIPOutputStream( target, Exporter.BUFFER_SIZE );
+    }
+    JsonGenerator generator = PaymillContext.PARSER.getFactory().createGenerator( target, JsonEncoding.UTF8 );
+    generator.setRootValueSeparator( null );
+    return generator;
+  }
+
+  private void writeHeader( final OutputStream stream ) throws IOException {
+    JsonGenerator generator = this.createGenerator( stream );
+    String[] names = this.export.getColumns();
+    for( int i = 0; i < names.length; i++ ) {
+      generator.writeRaw( i > 0 ? "," : "" );
+      generator.writeRaw( Exporter.quote( names[i] ) );
+    }
+    generator.writeRaw( "\r\n" );
+    generator.close();
+  }
+
+  private void writeRow( final JsonParser parser, final JsonGenerator generator ) throws IOException {
+    if( this.columns == null ) {
+      generator.copyCurrentStructure( parser );
+      generator.writeRaw( '\n' );
+      return;
+    }
+    ObjectNode node = PaymillContext.PARSER.createObjectNode();
+    while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      if( this.properties.contains( name ) ) {
+        node.set( name, (JsonNode) parser.readValueAsTree() );
+      } else {
+        parser.skipChildren();
+      }
+    }
+    String[] names = this.export.getColumns();
+    if( this.export.getFormat() == Export.Format.NDJSON ) {
+      generator.writeStartObject();
+      for( int i = 0; i < this.columns.length; i++ ) {
+        generator.writeFieldName( names[i] );
+        generator.writeTree( Exporter.valueOf( node, this.columns[i] ) );
+      }
+      generator.writeEndObject();
+      generator.writeRaw( '\n' );
+    } else {
+      for( int i = 0; i < this.columns.length; i++ ) {
+        JsonNode value = Exporter.valueOf( node, this.columns[i] );
+        generator.writeRaw( i > 0 ? "," : "" );
+        if( !value.isNull() ) {
+          generator.writeRaw( Exporter.quote( value.isValueNode() ? value.asText() : value.toString() ) );
+        }
+      }
+      generator.writeRaw( "\r\n" );
+    }
+  }
+
+  private static JsonNode valueOf( final JsonNode node, final String[] column ) {
+    JsonNode value = node;
+    for( String name : column ) {
+      value = value.path( name );
+    }
+    return value.isMissingNode() ? PaymillContext.PARSER.getNodeFactory().nullNode() : value;
+  }
+
+  /**
+   * Quotes a CSV value, if it contains a separator, a quote or a line break.
+   */
+  private static String quote( final String value ) {
+    if( StringUtils.containsAny( value, ",\"\r\n" ) ) {
+      return "\"" + StringUtils.replace( value, "\"", "\"\"" ) + "\"";
+    }
+    return value;
+  }
+
+  /**
+   * @return offset of the next page, length of the file and number of rows of the last checkpoint, or zeros.
+   */
+  private long[] readCheckpoint() throws IOException {
+    if( !this.checkpoint.exists() ) {
+      return new long[3];
+    }
+    RandomAccessFile input = new RandomAccessFile( this.checkpoint, "r" );
+    try {
+      String[] values = StringUtils.split( input.readLine(), ' ' );
+      long[] state = new long[3];
+      for( int i = 0; i < state.length; i++ ) {
+        state[i] = Long.parseLong( values[i] );
+      }
+      if( state[1] > this.file.length() ) {
+        throw new IOException( this.file + " is shorter than its checkpoint" );
+      }
+      return state;
+    } catch( RuntimeException exc ) {
+      throw new IOException( "Invalid checkpoint " + this.checkpoint, exc );
+    } finally {
+      input.close();
+    }
+  }
+
+  private void writeCheckpoint( final int offset, final long position, final long rows ) throws IOException {
+    RandomAccessFile output = new RandomAccessFile( this.checkpoint, "rw" );
+    try {
+      output.setLength( 0 );
+      output.write( (offset + " " + position + " " + rows + "\n").getBytes( "US-ASCII" ) );
+    } finally {
+      output.close();
+    }
+  }
+
+}
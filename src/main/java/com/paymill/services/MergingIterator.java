@@ -0,0 +1,183 @@
+package com.paymill.services;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Merges several iterators, which are each sorted by the same order, into a single sorted iterator. Only the current head of each
+ * source is held in a {@link PriorityQueue}, so the memory is bounded by the number of sources and their own buffers. Equal objects
+ * are returned in the order of their sources.
+ */
+final class MergingIterator<T> implements Iterator<T> {
+
+  private final Comparator<? super T> comparator;
+
+  private final List<Iterator<T>>     sources;
+
+  private PriorityQueue<Head<T>>      heads;
+
+  MergingIterator( final List<Iterator<T>> sources, final Comparator<? super T> comparator ) {
+    this.sources = sources;
+    this.comparator = comparator;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if( this.heads == null ) {
+      this.heads = new PriorityQueue<Head<T>>( Math.max( this.sources.size(), 1 ), new Comparator<Head<T>>() {
+
+        @Override
+        public int compare( final Head<T> first, final Head<T> second ) {
+          int result = MergingIterator.this.comparator.compare( first.object, second.object );
+          return result != 0 ? result : first.source - second.source;
+        }
+
+      } );
+      for( int i = 0; i < this.sources.size(); i++ ) {
+        this.poll( i );
+      }
+    }
+    return !this.heads.isEmpty();
+  }
+
+  @Override
+  public T next() {
+    if( !this.hasNext() ) {
+      throw new NoSuchElementException();
+    }
+    Head<T> head = this.heads.remove();
+    this.poll( head.source );
+    return head.object;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  private void poll( final int source ) {
+    Iterator<T> iterator = this.sources.get( source );
+    if( iterator.hasNext() ) {
+      this.heads.add( new Head<T>( iterator.next(), source ) );
+    }
+  }
+
+  /**
+   * Creates the comparator of the order parameter of a query, like <code>created_at_desc</code>. Values are compared by their
+   * natural order and referenced models by their ids, <code>null</code> comes first.
+   * @param clazz
+   *          class of the listed model.
+   * @param order
+   *          the order parameter.
+   * @throws IllegalArgumentException
+   *           When the model has no comparable property of this name.
+   */
+  static Comparator<Object> comparator( final Class<?> clazz, final String order ) {
+    if( StringUtils.isBlank( order ) ) {
+      throw new IllegalArgumentException( "Can not merge queries without order" );
+    }
+    final boolean descending = order.endsWith( "_desc" );
+    String name = StringUtils.removeEnd( StringUtils.removeEnd( order, "_desc" ), "_asc" );
+    final Field field = ModelMetadata.of( clazz ).getProperty( name );
+    if( field == null ) {
+      throw new IllegalArgumentException( "Can not order " + clazz.getName() + " by " + name );
+    }
+    final boolean reference = !Comparable.class.isAssignableFrom( field.getType() ) && !field.getType().isPrimitive();
+    if( reference && !ModelMetadata.of( field.getType() ).hasId() ) {
+      throw new IllegalArgumentException( "Can not order " + clazz.getName() + " by " + name );
+    }
+    final Method getValue = field.getType().isEnum() ? MergingIterator.valueMethod( field.getType() ) : null;
+    return new Comparator<Object>() {
+
+      @Override
+      @SuppressWarnings( { "unchecked", "rawtypes" } )
+      public int compare( final Object first, final Object second ) {
+        Comparable a = this.keyOf( first );
+        Comparable b = this.keyOf( second );
+        int result = a == null ? (b == null ? 0 : -1) : (b == null ? 1 : a.compareTo( b ));
+        return descending ? -result : result;
+      }
+
+      @SuppressWarnings( "rawtypes" )
+      private Comparable keyOf( final Object object ) {
+        try {
+          Object value = field.get( object );
+          if( reference && value != null ) {
+            Object id = ModelMetadata.of( value.getClass() ).getId( value );
+            return id != null ? String.valueOf( id ) : null;
+          }
+          if( field.getType().isEnum() && value != null ) {
+            return MergingIterator.jsonValue( value, getValue );
+          }
+          return (Comparable) value;
+        } catch( IllegalAccessException exc ) {
+          throw new RuntimeException( exc );
+        }
+      }
+
+    };
+  }
+
+  /**
+   * Returns the <code>getValue()</code> method of a model enum, which returns its value in PAYMILL's JSON, or <code>null</code>
+   * for enums without one.
+   */
+  private static Method valueMethod( final Class<?> type ) {
+    try {
+      return type.getMethod( "getValue" );
+    } catch( NoSuchMethodException exc ) {
+      return null;
+    }
+  }
+
+  /**
+   * PAYMILL orders enums by their JSON value, not by the order of the constants.
+   */
+  private static String jsonValue( final Object constant, final Method value ) {
+    if( value == null ) {
+      return constant.toString();
+    }
+    try {
+      return String.valueOf( value.invoke( constant ) );
+    } catch( Exception exc ) {
+      throw new RuntimeException( exc );
+    }
+  }
+
+  static <T> Iterable<T> iterable( final List<Iterable<T>> sources, final Comparator<? super T> comparator ) {
+    return new Iterable<T>() {
+
+      @Override
+      public Iterator<T> iterator() {
+        List<Iterator<T>> iterators = new ArrayList<Iterator<T>>( sources.size() );
+        for( Iterable<T> source : sources ) {
+          iterators.add( source.iterator() );
+        }
+        return new MergingIterator<T>( iterators, comparator );
+      }
+
+    };
+  }
+
+  private static final class Head<T> {
+
+    private final T   object;
+
+    private final int source;
+
+    private Head( final T object, final int source ) {
+      this.object = object;
+      this.source = source;
+    }
+
+  }
+
+}
@@ -0,0 +1,234 @@
+package com.paymill.services;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.paymill.models.SnakeCase;
+import com.paymill.models.Updateable;
+
+/**
+ * Reflection metadata of a model, filter or order class. The declared fields are resolved, made accessible and their annotations
+ * are read only once per class; afterwards every call reuses the cached accessors. The same accessors copy the state of one
+ * instance into another, without going through bean introspection or converter lookups. Models with updateable fields may declare
+ * a transient <code>String[] snapshot</code> field, which holds the parameter values of their updateable fields as they were
+ * loaded from PAYMILL.
+ */
+final class ModelMetadata {
+
+  private final static ConcurrentMap<Class<?>, ModelMetadata> CACHE = new ConcurrentHashMap<Class<?>, ModelMetadata>();
+
+  private final Field                                         id;
+
+  private final Field                                         snapshot;
+
+  private final List<Accessor>                                updateables;
+
+  private final List<Accessor>                                snakeCases;
+
+  private final Field[]                                       properties;
+
+  private final Map<String, Field>                            named;
+
+  private ModelMetadata( final Class<?> clazz ) {
+    Field id = null;
+    Field snapshot = null;
+    List<Accessor> updateables = new ArrayList<Accessor>();
+    List<Accessor> snakeCases = new ArrayList<Accessor>();
+    List<Field> properties = new ArrayList<Field>();
+    Map<String, Field> named = new HashMap<String, Field>();
+
+    for( Field field : clazz.getDeclaredFields() ) {
+      if( Modifier.isStatic( field.getModifiers() ) || field.isSynthetic() ) {
+        continue;
+      }
+      field.setAccessible( true );
+      if( "id".equals( field.getName() ) ) {
+        id = field;
+      }
+      JsonProperty property = field.getAnnotation( JsonProperty.class );
+      named.put( property != null && property.value().length() > 0 ? property.value() : field.getName(), field );
+      if( "snapshot".equals( field.getName() ) && Modifier.isTransient( field.getModifiers() ) && field.getType() == String[].class ) {
+        snapshot = field;
+      }
+      Updateable updateable = field.getAnnotation( Updateable.class );
+      if( updateable != null ) {
+        updateables.add( new Accessor( field, updateable.value(), false ) );
+      }
+      SnakeCase snakeCase = field.getAnnotation( SnakeCase.class );
+      if( snakeCase != null ) {
+        snakeCases.add( new Accessor( field, snakeCase.value(), snakeCase.order() ) );
+      }
+    }
+
+    for( Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass() ) {
+      for( Field field : type.getDeclaredFields() ) {
+        int modifiers = field.getModifiers();
+        if( Modifier.isStatic( modifiers ) || Modifier.isFinal( modifiers ) || Modifier.isTransient( modifiers ) || field.isSynthetic() ) {
+          continue;
+        }
+        field.setAccessible( true );
+        properties.add( field );
+      }
+    }
+
+    this.id = id;
+    this.snapshot = snapshot;
+    this.updateables = Collections.unmodifiableList( updateables );
+    this.snakeCases = Collections.unmodifiableList( snakeCases );
+    this.properties = properties.toArray( new Field[properties.size()] );
+    this.named = named;
+  }
+
+  static ModelMetadata of( final Class<?> clazz ) {
+    ModelMetadata metadata = ModelMetadata.CACHE.get( clazz );
+    if( metadata == null ) {
+      metadata = new ModelMetadata( clazz );
+      ModelMetadata existing = ModelMetadata.CACHE.putIfAbsent( clazz, metadata );
+      if( existing != null ) {
+        metadata = existing;
+      }
+    }
+    return metadata;
+  }
+
+  /**
+   * @return <code>true</code> if the class declares an <code>id</code> field.
+   */
+  boolean hasId() {
+    return this.id != null;
+  }
+
+  Object getId( final Object instance ) {
+    try {
+      return this.id.get( instance );
+    } catch( IllegalAccessException exc ) {
+      throw new RuntimeException( exc );
+    }
+  }
+
+  /**
+   * @param name
+   *          name of the property in PAYMILL's JSON, i.e. the value of its {@link JsonProperty} or the name of the field.
+   * @return the accessible field of the property or <code>null</code>, if the class has no such property.
+   */
+  Field getProperty( final String name ) {
+    return this.named.get( name );
+  }
+
+  /**
+   * @return <code>true</code> if the class declares a snapshot of its updateable fields.
+   */
+  boolean hasSnapshot() {
+    return this.snapshot != null;
+  }
+
+  /**
+   * @return parameter values of the updateable fields, in declaration order, or <code>null</code>, if the instance was not loaded
+   *         from PAYMILL.
+   */
+  String[] getSnapshot( final Object instance ) {
+    try {
+      return (String[]) this.snapshot.get( instance );
+    } catch( IllegalAccessException exc ) {
+      throw new RuntimeException( exc );
+    }
+  }
+
+  void setSnapshot( final Object instance, final String[] values ) {
+    try {
+      this.snapshot.set( instance, values );
+    } catch( IllegalAccessException exc ) {
+      throw new RuntimeException( exc );
+    }
+  }
+
+  /**
+   * @return fields annotated with {@link Updateable}, in declaration order.
+   */
+  List<Accessor> getUpdateables() {
+    return this.updateables;
+  }
+
+  /**
+   * @return fields annotated with {@link SnakeCase}, in declaration order.
+   */
+  List<Accessor> getSnakeCases() {
+    return this.snakeCases;
+  }
+
+  /**
+   * Copies the values of all instance fields from source into target. Static, final and transient fields are not copied.
+   * @param source
+   *          instance to copy from.
+   * @param target
+   *          instance of the same class to copy into.
+   */
+  void copy( final Object source, final Object target ) {
+    try {
+      for( Field property : this.properties ) {
+        property.set( target, property.get( source ) );
+      }
+    } catch( IllegalAccessException exc ) {
+      throw new RuntimeException( exc );
+    }
+  }
+
+  static final class Accessor {
+
+    private final Field   field;
+
+    private final String  name;
+
+    private final boolean order;
+
+    private Accessor( final Field field, final String name, final boolean order ) {
+      this.field = field;
+      this.name = name;
+      this.order = order;
+    }
+
+    /**
+     * @return the value of the {@link Updateable} or {@link SnakeCase} annotation.
+     */
+    String getName() {
+      return this.name;
+    }
+
+    /**
+     * @return the order flag of the {@link SnakeCase} annotation.
+     */
+    boolean isOrder() {
+      return this.order;
+    }
+
+    Field getField() {
+      return this.field;
+    }
+
+    Object get( final Object instance ) {
+      try {
+        return this.field.get( instance );
+      } catch( IllegalAccessException exc ) {
+        throw new RuntimeException( exc );
+      }
+    }
+
+    boolean getBoolean( final Object instance ) {
+      try {
+        return this.field.getBoolean( instance );
+      } catch( IllegalAccessException exc ) {
+        throw new RuntimeException( exc );
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,169 @@
+package com.paymill.services;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.paymill.models.PaymillList;
+import com.paymill.utils.HttpClient;
+
+/**
+ * Iterates over all objects of a {@link Query}, page by page. The first page is fetched on the first call of {@link #hasNext()};
+ * while a page is consumed, the next one is fetched by the executor of the context. At most two pages are held at a time, so the memory
+ * does not grow with the size of the result.
+ */
+final class PageIterator<T> implements Iterator<T> {
+
+  /**
+   * Default page size of PAYMILL, used if the query has no count.
+   */
+  final static int                     DEFAULT_COUNT = 20;
+
+  private final String                 path;
+
+  private final Query<T>               query;
+
+  private final ExecutorService        executor;
+
+  private final HttpClient             httpClient;
+
+  private final PageSizeController     controller;
+
+  private List<T>                      page;
+
+  private int                          index;
+
+  private int                          offset;
+
+  private Future<PaymillList<T>>       next;
+
+  private int                          count;
+
+  private boolean                      last;
+
+  PageIterator( final String path, final Query<T> query, final ExecutorService executor, final HttpClient httpClient,
+      final PageSizeController controller ) {
+    this( path, query, executor, httpClient, controller, 0 );
+  }
+
+  /**
+   * @param offset
+   *          offset of the first page, e.g. after a page, which was already fetched elsewhere.
+   */
+  PageIterator( final String path, final Query<T> query, final ExecutorService executor, final HttpClient httpClient,
+      final PageSizeController controller, final int offset ) {
+    this.path = path;
+    this.query = query;
+    this.executor = executor;
+    this.httpClient = httpClient;
+    this.controller = controller;
+    this.offset = offset;
+    this.count = this.pageSize();
+  }
+
+  static <T> Iterable<T> iterable( final String path, final Query<T> query, final ExecutorService executor, final HttpClient httpClient ) {
+    return PageIterator.iterable( path, query, executor, httpClient, null );
+  }
+
+  /**
+   * @param controller
+   *          {@link PageSizeController}, which chooses the size of each page, or <code>null</code> for the count of the query.
+   */
+  static <T> Iterable<T> iterable( final String path, final Query<T> query, final ExecutorService executor, final HttpClient httpClient,
+      final PageSizeController controller ) {
+    return new Iterable<T>() {
+
+      @Override
+      public Iterator<T> iterator() {
+        return new PageIterator<T>( path, query, executor, httpClient, controller );
+      }
+
+    };
+  }
+
+  @Override
+  public boolean hasNext() {
+    while( this.page == null || this.index >= this.page.size() ) {
+      if( this.last ) {
+        return false;
+      }
+      this.advance();
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if( !this.hasNext() ) {
+      throw new NoSuchElementException();
+    }
+    return this.page.get( this.index++ );
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Replaces the current page with the next one and starts fetching the page after it.
+   */
+  private void advance() {
+    PaymillList<T> list = this.next != null ? PageIterator.await( this.next ) : this.fetch( this.offset, this.count );
+    this.next = null;
+    this.page = list != null && list.getData() != null ? list.getData() : Collections.<T> emptyList();
+    this.index = 0;
+    this.offset += this.page.size();
+
+    this.last = list == null || this.page.size() < this.count || (list.hasDataCount() && this.offset >= list.getDataCount());
+    if( !this.last ) {
+      final int offset = this.offset;
+      final int count = this.count = this.pageSize();
+      this.next = this.executor.submit( new Callable<PaymillList<T>>() {
+
+        @Override
+        public PaymillList<T> call() {
+          return PageIterator.this.fetch( offset, count );
+        }
+
+      } );
+    }
+  }
+
+  private PaymillList<T> fetch( final int offset, final int count ) {
+    if( this.controller != null ) {
+      return RestfulUtils.page( this.path, this.query, offset, count, this.controller, this.httpClient );
+    }
+    return RestfulUtils.list( this.path, this.query, offset, null, this.httpClient );
+  }
+
+  private int pageSize() {
+    if( this.controller != null ) {
+      return this.controller.getCount();
+    }
+    return this.query.getCount() != null ? this.query.getCount() : PageIterator.DEFAULT_COUNT;
+  }
+
+  /**
+   * Waits for a page and rethrows the failure of its fetch.
+   */
+  static <T> T await( final Future<T> future ) {
+    try {
+      return future.get();
+    } catch( InterruptedException exc ) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException( exc );
+    } catch( ExecutionException exc ) {
+      if( exc.getCause() instanceof RuntimeException ) {
+        throw (RuntimeException) exc.getCause();
+      }
+      throw new RuntimeException( exc.getCause() );
+    }
+  }
+
+}
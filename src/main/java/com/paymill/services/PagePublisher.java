@@ -0,0 +1,163 @@
+package com.paymill.services;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.paymill.models.PaymillList;
+import com.paymill.utils.Flow;
+import com.paymill.utils.HttpClient;
+
+/**
+ * Publishes all objects of a {@link Query} to each subscriber, page by page. A page is fetched only when the subscriber requested
+ * more objects than are left of the current page, so a slow subscriber holds at most one page. Objects are delivered by the
+ * executor of the context; a cancelled subscription stops before the next page, a failed fetch is
+ * delivered with {@link Flow.Subscriber#onError(Throwable)}. A subscriber that throws from
+ * {@link Flow.Subscriber#onNext(Object)} is cancelled and receives the exception with {@link Flow.Subscriber#onError(Throwable)}.
+ */
+final class PagePublisher<T> implements Flow.Publisher<T> {
+
+  private final String          path;
+
+  private final Query<T>        query;
+
+  private final ExecutorService executor;
+
+  private final HttpClient      httpClient;
+
+  PagePublisher( final String path, final Query<T> query, final ExecutorService executor, final HttpClient httpClient ) {
+    this.path = path;
+    this.query = query;
+    this.executor = executor;
+    this.httpClient = httpClient;
+  }
+
+  @Override
+  public void subscribe( final Flow.Subscriber<? super T> subscriber ) {
+    if( subscriber == null ) {
+      throw new NullPointerException( "Subscriber can not be null" );
+    }
+    subscriber.onSubscribe( new PageSubscription( subscriber ) );
+  }
+
+  private final class PageSubscription implements Flow.Subscription, Runnable {
+
+    private final Flow.Subscriber<? super T> subscriber;
+
+    private final AtomicLong                 demand = new AtomicLong();
+
+    private final AtomicInteger              work   = new AtomicInteger();
+
+    private volatile boolean                 cancelled;
+
+    private volatile Throwable               error;
+
+    private List<T>                          page   = Collections.emptyList();
+
+    private int                              index;
+
+    private int                              offset;
+
+    private boolean                          last;
+
+    private boolean                          done;
+
+    private PageSubscription( final Flow.Subscriber<? super T> subscriber ) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request( final long n ) {
+      if( n <= 0 ) {
+        this.error = new IllegalArgumentException( "Requested " + n + " objects, the number must be positive" );
+      } else {
+        long current;
+        long next;
+        do {
+          current = this.demand.get();
+          next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while( !this.demand.compareAndSet( current, next ) );
+      }
+      this.schedule();
+    }
+
+    @Override
+    public void cancel() {
+      this.cancelled = true;
+    }
+
+    /**
+     * Starts draining on a background thread, unless a drain is already running; a running drain picks up the new demand.
+     */
+    private void schedule() {
+      if( this.work.getAndIncrement() == 0 ) {
+        PagePublisher.this.executor.execute( this );
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      do {
+        this.drain();
+        missed = this.work.addAndGet( -missed );
+      } while( missed != 0 );
+    }
+
+    private void drain() {
+      while( !this.cancelled && !this.done ) {
+        if( this.error != null ) {
+          this.done = true;
+          this.subscriber.onError( this.error );
+          return;
+        }
+        if( this.index >= this.page.size() ) {
+          if( this.last ) {
+            this.done = true;
+            this.subscriber.onComplete();
+            return;
+          }
+          if( this.demand.get() == 0 ) {
+            return;
+          }
+          try {
+            this.fetch();
+          } catch( RuntimeException exc ) {
+            this.done = true;
+            this.subscriber.onError( exc );
+            return;
+          }
+          continue;
+        }
+        if( this.demand.get() == 0 ) {
+          return;
+        }
+        if( this.demand.get() != Long.MAX_VALUE ) {
+          this.demand.decrementAndGet();
+        }
+        try {
+          this.subscriber.onNext( this.page.get( this.index++ ) );
+        } catch( RuntimeException exc ) {
+          this.cancelled = true;
+          this.subscriber.onError( exc );
+          return;
+        }
+      }
+    }
+
+    private void fetch() {
+      PaymillList<T> list = RestfulUtils.list( PagePublisher.this.path, PagePublisher.this.query, this.offset, null, PagePublisher.this.httpClient );
+      this.page = list != null && list.getData() != null ? list.getData() : Collections.<T> emptyList();
+      this.index = 0;
+      this.offset += this.page.size();
+
+      Integer count = PagePublisher.this.query.getCount();
+      this.last = list == null || this.page.size() < (count != null ? count : PageIterator.DEFAULT_COUNT)
+          || (list.hasDataCount() && this.offset >= list.getDataCount());
+    }
+
+  }
+
+}
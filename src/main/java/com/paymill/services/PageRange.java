@@ -0,0 +1,175 @@
+package com.paymill.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.paymill.models.PaymillList;
+import com.paymill.utils.HttpClient;
+
+/**
+ * Range of the objects of a {@link Query}, which can be split by pages, like a sized <code>java.util.Spliterator</code>. The size
+ * of the whole range is the <code>data_count</code> of the first page; {@link #trySplit()} hands out the first half of the
+ * remaining pages as a new range, so workers can fetch and process disjoint pages concurrently. Each range fetches its pages
+ * lazily while it is iterated, only the first page is fetched when the range is created and reused by the range, which holds it.
+ * <p>
+ * Objects created or deleted while the range is processed shift the offsets of the pages, just like with a sequential listing;
+ * ordering the query by <code>created_at_asc</code> keeps newly created objects out of the range. A range is not thread safe,
+ * but distinct ranges can be processed by distinct threads. Ranges are created by the <code>pages</code> methods of the services.
+ * @since 5.1.4
+ */
+public final class PageRange<T> implements Iterable<T> {
+
+  private final String     path;
+
+  private final Query<T>   query;
+
+  private final HttpClient httpClient;
+
+  private final int        count;
+
+  private List<T>          first;
+
+  private int              from;
+
+  private int              to;
+
+  private PageRange( final String path, final Query<T> query, final HttpClient httpClient, final int count, final List<T> first,
+      final int from, final int to ) {
+    this.path = path;
+    this.query = query;
+    this.httpClient = httpClient;
+    this.count = count;
+    this.first = first;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * Fetches the first page of the query to determine the size of the range.
+   */
+  static <T> PageRange<T> of( final String path, final Query<T> query, final HttpClient httpClient ) {
+    PaymillList<T> list = RestfulUtils.list( path, query, 0, null, httpClient );
+    List<T> first = list != null && list.getData() != null ? list.getData() : Collections.<T> emptyList();
+    int count = query.getCount() != null ? query.getCount() : PageIterator.DEFAULT_COUNT;
+    int size = list != null ? Math.max( list.getDataCount(), first.size() ) : 0;
+    return new PageRange<T>( path, query, httpClient, count, first, 0, size );
+  }
+
+  /**
+   * @return the number of objects in this range, as reported by PAYMILL when the range was created.
+   */
+  public long size() {
+    return this.to - this.from;
+  }
+
+  /**
+   * Splits off the first half of the pages of this range, if it has at least two pages. This range keeps the second half.
+   * @return a {@link PageRange} over the first half or <code>null</code>, if this range can not be split.
+   */
+  public PageRange<T> trySplit() {
+    int pages = (this.to - this.from + this.count - 1) / this.count;
+    if( pages < 2 ) {
+      return null;
+    }
+    int split = this.from + (pages / 2) * this.count;
+    PageRange<T> prefix = new PageRange<T>( this.path, this.query, this.httpClient, this.count, this.from == 0 ? this.first : null,
+        this.from, split );
+    this.first = null;
+    this.from = split;
+    return prefix;
+  }
+
+  /**
+   * Splits this range into at most the given number of ranges of about the same number of pages, in the order of the query. The
+   * largest range is split until there are enough ranges or no range has two pages.
+   * @param parts
+   *          the maximum number of ranges.
+   * @throws IllegalArgumentException
+   *           When parts is not positive.
+   * @return the ranges, which replace this range.
+   */
+  public List<PageRange<T>> split( final int parts ) {
+    if( parts < 1 ) {
+      throw new IllegalArgumentException( "Parts must be positive" );
+    }
+    List<PageRange<T>> ranges = new ArrayList<PageRange<T>>( parts );
+    ranges.add( this );
+    while( ranges.size() < parts ) {
+      int largest = 0;
+      for( int i = 1; i < ranges.size(); i++ ) {
+        if( ranges.get( i ).size() > ranges.get( largest ).size() ) {
+          largest = i;
+        }
+      }
+      PageRange<T> prefix = ranges.get( largest ).trySplit();
+      if( prefix == null ) {
+        break;
+      }
+      ranges.add( largest, prefix );
+    }
+    return ranges;
+  }
+
+  /**
+   * @return an {@link Iterator} over the objects of this range, which fetches its pages lazily.
+   */
+  @Override
+  public Iterator<T> iterator() {
+    return new RangeIterator();
+  }
+
+  private final class RangeIterator implements Iterator<T> {
+
+    private List<T> page;
+
+    private int     index;
+
+    private int     offset = PageRange.this.from;
+
+    private boolean last;
+
+    @Override
+    public boolean hasNext() {
+      while( this.page == null || this.index >= this.page.size() ) {
+        if( this.last || this.offset >= PageRange.this.to ) {
+          return false;
+        }
+        this.fetch();
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if( !this.hasNext() ) {
+        throw new NoSuchElementException();
+      }
+      return this.page.get( this.index++ );
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private void fetch() {
+      List<T> data;
+      if( this.offset == 0 && PageRange.this.first != null ) {
+        data = PageRange.this.first;
+      } else {
+        PaymillList<T> list = RestfulUtils.list( PageRange.this.path, PageRange.this.query, this.offset, null, PageRange.this.httpClient );
+        data = list != null && list.getData() != null ? list.getData() : Collections.<T> emptyList();
+      }
+      this.last = data.size() < PageRange.this.count;
+      int end = Math.min( data.size(), PageRange.this.to - this.offset );
+      this.page = end < data.size() ? data.subList( 0, end ) : data;
+      this.index = 0;
+      this.offset += PageRange.this.count;
+    }
+
+  }
+
+}
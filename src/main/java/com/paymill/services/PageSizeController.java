@@ -0,0 +1,117 @@
+package com.paymill.services;
+
+/**
+ * Chooses the page size of a scan from the measured responses. After each page the size is scaled towards the target latency and
+ * the target size of a response in bytes, whichever allows fewer objects; a single step at most halves or doubles it, and it stays
+ * within the limits of PAYMILL. A small page size lets the round trip dominate, a large one slows down responses up to timeouts.
+ * <p>
+ * A controller can be shared by concurrent scans of the same endpoint. The chosen page sizes and latencies are exposed as metrics.
+ * @since 5.1.4
+ */
+public final class PageSizeController {
+
+  /**
+   * Largest page size accepted by PAYMILL.
+   */
+  public final static int   MAX_COUNT             = 100;
+
+  private final static long DEFAULT_TARGET_MILLIS = 1000;
+
+  private final static long DEFAULT_TARGET_BYTES  = 512 * 1024;
+
+  private final long        targetNanos;
+
+  private final long        targetBytes;
+
+  private int               count                 = PageIterator.DEFAULT_COUNT;
+
+  private long              pages;
+
+  private long              requested;
+
+  private long              nanos;
+
+  /**
+   * Creates a controller with a target latency of one second and a target response size of 512 KiB.
+   */
+  public PageSizeController() {
+    this( PageSizeController.DEFAULT_TARGET_MILLIS, PageSizeController.DEFAULT_TARGET_BYTES );
+  }
+
+  /**
+   * @param targetMillis
+   *          target latency of a page in milliseconds.
+   * @param targetBytes
+   *          target size of a response in bytes.
+   * @throws IllegalArgumentException
+   *           When a target is not positive.
+   */
+  public PageSizeController( final long targetMillis, final long targetBytes ) {
+    if( targetMillis <= 0 || targetBytes <= 0 ) {
+      throw new IllegalArgumentException( "Targets of the page size must be positive" );
+    }
+    this.targetNanos = targetMillis * 1000000;
+    this.targetBytes = targetBytes;
+  }
+
+  /**
+   * @return the page size of the next request.
+   */
+  public synchronized int getCount() {
+    return this.count;
+  }
+
+  /**
+   * @return the number of measured pages.
+   */
+  public synchronized long getPages() {
+    return this.pages;
+  }
+
+  /**
+   * @return the average page size of the measured pages or <code>0</code>, if no page was measured.
+   */
+  public synchronized double getAverageCount() {
+    return this.pages > 0 ? (double) this.requested / this.pages : 0;
+  }
+
+  /**
+   * @return the average latency of the measured pages in milliseconds or <code>0</code>, if no page was measured.
+   */
+  public synchronized double getAverageMillis() {
+    return this.pages > 0 ? this.nanos / 1000000d / this.pages : 0;
+  }
+
+  /**
+   * Records a page and adjusts the page size of the next request.
+   * @param count
+   *          the requested page size.
+   * @param rows
+   *          the number of returned objects.
+   * @param nanos
+   *          the latency of the page, including reading the response.
+   * @param bytes
+   *          the size of the response or <code>0</code>, if it is unknown.
+   */
+  synchronized void record( final int count, final int rows, final long nanos, final long bytes ) {
+    this.pages++;
+    this.requested += count;
+    this.nanos += nanos;
+    if( rows == 0 ) {
+      return;
+    }
+    double ideal = (double) rows * this.targetNanos / Math.max( nanos, 1 );
+    if( bytes > 0 ) {
+      ideal = Math.min( ideal, (double) rows * this.targetBytes / bytes );
+    }
+    ideal = Math.max( Math.min( ideal, this.count * 2d ), this.count / 2d );
+    this.count = (int) Math.max( Math.min( Math.round( ideal ), PageSizeController.MAX_COUNT ), 1 );
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "PageSizeController[count=" + this.count + ", pages=" + this.pages + ", averageCount=" + this.getAverageCount()
+        + ", averageMillis=" + this.getAverageMillis() + "]";
+  }
+
+}
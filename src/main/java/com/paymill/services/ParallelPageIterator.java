@@ -0,0 +1,180 @@
+package com.paymill.services;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.paymill.models.PaymillList;
+import com.paymill.utils.HttpClient;
+
+/**
+ * Iterates over all objects of a {@link Query} and fetches several pages at once. The first page is fetched on the first call of
+ * {@link #hasNext()}; its <code>data_count</code> and size determine the offsets of all remaining pages. Up to
+ * <code>parallelism</code> of them are fetched concurrently, and a new page is requested whenever one is consumed, so at most
+ * <code>parallelism + 1</code> pages are held at a time. Without a <code>data_count</code> the offsets of the remaining pages
+ * are unknown, so they are fetched one after another by a {@link PageIterator}.
+ * <p>
+ * Ordered iterators return the pages in the order of their offsets. Unordered ones return each page as soon as it arrives, which
+ * keeps all fetches busy when single pages are slow.
+ */
+final class ParallelPageIterator<T> implements Iterator<T> {
+
+  private final String                       path;
+
+  private final Query<T>                     query;
+
+  private final ExecutorService              executor;
+
+  private final HttpClient                   httpClient;
+
+  private final int                          parallelism;
+
+  private final LinkedList<Future<List<T>>>  pending;
+
+  private final CompletionService<List<T>>   completed;
+
+  private List<T>                            page;
+
+  private int                                index;
+
+  private int                                inFlight;
+
+  private int                                nextOffset = -1;
+
+  private int                                step;
+
+  private int                                dataCount;
+
+  private Iterator<T>                        sequential;
+
+  ParallelPageIterator( final String path, final Query<T> query, final ExecutorService executor, final HttpClient httpClient, final int parallelism,
+      final boolean ordered ) {
+    this.path = path;
+    this.query = query;
+    this.executor = executor;
+    this.httpClient = httpClient;
+    this.parallelism = parallelism;
+    this.pending = ordered ? new LinkedList<Future<List<T>>>() : null;
+    this.completed = ordered ? null : new ExecutorCompletionService<List<T>>( executor );
+  }
+
+  static <T> Iterable<T> iterable( final String path, final Query<T> query, final ExecutorService executor, final HttpClient httpClient,
+      final int parallelism, final boolean ordered ) {
+    if( parallelism < 1 ) {
+      throw new IllegalArgumentException( "Parallelism must be positive" );
+    }
+    return new Iterable<T>() {
+
+      @Override
+      public Iterator<T> iterator() {
+        return new ParallelPageIterator<T>( path, query, executor, httpClient, parallelism, ordered );
+      }
+
+    };
+  }
+
+  @Override
+  public boolean hasNext() {
+    if( this.nextOffset < 0 ) {
+      this.plan();
+    }
+    if( this.index >= this.page.size() && this.sequential != null ) {
+      return this.sequential.hasNext();
+    }
+    while( this.index >= this.page.size() ) {
+      if( this.inFlight == 0 ) {
+        return false;
+      }
+      this.page = this.take();
+      this.index = 0;
+      this.submit();
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if( !this.hasNext() ) {
+      throw new NoSuchElementException();
+    }
+    return this.index < this.page.size() ? this.page.get( this.index++ ) : this.sequential.next();
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Fetches the first page and starts fetching the following ones.
+   */
+  private void plan() {
+    PaymillList<T> first = RestfulUtils.list( this.path, this.query, 0, null, this.httpClient );
+    this.page = ParallelPageIterator.dataOf( first );
+    this.index = 0;
+    this.step = this.page.size();
+    this.dataCount = first != null ? first.getDataCount() : 0;
+    this.nextOffset = this.step;
+    if( first != null && !first.hasDataCount() ) {
+      int count = this.query.getCount() != null ? this.query.getCount() : PageIterator.DEFAULT_COUNT;
+      if( this.step >= count ) {
+        this.sequential = new PageIterator<T>( this.path, this.query, this.executor, this.httpClient, null, this.step );
+      }
+      return;
+    }
+    for( int i = 0; i < this.parallelism; i++ ) {
+      this.submit();
+    }
+  }
+
+  /**
+   * Requests the page at the next planned offset, if there is one.
+   */
+  private void submit() {
+    if( this.step == 0 || this.nextOffset >= this.dataCount ) {
+      return;
+    }
+    final int offset = this.nextOffset;
+    this.nextOffset += this.step;
+    Callable<List<T>> fetch = new Callable<List<T>>() {
+
+      @Override
+      public List<T> call() {
+        return ParallelPageIterator.dataOf( RestfulUtils.<T> list( ParallelPageIterator.this.path, ParallelPageIterator.this.query, offset, null,
+            ParallelPageIterator.this.httpClient ) );
+      }
+
+    };
+    if( this.pending != null ) {
+      this.pending.add( this.executor.submit( fetch ) );
+    } else {
+      this.completed.submit( fetch );
+    }
+    this.inFlight++;
+  }
+
+  private List<T> take() {
+    this.inFlight--;
+    if( this.pending != null ) {
+      return PageIterator.await( this.pending.removeFirst() );
+    }
+    try {
+      return PageIterator.await( this.completed.take() );
+    } catch( InterruptedException exc ) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException( exc );
+    }
+  }
+
+  private static <T> List<T> dataOf( final PaymillList<T> list ) {
+    return list != null && list.getData() != null ? list.getData() : Collections.<T> emptyList();
+  }
+
+}
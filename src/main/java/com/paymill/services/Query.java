@@ -0,0 +1,152 @@
+package com.paymill.services;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.paymill.utils.ParameterMap;
+
+/**
+ * Filter, order and page size of a list request, compiled once into its request parameters. A query is immutable and can be
+ * shared between threads; paging through a result only adds the offset to the precompiled parameters, so the filter and order
+ * objects are not read again. Two queries are equal, if they list the same model with the same parameters, which makes them
+ * suitable as keys of caches or for coalescing requests. Queries are created by the <code>query</code> methods of the services.
+ * @since 5.1.4
+ */
+public final class Query<T> {
+
+  private final Class<T> clazz;
+
+  private final String[] keys;
+
+  private final String[] values;
+
+  private final Integer  count;
+
+  private final String   encoded;
+
+  Query( final Class<T> clazz, final ParameterMap<String, String> params, final Integer count ) {
+    List<String> keys = new ArrayList<String>( params.size() );
+    List<String> values = new ArrayList<String>( params.size() );
+    StringBuilder encoded = new StringBuilder();
+    for( Map.Entry<String, List<String>> entry : params.entrySet() ) {
+      for( String value : entry.getValue() ) {
+        keys.add( entry.getKey() );
+        values.add( value );
+        if( encoded.length() > 0 ) {
+          encoded.append( '&' );
+        }
+        encoded.append( Query.encode( entry.getKey() ) ).append( '=' ).append( Query.encode( value ) );
+      }
+    }
+    this.clazz = clazz;
+    this.keys = keys.toArray( new String[keys.size()] );
+    this.values = values.toArray( new String[values.size()] );
+    this.count = count;
+    this.encoded = encoded.toString();
+  }
+
+  /**
+   * @return the class of the listed model.
+   */
+  public Class<T> getModelClass() {
+    return this.clazz;
+  }
+
+  /**
+   * @return the page size or <code>null</code>, if PAYMILL's default page size is used.
+   */
+  public Integer getCount() {
+    return this.count;
+  }
+
+  /**
+   * @return the first value of the given parameter or <code>null</code>, if the query has no such parameter.
+   */
+  String getParameter( final String key ) {
+    for( int i = 0; i < this.keys.length; i++ ) {
+      if( this.keys[i].equals( key ) ) {
+        return this.values[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param offset
+   *          offset of the page or <code>null</code> for the first page.
+   * @return new parameters of the request for the page at the given offset.
+   */
+  ParameterMap<String, String> toParameters( final Integer offset ) {
+    ParameterMap<String, String> params = new ParameterMap<String, String>( this.keys.length + 1 );
+    for( int i = 0; i < this.keys.length; i++ ) {
+      params.add( this.keys[i], this.values[i] );
+    }
+    if( offset != null && offset >= 0 ) {
+      params.add( "offset", String.valueOf( offset ) );
+    }
+    return params;
+  }
+
+  /**
+   * @param key
+   *          name of the parameter.
+   * @param value
+   *          new value of the parameter.
+   * @return a new query, in which all values of the given parameter are replaced by the given value.
+   */
+  Query<T> with( final String key, final String value ) {
+    ParameterMap<String, String> params = this.toParameters( null );
+    params.remove( key );
+    params.add( key, value );
+    return new Query<T>( this.clazz, params, this.count );
+  }
+
+  /**
+   * @param count
+   *          the new page size.
+   * @return a new query with the given page size.
+   */
+  Query<T> withCount( final int count ) {
+    ParameterMap<String, String> params = this.toParameters( null );
+    params.remove( "count" );
+    params.add( "count", String.valueOf( count ) );
+    return new Query<T>( this.clazz, params, count );
+  }
+
+  @Override
+  public boolean equals( final Object o ) {
+    if( this == o ) {
+      return true;
+    }
+    if( !(o instanceof Query) ) {
+      return false;
+    }
+    Query<?> other = (Query<?>) o;
+    return this.clazz == other.clazz && this.encoded.equals( other.encoded );
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.clazz.hashCode() + this.encoded.hashCode();
+  }
+
+  /**
+   * @return the URL encoded parameters of the query, without offset.
+   */
+  @Override
+  public String toString() {
+    return this.encoded;
+  }
+
+  private static String encode( final String value ) {
+    try {
+      return URLEncoder.encode( value, "UTF-8" );
+    } catch( UnsupportedEncodingException exc ) {
+      throw new RuntimeException( exc );
+    }
+  }
+
+}
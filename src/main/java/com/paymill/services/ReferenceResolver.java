@@ -0,0 +1,178 @@
+package com.paymill.services;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.paymill.models.Client;
+import com.paymill.models.Offer;
+import com.paymill.models.Payment;
+import com.paymill.models.Preauthorization;
+import com.paymill.models.Transaction;
+import com.paymill.utils.HttpClient;
+
+/**
+ * Loads the referenced models of a batch of models, like the clients and payments of a page of transactions, with one request per
+ * distinct reference instead of one per model. A reference counts as loaded, if it has a creation date; PAYMILL sends unloaded
+ * references as plain id. References, which are loaded in any model of the batch, are reused for all other models; the missing
+ * ones are fetched concurrently, with at most <code>parallelism</code> requests at a time. Afterwards every model references the
+ * loaded instance, so models with the same reference share it.
+ */
+final class ReferenceResolver {
+
+  private final static Map<Class<?>, String> PATHS = new HashMap<Class<?>, String>();
+
+  static {
+    ReferenceResolver.PATHS.put( Client.class, ClientService.PATH );
+    ReferenceResolver.PATHS.put( Offer.class, OfferService.PATH );
+    ReferenceResolver.PATHS.put( Payment.class, PaymentService.PATH );
+    ReferenceResolver.PATHS.put( Preauthorization.class, PreauthorizationService.PATH );
+    ReferenceResolver.PATHS.put( Transaction.class, TransactionService.PATH );
+  }
+
+  private ReferenceResolver() {
+    super();
+  }
+
+  /**
+   * @param objects
+   *          models of the same class, <code>null</code> elements are skipped.
+   * @param parallelism
+   *          maximum number of concurrent requests.
+   * @param properties
+   *          names of the referencing properties in PAYMILL's JSON, like <code>client</code>.
+   */
+  static <T> List<T> resolve( final List<T> objects, final int parallelism, final ExecutorService executor, final HttpClient httpClient,
+      final String... properties ) {
+    if( parallelism < 1 ) {
+      throw new IllegalArgumentException( "Parallelism must be positive" );
+    }
+    if( objects == null || objects.isEmpty() ) {
+      return objects;
+    }
+    Class<?> clazz = null;
+    for( T object : objects ) {
+      if( object != null ) {
+        clazz = object.getClass();
+        break;
+      }
+    }
+    if( clazz == null ) {
+      return objects;
+    }
+
+    Field[] fields = new Field[properties.length];
+    for( int i = 0; i < properties.length; i++ ) {
+      fields[i] = ModelMetadata.of( clazz ).getProperty( properties[i] );
+      if( fields[i] == null || !ReferenceResolver.PATHS.containsKey( fields[i].getType() ) ) {
+        throw new IllegalArgumentException( "Can not resolve " + properties[i] + " of " + clazz.getName() );
+      }
+    }
+
+    Map<String, Object> loaded = new HashMap<String, Object>();
+    Map<String, Object> missing = new LinkedHashMap<String, Object>();
+    for( T object : objects ) {
+      for( Field field : fields ) {
+        Object reference = object != null ? ReferenceResolver.get( field, object ) : null;
+        String key = ReferenceResolver.keyOf( reference );
+        if( key == null ) {
+          continue;
+        }
+        if( ReferenceResolver.isLoaded( reference ) ) {
+          loaded.put( key, reference );
+          missing.remove( key );
+        } else if( !loaded.containsKey( key ) && !missing.containsKey( key ) ) {
+          missing.put( key, reference );
+        }
+      }
+    }
+
+    loaded.putAll( ReferenceResolver.fetch( missing, parallelism, executor, httpClient ) );
+    for( T object : objects ) {
+      for( Field field : fields ) {
+        Object reference = object != null ? ReferenceResolver.get( field, object ) : null;
+        String key = ReferenceResolver.keyOf( reference );
+        if( key != null && loaded.get( key ) != reference ) {
+          ReferenceResolver.set( field, object, loaded.get( key ) );
+        }
+      }
+    }
+    return objects;
+  }
+
+  /**
+   * Loads the missing references into themselves, with at most <code>parallelism</code> requests at a time.
+   */
+  private static Map<String, Object> fetch( final Map<String, Object> missing, final int parallelism, final ExecutorService executor,
+      final HttpClient httpClient ) {
+    CompletionService<Object> completion = new ExecutorCompletionService<Object>( executor );
+    List<Future<Object>> futures = new ArrayList<Future<Object>>( missing.size() );
+    try {
+      int pending = 0;
+      for( final Object reference : missing.values() ) {
+        if( pending == parallelism ) {
+          PageIterator.await( completion.take() );
+          pending--;
+        }
+        futures.add( completion.submit( new Callable<Object>() {
+
+          @Override
+          public Object call() {
+            return RestfulUtils.show( ReferenceResolver.PATHS.get( reference.getClass() ), reference, null, reference.getClass(), httpClient );
+          }
+
+        } ) );
+        pending++;
+      }
+      for( ; pending > 0; pending-- ) {
+        PageIterator.await( completion.take() );
+      }
+    } catch( InterruptedException exc ) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException( exc );
+    } finally {
+      for( Future<Object> future : futures ) {
+        future.cancel( true );
+      }
+    }
+    return missing;
+  }
+
+  private static String keyOf( final Object reference ) {
+    if( reference == null ) {
+      return null;
+    }
+    Object id = ModelMetadata.of( reference.getClass() ).getId( reference );
+    return id != null ? reference.getClass().getName() + ":" + id : null;
+  }
+
+  private static boolean isLoaded( final Object reference ) {
+    Field createdAt = ModelMetadata.of( reference.getClass() ).getProperty( "created_at" );
+    return createdAt != null && ReferenceResolver.get( createdAt, reference ) != null;
+  }
+
+  private static Object get( final Field field, final Object object ) {
+    try {
+      return field.get( object );
+    } catch( IllegalAccessException exc ) {
+      throw new RuntimeException( exc );
+    }
+  }
+
+  private static void set( final Field field, final Object object, final Object value ) {
+    try {
+      field.set( object, value );
+    } catch( IllegalAccessException exc ) {
+      throw new RuntimeException( exc );
+    }
+  }
+
+}
@@ -0,0 +1,305 @@
+package com.paymill.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.paymill.context.PaymillContext;
+import com.paymill.exceptions.AuthenticationException;
+import com.paymill.exceptions.NotFoundException;
+import com.paymill.exceptions.PaymillException;
+import com.paymill.exceptions.RateLimitException;
+import com.paymill.exceptions.ServerException;
+import com.paymill.exceptions.ValidationException;
+import com.paymill.models.PaymillList;
+import com.paymill.models.Projection;
+import com.paymill.utils.HttpResponse;
+import com.paymill.utils.JsonCodec;
+
+/**
+ * Decodes the envelope of a PAYMILL response in a single streaming pass. The <code>data</code> member is bound directly from the
+ * token stream, an <code>error</code> member is detected on the fly and turned into a typed {@link PaymillException}, all other
+ * members are skipped. Responses backed by a stream are parsed from their UTF-8 bytes, without an intermediate {@link String}.
+ */
+final class ResponseEnvelope<T> {
+
+  /**
+   * Members of an error object, which describe the error itself and are never names of parameters.
+   */
+  private final static Set<String> RESERVED = new HashSet<String>( Arrays.asList( "message", "messages", "code", "status", "error",
+      "exception", "response_code", "type" ) );
+
+  private T             object;
+
+  private List<T>       objects;
+
+  private Integer       dataCount;
+
+  private JsonNode      error;
+
+  private String        exception;
+
+  private Integer       responseCode;
+
+  private ResponseEnvelope() {
+    super();
+  }
+
+  static <T> T readObject( HttpResponse response, Projection projection, Class<?> clazz, JsonCodec codec ) {
+    ResponseEnvelope<T> envelope = ResponseEnvelope.read( response, projection, clazz, codec, false, null );
+    if( envelope.object != null ) {
+      return envelope.object;
+    }
+    envelope.throwIfFailed( response.getStatus() );
+    return null;
+  }
+
+  static <T> PaymillList<T> readList( HttpResponse response, Projection projection, Class<?> clazz, JsonCodec codec ) {
+    ResponseEnvelope<T> envelope = ResponseEnvelope.read( response, projection, clazz, codec, true, null );
+    if( envelope.objects != null ) {
+      PaymillList<T> list = new PaymillList<T>();
+      list.setData( envelope.objects );
+      if( envelope.dataCount != null ) {
+        list.setDataCount( envelope.dataCount );
+      }
+      return list;
+    }
+    envelope.throwIfFailed( response.getStatus() );
+    return null;
+  }
+
+  /**
+   * Hands each element of a list to the handler, while the parser is positioned at its start, so the elements are neither bound
+   * nor collected.
+   * @return the <code>data_count</code> of the list or <code>null</code>, if the response has none.
+   */
+  static Integer readList( HttpResponse response, ElementHandler handler ) {
+    ResponseEnvelope<Object> envelope = ResponseEnvelope.read( response, null, null, null, true, handler );
+    if( envelope.objects == null ) {
+      envelope.throwIfFailed( response.getStatus() );
+    }
+    return envelope.dataCount;
+  }
+
+  private static <T> ResponseEnvelope<T> read( HttpResponse response, Projection projection, Class<?> clazz, JsonCodec codec, boolean list,
+      ElementHandler handler ) {
+    ResponseEnvelope<T> envelope = new ResponseEnvelope<T>();
+    JsonParser parser = null;
+    try {
+      if( response.getContent() != null ) {
+        parser = PaymillContext.PARSER.getFactory().createParser( response.getContent() );
+      } else if( StringUtils.isNotBlank( response.getBody() ) ) {
+        parser = PaymillContext.PARSER.getFactory().createParser( response.getBody() );
+      } else {
+        return envelope;
+      }
+      if( parser.nextToken() != JsonToken.START_OBJECT ) {
+        return envelope;
+      }
+      while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if( "data".equals( name ) && list && token == JsonToken.START_ARRAY ) {
+          envelope.objects = handler != null ? ResponseEnvelope.<T> handleArray( parser, handler ) : ResponseEnvelope.<T> readArray( parser,
+              projection, clazz, codec );
+        } else if( "data".equals( name ) && !list && token == JsonToken.START_OBJECT ) {
+          envelope.object = ResponseEnvelope.readElement( parser, projection, clazz, codec );
+        } else if( "data_count".equals( name ) && token.isNumeric() ) {
+          envelope.dataCount = parser.getIntValue();
+        } else if( "error".equals( name ) ) {
+          envelope.error = parser.readValueAsTree();
+        } else if( "exception".equals( name ) && token == JsonToken.VALUE_STRING ) {
+          envelope.exception = parser.getText();
+        } else if( "response_code".equals( name ) && token.isNumeric() ) {
+          envelope.responseCode = parser.getIntValue();
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } catch( IOException exc ) {
+      if( response.getStatus() >= 400 ) {
+        throw ResponseEnvelope.createException( response.getStatus(), response.getContent() == null ? response.getBody() : null, null, null, null );
+      }
+      throw new RuntimeException( exc );
+    } finally {
+      if( parser != null ) {
+        try {
+          parser.close();
+        } catch( IOException exc ) {
+          // nothing to do, the response is already consumed
+        }
+      }
+      response.close();
+    }
+    return envelope;
+  }
+
+  private static <T> List<T> readArray( JsonParser parser, Projection projection, Class<?> clazz, JsonCodec codec ) throws IOException {
+    List<T> objects = new ArrayList<T>();
+    JsonToken token;
+    while( (token = parser.nextToken()) != JsonToken.END_ARRAY ) {
+      if( token == JsonToken.START_OBJECT ) {
+        objects.add( ResponseEnvelope.<T> readElement( parser, projection, clazz, codec ) );
+      } else {
+        parser.skipChildren();
+        objects.add( null );
+      }
+    }
+    return objects;
+  }
+
+  private static <T> List<T> handleArray( JsonParser parser, ElementHandler handler ) throws IOException {
+    JsonToken token;
+    while( (token = parser.nextToken()) != JsonToken.END_ARRAY ) {
+      if( token == JsonToken.START_OBJECT ) {
+        handler.handle( parser );
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Binds the object, at which the parser is positioned, with the {@link JsonCodec} of the {@link PaymillContext}. With a
+   * {@link Projection} only the projected properties are bound; subtrees of all other properties are skipped on token level, so no
+   * nodes or objects are created for them.
+   */
+  @SuppressWarnings( "unchecked" )
+  private static <T> T readElement( JsonParser parser, Projection projection, Class<?> clazz, JsonCodec codec ) throws IOException {
+    if( projection == null ) {
+      return (T) codec.read( parser, clazz );
+    }
+    ObjectNode node = PaymillContext.PARSER.createObjectNode();
+    while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      if( projection.contains( name ) ) {
+        node.set( name, (JsonNode) parser.readValueAsTree() );
+      } else {
+        parser.skipChildren();
+      }
+    }
+    JsonParser projected = node.traverse( PaymillContext.PARSER );
+    try {
+      projected.nextToken();
+      return (T) codec.read( projected, clazz );
+    } finally {
+      projected.close();
+    }
+  }
+
+  private void throwIfFailed( int status ) {
+    if( this.error != null || this.exception != null || status >= 400 ) {
+      String message = this.error != null ? this.error.toString() : this.exception;
+      throw ResponseEnvelope.createException( status, message, this.error, this.exception, this.responseCode );
+    }
+  }
+
+  /**
+   * Consumer of the raw elements of a list.
+   */
+  static interface ElementHandler {
+
+    /**
+     * @param parser
+     *          parser positioned at the start of the element, which has to be consumed up to its end.
+     */
+    void handle( JsonParser parser ) throws IOException;
+
+  }
+
+  private static PaymillException createException( int status, String message, JsonNode error, String exception, Integer responseCode ) {
+    if( message == null ) {
+      message = "HTTP " + status;
+    }
+    Map<String, String> fieldErrors = ResponseEnvelope.readFieldErrors( error );
+
+    if( status == 401 || status == 403 ) {
+      return new AuthenticationException( message, status, exception, responseCode, fieldErrors );
+    }
+    if( status == 404 || StringUtils.endsWith( exception, "_not_found" ) ) {
+      return new NotFoundException( message, status, exception, responseCode, fieldErrors );
+    }
+    if( status == 429 ) {
+      return new RateLimitException( message, status, exception, responseCode, fieldErrors );
+    }
+    if( status >= 500 ) {
+      return new ServerException( message, status, exception, responseCode, fieldErrors );
+    }
+    if( status >= 400 || !fieldErrors.isEmpty() ) {
+      return new ValidationException( message, status, exception, responseCode, fieldErrors );
+    }
+    return new PaymillException( message, status, exception, responseCode, fieldErrors, false );
+  }
+
+  /**
+   * PAYMILL reports invalid parameters either as <code>{"field":"amount","messages":{"isEmpty":"..."}}</code> or as an object
+   * with a message or an object of messages per parameter. Any other error object, e.g. with a <code>message</code> or
+   * <code>code</code> member, has no field errors.
+   */
+  private static Map<String, String> readFieldErrors( JsonNode error ) {
+    Map<String, String> fieldErrors = new LinkedHashMap<String, String>();
+    if( error == null || !error.isObject() ) {
+      return fieldErrors;
+    }
+    if( error.has( "field" ) ) {
+      JsonNode field = error.get( "field" );
+      JsonNode messages = error.get( "messages" );
+      if( !field.isTextual() || (messages != null && !messages.isContainerNode()) ) {
+        return fieldErrors;
+      }
+      fieldErrors.put( field.asText(), ResponseEnvelope.joinMessages( messages ) );
+      return fieldErrors;
+    }
+    Iterator<Map.Entry<String, JsonNode>> entries = error.fields();
+    while( entries.hasNext() ) {
+      Map.Entry<String, JsonNode> entry = entries.next();
+      JsonNode value = entry.getValue();
+      if( ResponseEnvelope.RESERVED.contains( entry.getKey() ) || !(value.isTextual() || ResponseEnvelope.isMessages( value )) ) {
+        return new LinkedHashMap<String, String>();
+      }
+      fieldErrors.put( entry.getKey(), value.isTextual() ? value.asText() : ResponseEnvelope.joinMessages( value ) );
+    }
+    return fieldErrors;
+  }
+
+  /**
+   * @return <code>true</code> for an object, whose members are all texts.
+   */
+  private static boolean isMessages( JsonNode node ) {
+    if( !node.isObject() || node.size() == 0 ) {
+      return false;
+    }
+    for( JsonNode message : node ) {
+      if( !message.isTextual() ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String joinMessages( JsonNode messages ) {
+    List<String> texts = new ArrayList<String>();
+    if( messages != null ) {
+      for( JsonNode message : messages ) {
+        texts.add( message.asText() );
+      }
+    }
+    return StringUtils.join( texts, "; " );
+  }
+
+}
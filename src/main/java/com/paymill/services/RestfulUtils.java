@@ -1,56 +1,177 @@
 package com.paymill.services;
 
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
+import com.paymill.utils.Flow;
 import com.paymill.utils.HttpClient;
+import com.paymill.utils.HttpResponse;
+import com.paymill.utils.JacksonCodec;
+import com.paymill.utils.JsonCodec;
 import com.paymill.utils.ParameterMap;
-import org.apache.commons.beanutils.BeanUtils;
+import com.paymill.utils.ResponseAwareHttpClient;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.paymill.context.PaymillContext;
-import com.paymill.exceptions.PaymillException;
 import com.paymill.models.PaymillList;
-import com.paymill.models.SnakeCase;
-import com.paymill.models.Updateable;
+import com.paymill.models.Projection;
 
 final class RestfulUtils {
 
-  private final static String ENDPOINT = "https://api.paymill.com/v2.1";
+  private final static String    ENDPOINT      = "https://api.paymill.com/v2.1";
+
+  /**
+   * Binds responses of clients, which do not belong to a context.
+   */
+  private final static JsonCodec DEFAULT_CODEC = new JacksonCodec( PaymillContext.PARSER );
 
   static <T> PaymillList<T> list( String path, Object filter, Object order, Integer count, Integer offset, Class<?> clazz, HttpClient httpClient ) {
+    return RestfulUtils.list( path, filter, order, count, offset, null, clazz, httpClient );
+  }
+
+  static <T> PaymillList<T> list( String path, Object filter, Object order, Integer count, Integer offset, Projection projection, Class<?> clazz,
+      HttpClient httpClient ) {
+    return RestfulUtils.list( path, RestfulUtils.query( filter, order, count, clazz ), offset, projection, httpClient );
+  }
+
+  static <T> PaymillList<T> list( String path, Query<?> query, Integer offset, Projection projection, HttpClient httpClient ) {
+    ParameterMap<String, String> params = query.toParameters( offset );
+    PaymillList<T> list = ResponseEnvelope.readList( RestfulUtils.execute( "GET", ENDPOINT + path, params, httpClient ), projection, query.getModelClass(),
+        RestfulUtils.codecOf( httpClient ) );
+    return RestfulUtils.takeSnapshots( list, query.getModelClass() );
+  }
+
+  /**
+   * Lists a page of the given size and records its latency and size in the controller.
+   */
+  static <T> PaymillList<T> page( String path, Query<?> query, int offset, int count, PageSizeController controller, HttpClient httpClient ) {
+    long start = System.nanoTime();
+    HttpResponse response = RestfulUtils.execute( "GET", ENDPOINT + path, query.withCount( count ).toParameters( offset ), httpClient );
+    CountingInputStream content = response.getContent() != null ? new CountingInputStream( response.getContent() ) : null;
+    long bytes = content == null && response.getBody() != null ? RestfulUtils.utf8Length( response.getBody() ) : 0;
+    if( content != null ) {
+      response = new HttpResponse( response.getStatus(), content );
+    }
+    PaymillList<T> list = ResponseEnvelope.readList( response, null, query.getModelClass(), RestfulUtils.codecOf( httpClient ) );
+    int rows = list != null && list.getData() != null ? list.getData().size() : 0;
+    controller.record( count, rows, System.nanoTime() - start, content != null ? content.getCount() : bytes );
+    return RestfulUtils.takeSnapshots( list, query.getModelClass() );
+  }
+
+  static Integer stream( String path, Query<?> query, Integer offset, ResponseEnvelope.ElementHandler handler, HttpClient httpClient ) {
+    return ResponseEnvelope.readList( RestfulUtils.execute( "GET", ENDPOINT + path, query.toParameters( offset ), httpClient ), handler );
+  }
+
+  static long export( String path, Query<?> query, Export export, File file, HttpClient httpClient ) throws IOException {
+    return new Exporter( path, query, export, file, httpClient ).run();
+  }
+
+  static <T> Iterable<T> iterate( String path, Query<T> query, ExecutorService executor, HttpClient httpClient ) {
+    return PageIterator.iterable( path, query, executor, httpClient );
+  }
+
+  static <T> Iterable<T> scan( String path, Query<T> query, PageSizeController controller, ExecutorService executor, HttpClient httpClient ) {
+    if( controller == null )
+      throw new IllegalArgumentException( "Page size controller can not be null" );
+    return PageIterator.iterable( path, query, executor, httpClient, controller );
+  }
+
+  static <T> Iterable<T> iterate( String path, Query<T> query, int parallelism, boolean ordered, ExecutorService executor, HttpClient httpClient ) {
+    return ParallelPageIterator.iterable( path, query, executor, httpClient, parallelism, ordered );
+  }
+
+  static <T> PageRange<T> pages( String path, Query<T> query, HttpClient httpClient ) {
+    return PageRange.of( path, query, httpClient );
+  }
+
+  static <T> Iterable<T> scan( String path, Query<T> query, Date start, Date end, int parallelism, ExecutorService executor, HttpClient httpClient ) {
+    return RestfulUtils.scan( path, query, start, end, parallelism, null, executor, httpClient );
+  }
+
+  static <T> Iterable<T> scan( String path, Query<T> query, Date start, Date end, int parallelism, PageSizeController controller,
+      ExecutorService executor, HttpClient httpClient ) {
+    if( start == null )
+      throw new IllegalArgumentException( "Start date can not be null" );
+    long endSeconds = (end != null ? end.getTime() : System.currentTimeMillis()) / 1000;
+    return ShardedPageIterator.iterable( path, query, executor, httpClient, start.getTime() / 1000, endSeconds, parallelism, controller );
+  }
+
+  static <T> Iterable<T> merge( String path, List<Query<T>> queries, ExecutorService executor, HttpClient httpClient ) {
+    if( queries == null || queries.isEmpty() )
+      throw new IllegalArgumentException( "Queries can not be empty" );
+    String order = queries.get( 0 ).getParameter( "order" );
+    List<Iterable<T>> sources = new ArrayList<Iterable<T>>( queries.size() );
+    for( Query<T> query : queries ) {
+      if( !StringUtils.equals( order, query.getParameter( "order" ) ) )
+        throw new IllegalArgumentException( "Can not merge queries with different orders" );
+      sources.add( PageIterator.iterable( path, query, executor, httpClient ) );
+    }
+    return MergingIterator.iterable( sources, MergingIterator.comparator( queries.get( 0 ).getModelClass(), order ) );
+  }
+
+  static <T> Flow.Publisher<T> publish( String path, Query<T> query, ExecutorService executor, HttpClient httpClient ) {
+    return new PagePublisher<T>( path, query, executor, httpClient );
+  }
+
+  static <T> Watermark sync( String path, Object filter, Class<T> clazz, Watermark watermark, ChangeListener<? super T> listener,
+      HttpClient httpClient ) {
+    Query<T> query = RestfulUtils.query( filter, null, ChangeSync.COUNT, clazz ).with( "order", "created_at_asc" );
+    return ChangeSync.sync( path, query, watermark, listener, httpClient, System.currentTimeMillis() / 1000 );
+  }
+
+  static <T> Query<T> query( Object filter, Object order, Integer count, Class<T> clazz ) {
     ParameterMap<String, String> params = RestfulUtils.prepareFilterParameters( filter );
     String param = RestfulUtils.prepareOrderParameter( order );
     if( StringUtils.isNotBlank( param ) && !StringUtils.startsWith( param, "_" ) ) {
       params.add( "order", param );
     }
     if( count != null && count > 0 ) {
+      // PAYMILL returns at most MAX_COUNT objects per page, paging detects the last page and steps offsets by the count
+      count = Math.min( count, PageSizeController.MAX_COUNT );
       params.add( "count", String.valueOf( count ) );
+    } else {
+      count = null;
     }
-    if( offset != null && offset >= 0 ) {
-      params.add( "offset", String.valueOf( offset ) );
-    }
-    return RestfulUtils.deserializeList( httpClient.get( ENDPOINT + path, params ), clazz );
+    return new Query<T>( clazz, params, count );
   }
 
   static <T> T show( String path, T target, Class<?> clazz, HttpClient httpClient ) {
+    return RestfulUtils.show( path, target, null, clazz, httpClient );
+  }
+
+  static <T> T show( String path, T target, Projection projection, Class<?> clazz, HttpClient httpClient ) {
     String id = RestfulUtils.getIdByReflection( target );
-    T source = RestfulUtils.deserializeObject( httpClient.get( ENDPOINT + path + "/" + id ), clazz );
+    T source = ResponseEnvelope.readObject( RestfulUtils.execute( "GET", ENDPOINT + path + "/" + id, null, httpClient ), projection, clazz,
+        RestfulUtils.codecOf( httpClient ) );
     return RestfulUtils.refreshInstance( source, target );
   }
 
   static <T> T create( String path, ParameterMap<String, String> params, Class<T> clazz, HttpClient httpClient ) {
-    return RestfulUtils.deserializeObject( httpClient.post( ENDPOINT + path, params ), clazz );
+    T object = ResponseEnvelope.readObject( RestfulUtils.execute( "POST", ENDPOINT + path, params, httpClient ), null, clazz, RestfulUtils.codecOf( httpClient ) );
+    RestfulUtils.takeSnapshot( ModelMetadata.of( clazz ), object );
+    return object;
   }
 
+  /**
+   * Sends the updateable fields of a model loaded from PAYMILL, which changed since it was loaded, or all non-<code>null</code>
+   * updateable fields of other models. If no field of a loaded model changed, no request is sent.
+   */
   static <T> T update( String path, T target, Class<?> clazz, HttpClient httpClient ) {
     ParameterMap<String, String> params = RestfulUtils.prepareEditableParameters( target );
+    ModelMetadata metadata = ModelMetadata.of( target.getClass() );
+    if( params.isEmpty() && metadata.hasSnapshot() && metadata.getSnapshot( target ) != null ) {
+      return target;
+    }
     String id = RestfulUtils.getIdByReflection( target );
-    T source = RestfulUtils.deserializeObject( httpClient.put( ENDPOINT + path + "/" + id, params ), clazz );
+    T source = ResponseEnvelope.readObject( RestfulUtils.execute( "PUT", ENDPOINT + path + "/" + id, params, httpClient ), null, clazz,
+        RestfulUtils.codecOf( httpClient ) );
     return RestfulUtils.refreshInstance( source, target );
   }
 
@@ -59,135 +180,131 @@ final class RestfulUtils {
     if( includeTargetUpdateables ) {
       params.putAll( RestfulUtils.prepareEditableParameters( target ) );
     }
-    T source = RestfulUtils.deserializeObject( httpClient.put( ENDPOINT + path + "/" + id, params ), clazz );
+    T source = ResponseEnvelope.readObject( RestfulUtils.execute( "PUT", ENDPOINT + path + "/" + id, params, httpClient ), null, clazz,
+        RestfulUtils.codecOf( httpClient ) );
     return RestfulUtils.refreshInstance( source, target );
   }
 
   static <T> T delete( String path, T target, ParameterMap<String, String> params, Class<?> clazz, HttpClient httpClient ) {
     String id = RestfulUtils.getIdByReflection( target );
-    T source = RestfulUtils.deserializeObject( httpClient.delete( ENDPOINT + path + "/" + id, params ), clazz );
+    T source = ResponseEnvelope.readObject( RestfulUtils.execute( "DELETE", ENDPOINT + path + "/" + id, params, httpClient ), null, clazz,
+        RestfulUtils.codecOf( httpClient ) );
     return RestfulUtils.refreshInstance( source, target );
   }
 
   static <T> T delete( String path, T target, Class<?> clazz, HttpClient httpClient ) {
     String id = RestfulUtils.getIdByReflection( target );
-    T source = RestfulUtils.deserializeObject( httpClient.delete( ENDPOINT + path + "/" + id, null ), clazz );
+    T source = ResponseEnvelope.readObject( RestfulUtils.execute( "DELETE", ENDPOINT + path + "/" + id, null, httpClient ), null, clazz,
+        RestfulUtils.codecOf( httpClient ) );
     return RestfulUtils.refreshInstance( source, target );
   }
 
   private static String getIdByReflection( Object instance ) {
     if( instance == null )
       throw new RuntimeException( "Can not obtain Id from null" );
-    try {
-      Field field = instance.getClass().getDeclaredField( "id" );
-      field.setAccessible( true );
-      String id = String.valueOf( field.get( instance ) );
-      ValidationUtils.validatesId( id );
-      return id;
-    } catch( Exception exc ) {
-      throw new RuntimeException( exc );
-    }
-  }
-
-  @SuppressWarnings( "unchecked" )
-  private static <T> T deserializeObject( String content, Class<?> clazz ) {
-    try {
-      JsonNode wrappedNode = PaymillContext.PARSER.readValue( content, JsonNode.class );
-      if( wrappedNode.has( "data" ) ) {
-        JsonNode dataNode = wrappedNode.get( "data" );
-        if( !dataNode.isArray() ) {
-          return (T) PaymillContext.PARSER.readValue( dataNode.toString(), clazz );
-        }
-      }
-      if( wrappedNode.has( "error" ) ) {
-        throw new PaymillException( wrappedNode.get( "error" ).toString() );
-      }
-    } catch( IOException exc ) {
-      throw new RuntimeException( exc );
-    }
-    return null;
-  }
-
-  @SuppressWarnings( "unchecked" )
-  private static <T> PaymillList<T> deserializeList( String content, Class<?> clazz ) {
-    try {
-      JsonNode wrappedNode = PaymillContext.PARSER.readValue( content, JsonNode.class );
-      PaymillList<T> wrapper = PaymillContext.PARSER.readValue( wrappedNode.toString(), PaymillList.class );
-      if( wrappedNode.has( "data" ) ) {
-        JsonNode dataNode = wrappedNode.get( "data" );
-        if( dataNode.isArray() ) {
-          List<T> objects = new ArrayList<T>();
-          for( Object object : PaymillContext.PARSER.readValue( wrappedNode.toString(), PaymillList.class ).getData() ) {
-            try {
-              objects.add( (T) PaymillContext.PARSER.readValue( PaymillContext.PARSER.writeValueAsString( object ), clazz ) );
-            } catch( Exception exc ) {
-              throw new RuntimeException( exc );
-            }
-          }
-          wrapper.setData( objects );
-          return wrapper;
-        }
-      }
-      if( wrappedNode.has( "error" ) ) {
-        throw new PaymillException( wrappedNode.get( "error" ).toString() );
-      }
-    } catch( IOException exc ) {
-      throw new RuntimeException( exc );
+    ModelMetadata metadata = ModelMetadata.of( instance.getClass() );
+    if( !metadata.hasId() )
+      throw new RuntimeException( "Can not obtain Id from " + instance.getClass().getName() );
+    String id = String.valueOf( metadata.getId( instance ) );
+    ValidationUtils.validatesId( id );
+    return id;
+  }
+
+  private static HttpResponse execute( String method, String url, ParameterMap<String, String> params, HttpClient httpClient ) {
+    if( httpClient instanceof ContextHttpClient ) {
+      httpClient = ((ContextHttpClient) httpClient).getHttpClient();
     }
-    return null;
+    if( httpClient instanceof ResponseAwareHttpClient ) {
+      return ((ResponseAwareHttpClient) httpClient).execute( method, url, params );
+    }
+    if( "POST".equals( method ) ) {
+      return new HttpResponse( 0, httpClient.post( url, params ) );
+    } else if( "PUT".equals( method ) ) {
+      return new HttpResponse( 0, httpClient.put( url, params ) );
+    } else if( "DELETE".equals( method ) ) {
+      return new HttpResponse( 0, httpClient.delete( url, params ) );
+    } else if( params == null ) {
+      return new HttpResponse( 0, httpClient.get( url ) );
+    }
+    return new HttpResponse( 0, httpClient.get( url, params ) );
+  }
+
+  /**
+   * @return the {@link JsonCodec} of the context, which created the client, or the default codec.
+   */
+  private static JsonCodec codecOf( HttpClient httpClient ) {
+    return httpClient instanceof ContextHttpClient ? ((ContextHttpClient) httpClient).getCodec() : RestfulUtils.DEFAULT_CODEC;
   }
 
   private static ParameterMap<String, String> prepareEditableParameters( Object instance ) {
     ParameterMap<String, String> params = new ParameterMap<String, String>();
+    ModelMetadata metadata = ModelMetadata.of( instance.getClass() );
+    String[] snapshot = metadata.hasSnapshot() ? metadata.getSnapshot( instance ) : null;
 
-    for( Field field : instance.getClass().getDeclaredFields() ) {
-      Updateable updateable = field.getAnnotation( Updateable.class );
-      if( updateable != null ) {
-        try {
-          field.setAccessible( true );
-          Object value = field.get( instance );
-          if( value != null ) {
-            Class<?> clazz = value.getClass();
-            if( ClassUtils.isPrimitiveOrWrapper( clazz ) || ClassUtils.getSimpleName( clazz ).equals( "String" ) ) {
-              params.add( updateable.value(), String.valueOf( value ) );
-            } else {
-              // not primitive type, assume ID
-              String id = null;
-              try {
-                id = RestfulUtils.getIdByReflection( value );
-              } catch( Exception e ) {
-                //that's normal, object does not have an id
-              }
-              if( id != null ) {
-                params.add( updateable.value(), id );
-              } else {
-                params.add( updateable.value(), value.toString() );
-              }
-            }
-          }
-        } catch( Exception exc ) {
-          throw new RuntimeException( exc );
+    List<ModelMetadata.Accessor> updateables = metadata.getUpdateables();
+    for( int i = 0; i < updateables.size(); i++ ) {
+      ModelMetadata.Accessor updateable = updateables.get( i );
+      Object value = updateable.get( instance );
+      if( value != null ) {
+        String param = RestfulUtils.toParameter( value );
+        if( snapshot == null || !param.equals( snapshot[i] ) ) {
+          params.add( updateable.getName(), param );
         }
       }
     }
     return params;
   }
 
+  private static String toParameter( Object value ) {
+    Class<?> clazz = value.getClass();
+    if( ClassUtils.isPrimitiveOrWrapper( clazz ) || clazz == String.class ) {
+      return String.valueOf( value );
+    }
+    // not primitive type, assume ID
+    ModelMetadata metadata = ModelMetadata.of( clazz );
+    Object id = metadata.hasId() ? metadata.getId( value ) : null;
+    if( id != null && StringUtils.isNotBlank( String.valueOf( id ) ) ) {
+      return String.valueOf( id );
+    }
+    return value.toString();
+  }
+
+  /**
+   * Remembers the parameter values of the updateable fields of a model, which was loaded from PAYMILL.
+   */
+  private static <T> PaymillList<T> takeSnapshots( PaymillList<T> list, Class<?> clazz ) {
+    ModelMetadata metadata = ModelMetadata.of( clazz );
+    if( metadata.hasSnapshot() && list != null && list.getData() != null ) {
+      for( T object : list.getData() ) {
+        RestfulUtils.takeSnapshot( metadata, object );
+      }
+    }
+    return list;
+  }
+
+  private static void takeSnapshot( ModelMetadata metadata, Object instance ) {
+    if( instance == null || !metadata.hasSnapshot() ) {
+      return;
+    }
+    List<ModelMetadata.Accessor> updateables = metadata.getUpdateables();
+    String[] snapshot = new String[updateables.size()];
+    for( int i = 0; i < snapshot.length; i++ ) {
+      Object value = updateables.get( i ).get( instance );
+      snapshot[i] = value != null ? RestfulUtils.toParameter( value ) : null;
+    }
+    metadata.setSnapshot( instance, snapshot );
+  }
+
   private static ParameterMap<String, String> prepareFilterParameters( Object instance ) {
     ParameterMap<String, String> params = new ParameterMap<String, String>();
 
     if( instance == null )
       return params;
-    try {
-      for( Field field : instance.getClass().getDeclaredFields() ) {
-        field.setAccessible( true );
-        Object value = field.get( instance );
-        if( value != null ) {
-          params.add( field.getAnnotation( SnakeCase.class ).value(), String.valueOf( value ) );
-        }
+    for( ModelMetadata.Accessor snakeCase : ModelMetadata.of( instance.getClass() ).getSnakeCases() ) {
+      Object value = snakeCase.get( instance );
+      if( value != null ) {
+        params.add( snakeCase.getName(), String.valueOf( value ) );
       }
-    } catch( Exception exc ) {
-      throw new RuntimeException( exc );
     }
     return params;
   }
@@ -197,20 +314,14 @@ final class RestfulUtils {
       return StringUtils.EMPTY;
     String order = StringUtils.EMPTY;
     String sortEntry = StringUtils.EMPTY;
-    try {
-      for( Field field : instance.getClass().getDeclaredFields() ) {
-        field.setAccessible( true );
-        if( field.getBoolean( instance ) ) {
-          SnakeCase annotation = field.getAnnotation( SnakeCase.class );
-          if( annotation.order() ) {
-            order += "_" + annotation.value();
-          } else {
-            sortEntry = annotation.value();
-          }
+    for( ModelMetadata.Accessor snakeCase : ModelMetadata.of( instance.getClass() ).getSnakeCases() ) {
+      if( snakeCase.getBoolean( instance ) ) {
+        if( snakeCase.isOrder() ) {
+          order += "_" + snakeCase.getName();
+        } else {
+          sortEntry = snakeCase.getName();
         }
       }
-    } catch( Exception exc ) {
-      throw new RuntimeException( exc );
     }
     return sortEntry + order;
   }
@@ -219,12 +330,69 @@ final class RestfulUtils {
     if( source == null ) {
       return target;
     }
-    try {
-      BeanUtils.copyProperties( target, source );
-    } catch( Exception exc ) {
-      throw new RuntimeException( exc );
+    if( source.getClass() != target.getClass() ) {
+      throw new RuntimeException( "Can not refresh " + target.getClass().getName() + " from " + source.getClass().getName() );
     }
+    ModelMetadata metadata = ModelMetadata.of( target.getClass() );
+    metadata.copy( source, target );
+    RestfulUtils.takeSnapshot( metadata, target );
     return target;
   }
 
+  /**
+   * Returns the number of bytes of the given text in UTF-8, without encoding it.
+   */
+  static long utf8Length( String text ) {
+    long length = 0;
+    for( int i = 0; i < text.length(); i++ ) {
+      char c = text.charAt( i );
+      if( c < 0x80 ) {
+        length += 1;
+      } else if( c < 0x800 ) {
+        length += 2;
+      } else if( Character.isHighSurrogate( c ) && i + 1 < text.length() && Character.isLowSurrogate( text.charAt( i + 1 ) ) ) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Counts the bytes of a response, while it is parsed.
+   */
+  private static final class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    private CountingInputStream( InputStream input ) {
+      super( input );
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if( b != -1 ) {
+        this.count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+      int read = super.read( b, off, len );
+      if( read > 0 ) {
+        this.count += read;
+      }
+      return read;
+    }
+
+    private long getCount() {
+      return this.count;
+    }
+
+  }
+
 }
@@ -0,0 +1,243 @@
+package com.paymill.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.paymill.models.PaymillList;
+import com.paymill.utils.HttpClient;
+
+/**
+ * Iterates over all objects of a {@link Query}, which were created in a fixed time window. The window is split into shards by
+ * <code>created_at</code>, which are scanned concurrently in ascending order of creation. Each shard is probed with its first
+ * page: shards with more than {@value #PAGES_PER_SHARD} pages are split again, in proportion to their size, all others are read
+ * with small offsets. A shard, which can not be split any further, like a single second with many objects, is read in runs of
+ * {@value #PAGES_PER_SHARD} pages, each continuing at the offset where the previous one stopped. Objects created during the scan
+ * lie after the end of the window, so they neither shift the offsets of a shard nor appear in the result.
+ * <p>
+ * The objects are returned in the order of the shards; at most <code>parallelism</code> runs of at most {@value #PAGES_PER_SHARD}
+ * pages are read or held at a time.
+ */
+final class ShardedPageIterator<T> implements Iterator<T> {
+
+  /**
+   * Maximum number of pages read from a single shard, before it is split or continued by a later read.
+   */
+  private final static int         PAGES_PER_SHARD = 10;
+
+  private final String             path;
+
+  private final Query<T>           query;
+
+  private final ExecutorService    executor;
+
+  private final HttpClient         httpClient;
+
+  private final int                parallelism;
+
+  private final int                count;
+
+  private final PageSizeController controller;
+
+  private final LinkedList<Shard>  shards          = new LinkedList<Shard>();
+
+  private List<T>                  page            = Collections.emptyList();
+
+  private int                      index;
+
+  ShardedPageIterator( final String path, final Query<T> query, final ExecutorService executor, final HttpClient httpClient, final long start,
+      final long end, final int parallelism, final PageSizeController controller ) {
+    this.path = path;
+    this.query = query.with( "order", "created_at_asc" );
+    this.executor = executor;
+    this.httpClient = httpClient;
+    this.parallelism = parallelism;
+    this.count = query.getCount() != null ? query.getCount() : PageIterator.DEFAULT_COUNT;
+    this.controller = controller;
+    this.shards.addAll( this.split( start, end, parallelism ) );
+  }
+
+  /**
+   * @param start
+   *          start of the window, in seconds since the epoch.
+   * @param end
+   *          inclusive end of the window, in seconds since the epoch.
+   * @param controller
+   *          {@link PageSizeController}, which chooses the size of each page, or <code>null</code> for the count of the query.
+   */
+  static <T> Iterable<T> iterable( final String path, final Query<T> query, final ExecutorService executor, final HttpClient httpClient,
+      final long start, final long end, final int parallelism, final PageSizeController controller ) {
+    if( parallelism < 1 ) {
+      throw new IllegalArgumentException( "Parallelism must be positive" );
+    }
+    if( end < start ) {
+      throw new IllegalArgumentException( "End of the window can not be before its start" );
+    }
+    return new Iterable<T>() {
+
+      @Override
+      public Iterator<T> iterator() {
+        return new ShardedPageIterator<T>( path, query, executor, httpClient, start, end, parallelism, controller );
+      }
+
+    };
+  }
+
+  @Override
+  public boolean hasNext() {
+    while( this.index >= this.page.size() ) {
+      if( this.shards.isEmpty() ) {
+        return false;
+      }
+      this.submit();
+      Shard shard = this.shards.removeFirst();
+      Result<T> result = PageIterator.await( shard.future );
+      if( result.shards != null ) {
+        this.shards.addAll( 0, result.shards );
+      }
+      if( result.objects != null ) {
+        this.page = result.objects;
+        this.index = 0;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if( !this.hasNext() ) {
+      throw new NoSuchElementException();
+    }
+    return this.page.get( this.index++ );
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Starts reading the first shards, which are not read yet.
+   */
+  private void submit() {
+    int submitted = 0;
+    for( final Shard shard : this.shards ) {
+      if( submitted++ == this.parallelism ) {
+        break;
+      }
+      if( shard.future == null ) {
+        shard.future = this.executor.submit( new Callable<Result<T>>() {
+
+          @Override
+          public Result<T> call() {
+            return ShardedPageIterator.this.read( shard );
+          }
+
+        } );
+      }
+    }
+  }
+
+  /**
+   * Reads up to {@value #PAGES_PER_SHARD} pages of a shard, starting at its offset. A fresh shard, which holds more objects, is
+   * split, if its window allows; otherwise the rest of the shard is continued by a later read.
+   */
+  private Result<T> read( final Shard shard ) {
+    Query<T> query = this.query.with( "created_at", shard.start + "-" + shard.end );
+    int count = this.pageSize();
+    PaymillList<T> list = this.fetch( query, shard.offset, count );
+    List<T> data = ShardedPageIterator.dataOf( list );
+    Integer dataCount = list != null && list.hasDataCount() ? list.getDataCount() : null;
+
+    int limit = count * ShardedPageIterator.PAGES_PER_SHARD;
+    if( shard.offset == 0 && dataCount != null && dataCount > limit && shard.end > shard.start ) {
+      int pieces = (int) Math.min( (dataCount + limit - 1) / limit, shard.end - shard.start + 1 );
+      return new Result<T>( null, this.split( shard.start, shard.end, Math.max( pieces, 2 ) ) );
+    }
+
+    List<T> objects = new ArrayList<T>( Math.max( Math.min( dataCount != null ? dataCount - shard.offset : limit, limit ), 0 ) );
+    objects.addAll( data );
+    int pages = 1;
+    while( data.size() >= count && (dataCount == null || shard.offset + objects.size() < dataCount) ) {
+      if( pages++ == ShardedPageIterator.PAGES_PER_SHARD ) {
+        return new Result<T>( objects, Collections.singletonList( new Shard( shard.start, shard.end, shard.offset + objects.size() ) ) );
+      }
+      count = this.pageSize();
+      data = ShardedPageIterator.dataOf( this.fetch( query, shard.offset + objects.size(), count ) );
+      objects.addAll( data );
+    }
+    return new Result<T>( objects, null );
+  }
+
+  private PaymillList<T> fetch( final Query<T> query, final int offset, final int count ) {
+    if( this.controller != null ) {
+      return RestfulUtils.page( this.path, query, offset, count, this.controller, this.httpClient );
+    }
+    return RestfulUtils.list( this.path, query, offset, null, this.httpClient );
+  }
+
+  private int pageSize() {
+    return this.controller != null ? this.controller.getCount() : this.count;
+  }
+
+  /**
+   * Splits the inclusive range of seconds into the given number of adjacent shards.
+   */
+  private List<Shard> split( final long start, final long end, final int pieces ) {
+    long length = end - start + 1;
+    int count = (int) Math.min( pieces, length );
+    List<Shard> shards = new ArrayList<Shard>( count );
+    long from = start;
+    for( int i = 1; i <= count; i++ ) {
+      long to = start + length * i / count - 1;
+      shards.add( new Shard( from, to, 0 ) );
+      from = to + 1;
+    }
+    return shards;
+  }
+
+  private static <T> List<T> dataOf( final PaymillList<T> list ) {
+    return list != null && list.getData() != null ? list.getData() : Collections.<T> emptyList();
+  }
+
+  private final class Shard {
+
+    private final long        start;
+
+    private final long        end;
+
+    private final int         offset;
+
+    private Future<Result<T>> future;
+
+    private Shard( final long start, final long end, final int offset ) {
+      this.start = start;
+      this.end = end;
+      this.offset = offset;
+    }
+
+  }
+
+  /**
+   * The objects read from a shard, the shards, which replace it, or both, if the rest of the shard is read later.
+   */
+  private static final class Result<T> {
+
+    private final List<T>                              objects;
+
+    private final List<ShardedPageIterator<T>.Shard>   shards;
+
+    private Result( final List<T> objects, final List<ShardedPageIterator<T>.Shard> shards ) {
+      this.objects = objects;
+      this.shards = shards;
+    }
+
+  }
+
+}
@@ -1,16 +1,23 @@
 package com.paymill.services;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import com.paymill.models.Client;
 import com.paymill.models.Interval;
 import com.paymill.models.Offer;
 import com.paymill.models.Payment;
 import com.paymill.models.PaymillList;
+import com.paymill.models.Projection;
 import com.paymill.models.Subscription;
+import com.paymill.models.SubscriptionView;
 import com.paymill.models.Subscription.Creator;
+import com.paymill.utils.Flow;
 import com.paymill.utils.HttpClient;
+import com.paymill.utils.JsonCodec;
 import com.paymill.utils.ParameterMap;
 
 /**
@@ -22,8 +29,8 @@ public class SubscriptionService extends AbstractService {
 
   private final static String PATH = "/subscriptions";
 
-  private SubscriptionService( HttpClient httpClient ) {
-    super( httpClient );
+  private SubscriptionService( HttpClient httpClient, ExecutorService executor, JsonCodec codec ) {
+    super( httpClient, executor, codec );
   }
 
   /**
@@ -77,6 +84,266 @@ public class SubscriptionService extends AbstractService {
     return RestfulUtils.list( SubscriptionService.PATH, filter, order, count, offset, Subscription.class, super.httpClient );
   }
 
+  /**
+   * Compiles the filter, order and page size into an immutable {@link Query}, which lists PAYMILL {@link Subscription}s with
+   * {@link #list(Query, Integer)}. The filter and order are read only once, later changes to them do not affect the query.
+   * @param filter
+   *          {@link com.paymill.models.Subscription.Filter} or <code>null</code>
+   * @param order
+   *          {@link com.paymill.models.Subscription.Order} or <code>null</code>
+   * @param count
+   *          Max {@link Integer} of returned objects in each {@link PaymillList} or <code>null</code>
+   * @return the precompiled {@link Query}.
+   */
+  public Query<Subscription> query( Subscription.Filter filter, Subscription.Order order, Integer count ) {
+    return RestfulUtils.query( filter, order, count, Subscription.class );
+  }
+
+  /**
+   * This function returns a {@link List} of PAYMILL {@link Subscription} objects for a precompiled {@link Query}. Only the offset is
+   * added to the parameters of the query, so paging through a result does not read the filter and order again.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Subscription.Filter, com.paymill.models.Subscription.Order, Integer)}
+   * @param offset
+   *          {@link Integer} to start from.
+   * @return {@link PaymillList} which contains a {@link List} of PAYMILL {@link Subscription}s and their total count.
+   */
+  public PaymillList<Subscription> list( Query<Subscription> query, Integer offset ) {
+    return RestfulUtils.list( SubscriptionService.PATH, query, offset, null, super.httpClient );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Subscription} objects, which match the optional filter, in the given order. Pages are
+   * fetched lazily while iterating and the next page is prefetched in the background, so at most two pages are held in memory.
+   * @param filter
+   *          {@link com.paymill.models.Subscription.Filter} or <code>null</code>
+   * @param order
+   *          {@link com.paymill.models.Subscription.Order} or <code>null</code>
+   * @return {@link Iterable} over all matching PAYMILL {@link Subscription}s.
+   */
+  public Iterable<Subscription> iterate( Subscription.Filter filter, Subscription.Order order ) {
+    return this.iterate( this.query( filter, order, null ) );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Subscription} objects of a precompiled {@link Query}, which are fetched lazily with the
+   * page size of the query.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Subscription.Filter, com.paymill.models.Subscription.Order, Integer)}
+   * @return {@link Iterable} over all matching PAYMILL {@link Subscription}s.
+   */
+  public Iterable<Subscription> iterate( Query<Subscription> query ) {
+    return RestfulUtils.iterate( SubscriptionService.PATH, query, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Subscription} objects of a precompiled {@link Query} in a sequential scan, which fetches the
+   * pages lazily with the size chosen by the controller. The controller tunes the page size towards its target latency and
+   * response size.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Subscription.Filter, com.paymill.models.Subscription.Order, Integer)}
+   * @param controller
+   *          {@link PageSizeController}, which measures the pages and chooses their size.
+   * @return {@link Iterable} over all matching PAYMILL {@link Subscription}s.
+   */
+  public Iterable<Subscription> scan( Query<Subscription> query, PageSizeController controller ) {
+    return RestfulUtils.scan( SubscriptionService.PATH, query, controller, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Subscription} objects of a precompiled {@link Query} and fetches several pages at once.
+   * The offsets of all pages are planned from the <code>data_count</code> of the first page. Use it for full scans of large
+   * accounts; the parallelism should stay below the rate limit of the account.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Subscription.Filter, com.paymill.models.Subscription.Order, Integer)}
+   * @param parallelism
+   *          maximum number of pages fetched at once.
+   * @param ordered
+   *          <code>true</code> to return the objects in the order of the query, <code>false</code> to return each page as soon as
+   *          it arrives.
+   * @return {@link Iterable} over all matching PAYMILL {@link Subscription}s.
+   */
+  public Iterable<Subscription> iterate( Query<Subscription> query, int parallelism, boolean ordered ) {
+    return RestfulUtils.iterate( SubscriptionService.PATH, query, parallelism, ordered, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns a {@link PageRange} over all PAYMILL {@link Subscription} objects of a precompiled {@link Query}, which can be
+   * split by pages and processed concurrently. The first page is fetched at once, its <code>data_count</code> is the size of the
+   * range; all other pages are fetched by the range, which holds them, while it is iterated.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Subscription.Filter, com.paymill.models.Subscription.Order, Integer)}
+   * @return {@link PageRange} over all matching PAYMILL {@link Subscription}s.
+   */
+  public PageRange<Subscription> pages( Query<Subscription> query ) {
+    return RestfulUtils.pages( SubscriptionService.PATH, query, super.httpClient );
+  }
+
+  /**
+   * This function loads the referenced {@link Client}, {@link Payment} and {@link Offer} of the given PAYMILL
+   * {@link Subscription} objects, e.g. of a page, and attaches them to the {@link Subscription}s. Each distinct reference is
+   * fetched once and only if no {@link Subscription} holds it loaded already; the requests run concurrently.
+   * @param subscriptions
+   *          {@link List} of {@link Subscription}s, which are updated in place.
+   * @param parallelism
+   *          maximum number of concurrent requests.
+   * @return the given {@link List} of {@link Subscription}s.
+   */
+  public List<Subscription> resolve( List<Subscription> subscriptions, int parallelism ) {
+    return ReferenceResolver.resolve( subscriptions, parallelism, super.executor, super.httpClient, "client", "payment", "offer" );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Subscription} objects of a precompiled {@link Query}, which were created in the given
+   * time window, in ascending order of creation. The window is split into shards by creation date, which are read concurrently
+   * with small offsets; shards with many objects are split further. A created at filter and order of the query are replaced.
+   * Objects created while scanning a window, which ends in the past, do not affect the result.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Subscription.Filter, com.paymill.models.Subscription.Order, Integer)}
+   * @param start
+   *          start of the window.
+   * @param end
+   *          end of the window or <code>null</code> for now.
+   * @param parallelism
+   *          maximum number of shards read at once.
+   * @throws IllegalArgumentException
+   *           When start is <code>null</code> or after end.
+   * @return {@link Iterable} over all matching PAYMILL {@link Subscription}s of the window.
+   */
+  public Iterable<Subscription> scan( Query<Subscription> query, Date start, Date end, int parallelism ) {
+    return RestfulUtils.scan( SubscriptionService.PATH, query, start, end, parallelism, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns all PAYMILL {@link Subscription} objects of a precompiled {@link Query}, which were created in the given
+   * time window, like {@link #scan(Query, Date, Date, int)}. The size of each page is chosen by the controller, which can be
+   * shared by concurrent scans.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Subscription.Filter, com.paymill.models.Subscription.Order, Integer)}
+   * @param start
+   *          start of the window.
+   * @param end
+   *          end of the window or <code>null</code> for now.
+   * @param parallelism
+   *          maximum number of shards read at once.
+   * @param controller
+   *          {@link PageSizeController}, which measures the pages and chooses their size.
+   * @throws IllegalArgumentException
+   *           When start is <code>null</code> or after end.
+   * @return {@link Iterable} over all matching PAYMILL {@link Subscription}s of the window.
+   */
+  public Iterable<Subscription> scan( Query<Subscription> query, Date start, Date end, int parallelism, PageSizeController controller ) {
+    return RestfulUtils.scan( SubscriptionService.PATH, query, start, end, parallelism, controller, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function merges the PAYMILL {@link Subscription} objects of several precompiled queries with the same order into a single
+   * {@link Iterable} in that order. Each query is paged lazily with a prefetched page, so the queries are read concurrently and
+   * only two pages of each are held in memory. Typically the queries split a large result by a filter, like shards of a scan.
+   * @param queries
+   *          {@link Query}s with the same {@link com.paymill.models.Subscription.Order}.
+   * @throws IllegalArgumentException
+   *           When the queries have no or different orders.
+   * @return {@link Iterable} over the PAYMILL {@link Subscription}s of all queries.
+   */
+  public Iterable<Subscription> merge( List<Query<Subscription>> queries ) {
+    return RestfulUtils.merge( SubscriptionService.PATH, queries, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function returns a {@link Flow.Publisher} of all PAYMILL {@link Subscription} objects, which match the optional filter, in the
+   * given order. Pages are fetched only as the subscriber requests objects, so a slow subscriber holds at most one page.
+   * @param filter
+   *          {@link com.paymill.models.Subscription.Filter} or <code>null</code>
+   * @param order
+   *          {@link com.paymill.models.Subscription.Order} or <code>null</code>
+   * @return {@link Flow.Publisher} of all matching PAYMILL {@link Subscription}s.
+   */
+  public Flow.Publisher<Subscription> publish( Subscription.Filter filter, Subscription.Order order ) {
+    return this.publish( this.query( filter, order, null ) );
+  }
+
+  /**
+   * This function returns a {@link Flow.Publisher} of all PAYMILL {@link Subscription} objects of a precompiled {@link Query}, which
+   * fetches pages with the page size of the query as the subscriber requests objects.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Subscription.Filter, com.paymill.models.Subscription.Order, Integer)}
+   * @return {@link Flow.Publisher} of all matching PAYMILL {@link Subscription}s.
+   */
+  public Flow.Publisher<Subscription> publish( Query<Subscription> query ) {
+    return RestfulUtils.publish( SubscriptionService.PATH, query, super.executor, super.httpClient );
+  }
+
+  /**
+   * This function writes all PAYMILL {@link Subscription} objects of a precompiled {@link Query} into a file, in the format of the
+   * {@link Export}. The objects are streamed page by page from the responses to the file, so the memory does not grow with their
+   * number. An interrupted export is resumed from its last page by the next export into the same file.
+   * @param query
+   *          {@link Query} created by {@link #query(com.paymill.models.Subscription.Filter, com.paymill.models.Subscription.Order, Integer)}
+   * @param export
+   *          {@link Export} with format, columns and compression of the file.
+   * @param file
+   *          the target file, which is replaced unless an export into it was interrupted.
+   * @return the number of exported {@link Subscription}s.
+   * @throws IOException
+   *           When the file can not be written.
+   */
+  public long export( Query<Subscription> query, Export export, File file ) throws IOException {
+    return RestfulUtils.export( SubscriptionService.PATH, query, export, file, super.httpClient );
+  }
+
+  /**
+   * This function delivers all PAYMILL {@link Subscription} objects, which match the optional filter and were created or updated since
+   * the given {@link Watermark}, to the listener. Only the changed objects are listed, so the cost of a sync grows with the number
+   * of changes. The filter for updatedAt is replaced by the window of the sync.
+   * @param filter
+   *          {@link com.paymill.models.Subscription.Filter} or <code>null</code>
+   * @param watermark
+   *          {@link Watermark} returned by the last sync or <code>null</code> to deliver all {@link Subscription}s as created.
+   * @param listener
+   *          {@link ChangeListener} of the created and updated {@link Subscription}s.
+   * @return {@link Watermark} to persist and pass to the next sync.
+   */
+  public Watermark sync( Subscription.Filter filter, Watermark watermark, ChangeListener<? super Subscription> listener ) {
+    return RestfulUtils.sync( SubscriptionService.PATH, filter, Subscription.class, watermark, listener, super.httpClient );
+  }
+
+  /**
+   * This function returns a {@link List} of immutable {@link SubscriptionView}s. Views hold amounts and timestamps as primitives and
+   * nested objects only as ids, which keeps large result sets small in memory.
+   * @param filter
+   *          {@link com.paymill.models.Subscription.Filter} or <code>null</code>
+   * @param order
+   *          {@link com.paymill.models.Subscription.Order} or <code>null</code>
+   * @param count
+   *          Max {@link Integer} of returned objects in the {@link PaymillList}
+   * @param offset
+   *          {@link Integer} to start from.
+   * @return {@link PaymillList} which contains a {@link List} of {@link SubscriptionView}s and their total count.
+   */
+  public PaymillList<SubscriptionView> listViews( Subscription.Filter filter, Subscription.Order order, Integer count, Integer offset ) {
+    return RestfulUtils.list( SubscriptionService.PATH, filter, order, count, offset, SubscriptionView.class, super.httpClient );
+  }
+
+  /**
+   * This function returns a {@link List} of PAYMILL {@link Subscription} objects, in which only the properties of the given
+   * {@link Projection} are bound. All other properties are skipped while decoding and remain <code>null</code>.
+   * @param filter
+   *          {@link com.paymill.models.Subscription.Filter} or <code>null</code>
+   * @param order
+   *          {@link com.paymill.models.Subscription.Order} or <code>null</code>
+   * @param count
+   *          Max {@link Integer} of returned objects in the {@link PaymillList}
+   * @param offset
+   *          {@link Integer} to start from.
+   * @param projection
+   *          {@link Projection} with the properties to bind or <code>null</code> to bind all properties.
+   * @return {@link PaymillList} which contains a {@link List} of projected PAYMILL {@link Subscription}s and their total count.
+   */
+  public PaymillList<Subscription> list( Subscription.Filter filter, Subscription.Order order, Integer count, Integer offset, Projection projection ) {
+    return RestfulUtils.list( SubscriptionService.PATH, filter, order, count, offset, projection, Subscription.class, super.httpClient );
+  }
+
   /**
    * This function refresh and returns the detailed information of the concrete requested {@link Subscription}.
    * @param subscription
@@ -97,6 +364,19 @@ public class SubscriptionService extends AbstractService {
     return this.get( new Subscription( subscriptionId ) );
   }
 
+  /**
+   * This function returns the {@link Subscription} with the given Id, in which only the properties of the given {@link Projection} are
+   * bound.
+   * @param subscriptionId
+   *          The Id of an existing {@link Subscription}.
+   * @param projection
+   *          {@link Projection} with the properties to bind or <code>null</code> to bind all properties.
+   * @return Projected instance of the requested {@link Subscription}.
+   */
+  public Subscription get( String subscriptionId, Projection projection ) {
+    return RestfulUtils.show( SubscriptionService.PATH, new Subscription( subscriptionId ), projection, Subscription.class, super.httpClient );
+  }
+
   /**
    * This function creates a {@link Subscription}. Use any of the static create methods in {@link Subscription} and include
    * additional options.<br />
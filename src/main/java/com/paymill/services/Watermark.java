@@ -0,0 +1,86 @@
+package com.paymill.services;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Position of an incremental sync, which is returned by the <code>sync</code> methods of the services and passed to the next
+ * sync. It holds the end of the last synced window and the objects, which were updated shortly before it, so the overlapping
+ * start of the next window does not deliver them twice. A watermark is immutable and is persisted by its {@link #toString()}.
+ * @since 5.1.4
+ */
+public final class Watermark {
+
+  private final long              seconds;
+
+  private final Map<String, Long> seen;
+
+  Watermark( final long seconds, final Map<String, Long> seen ) {
+    this.seconds = seconds;
+    this.seen = Collections.unmodifiableMap( seen );
+  }
+
+  /**
+   * @return the end of the last synced window.
+   */
+  public Date getDate() {
+    return new Date( this.seconds * 1000 );
+  }
+
+  long getSeconds() {
+    return this.seconds;
+  }
+
+  /**
+   * @return the last update in seconds of the objects near the end of the window, by their ids.
+   */
+  Map<String, Long> getSeen() {
+    return this.seen;
+  }
+
+  /**
+   * Restores a persisted watermark.
+   * @param value
+   *          the result of {@link #toString()}.
+   * @return the {@link Watermark} or <code>null</code>, if the value is blank.
+   * @throws IllegalArgumentException
+   *           When the value is not a watermark.
+   */
+  public static Watermark valueOf( final String value ) {
+    if( StringUtils.isBlank( value ) ) {
+      return null;
+    }
+    try {
+      String[] parts = StringUtils.split( value, ':' );
+      Map<String, Long> seen = new LinkedHashMap<String, Long>();
+      if( parts.length > 1 ) {
+        for( String entry : StringUtils.split( parts[1], ',' ) ) {
+          int index = entry.lastIndexOf( '=' );
+          seen.put( entry.substring( 0, index ), Long.valueOf( entry.substring( index + 1 ) ) );
+        }
+      }
+      return new Watermark( Long.parseLong( parts[0] ), seen );
+    } catch( RuntimeException exc ) {
+      throw new IllegalArgumentException( "Invalid watermark " + value, exc );
+    }
+  }
+
+  /**
+   * @return the persistent form of the watermark, like <code>1400000000:tran_1=1399999990</code>.
+   */
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder( String.valueOf( this.seconds ) );
+    char separator = ':';
+    for( Map.Entry<String, Long> entry : this.seen.entrySet() ) {
+      builder.append( separator ).append( entry.getKey() ).append( '=' ).append( entry.getValue() );
+      separator = ',';
+    }
+    return builder.toString();
+  }
+
+}
@@ -0,0 +1,57 @@
+package com.paymill.utils;
+
+/**
+ * Interfaces of a Reactive Streams publisher, with the same methods and rules as <code>java.util.concurrent.Flow</code> of Java 9
+ * and <code>org.reactivestreams</code>. They allow reactive pipelines to consume PAYMILL lists with backpressure, while the SDK
+ * still runs on Java 6; adapting them to either API only forwards the calls.
+ */
+public final class Flow {
+
+  private Flow() {
+    super();
+  }
+
+  /**
+   * Producer of objects, which are delivered to each {@link Subscriber} as requested by it.
+   */
+  public static interface Publisher<T> {
+
+    public void subscribe( Flow.Subscriber<? super T> subscriber );
+
+  }
+
+  /**
+   * Receiver of objects. Its methods are never called concurrently; {@link #onNext(Object)} is called at most as often as
+   * requested, followed by {@link #onComplete()} or {@link #onError(Throwable)}, unless the subscription was cancelled.
+   */
+  public static interface Subscriber<T> {
+
+    public void onSubscribe( Flow.Subscription subscription );
+
+    public void onNext( T item );
+
+    public void onError( Throwable throwable );
+
+    public void onComplete();
+
+  }
+
+  /**
+   * Link between a {@link Publisher} and a {@link Subscriber}.
+   */
+  public static interface Subscription {
+
+    /**
+     * Adds the given number of objects to the demand of the subscriber. A non positive number fails the subscription with an
+     * {@link IllegalArgumentException}.
+     */
+    public void request( long n );
+
+    /**
+     * Stops the delivery of objects; no further pages are fetched.
+     */
+    public void cancel();
+
+  }
+
+}
@@ -0,0 +1,118 @@
+package com.paymill.utils;
+
+/**
+ * Encodes a {@link ParameterMap} in insertion order as <code>application/x-www-form-urlencoded</code> body. The exact size of the
+ * body is computed first, so the parameters are written straight into a single byte array, without copying them into another map
+ * or going through the entity providers of the http client. The encoding is the same as the one of {@link java.net.URLEncoder} with UTF-8.
+ */
+final class FormEncoder {
+
+  private final static byte[] HEX  = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
+
+  private final static byte[] NONE = new byte[0];
+
+  private FormEncoder() {
+    super();
+  }
+
+  static byte[] encode( final ParameterMap<String, String> params ) {
+    if( params == null || params.isEmpty() ) {
+      return FormEncoder.NONE;
+    }
+
+    int size = -1;
+    for( int i = 0; i < params.size(); i++ ) {
+      int keySize = FormEncoder.encodedLength( params.keyAt( i ) );
+      for( int j = 0; j < params.valueCount( i ); j++ ) {
+        size += 1 + keySize + 1 + FormEncoder.encodedLength( params.valueAt( i, j ) );
+      }
+    }
+    if( size < 0 ) {
+      return FormEncoder.NONE;
+    }
+
+    byte[] body = new byte[size];
+    int position = 0;
+    for( int i = 0; i < params.size(); i++ ) {
+      for( int j = 0; j < params.valueCount( i ); j++ ) {
+        if( position > 0 ) {
+          body[position++] = '&';
+        }
+        position = FormEncoder.write( params.keyAt( i ), body, position );
+        body[position++] = '=';
+        position = FormEncoder.write( params.valueAt( i, j ), body, position );
+      }
+    }
+    return body;
+  }
+
+  private static boolean isSafe( final char c ) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '*' || c == '_';
+  }
+
+  private static int encodedLength( final String text ) {
+    if( text == null ) {
+      return 0;
+    }
+    int length = 0;
+    for( int i = 0; i < text.length(); i++ ) {
+      char c = text.charAt( i );
+      if( FormEncoder.isSafe( c ) || c == ' ' ) {
+        length += 1;
+      } else if( c < 0x80 ) {
+        length += 3;
+      } else if( c < 0x800 ) {
+        length += 6;
+      } else if( Character.isHighSurrogate( c ) && i + 1 < text.length() && Character.isLowSurrogate( text.charAt( i + 1 ) ) ) {
+        length += 12;
+        i++;
+      } else if( Character.isHighSurrogate( c ) || Character.isLowSurrogate( c ) ) {
+        // unpaired surrogate, encoded as '?' like the JDK does
+        length += 3;
+      } else {
+        length += 9;
+      }
+    }
+    return length;
+  }
+
+  private static int write( final String text, final byte[] body, int position ) {
+    if( text == null ) {
+      return position;
+    }
+    for( int i = 0; i < text.length(); i++ ) {
+      char c = text.charAt( i );
+      if( FormEncoder.isSafe( c ) ) {
+        body[position++] = (byte) c;
+      } else if( c == ' ' ) {
+        body[position++] = '+';
+      } else if( c < 0x80 ) {
+        position = FormEncoder.escape( c, body, position );
+      } else if( c < 0x800 ) {
+        position = FormEncoder.escape( 0xC0 | (c >> 6), body, position );
+        position = FormEncoder.escape( 0x80 | (c & 0x3F), body, position );
+      } else if( Character.isHighSurrogate( c ) && i + 1 < text.length() && Character.isLowSurrogate( text.charAt( i + 1 ) ) ) {
+        int codePoint = Character.toCodePoint( c, text.charAt( ++i ) );
+        position = FormEncoder.escape( 0xF0 | (codePoint >> 18), body, position );
+        position = FormEncoder.escape( 0x80 | ((codePoint >> 12) & 0x3F), body, position );
+        position = FormEncoder.escape( 0x80 | ((codePoint >> 6) & 0x3F), body, position );
+        position = FormEncoder.escape( 0x80 | (codePoint & 0x3F), body, position );
+      } else if( Character.isHighSurrogate( c ) || Character.isLowSurrogate( c ) ) {
+        position = FormEncoder.escape( '?', body, position );
+      } else {
+        position = FormEncoder.escape( 0xE0 | (c >> 12), body, position );
+        position = FormEncoder.escape( 0x80 | ((c >> 6) & 0x3F), body, position );
+        position = FormEncoder.escape( 0x80 | (c & 0x3F), body, position );
+      }
+    }
+    return position;
+  }
+
+  private static int escape( final int b, final byte[] body, int position ) {
+    body[position++] = '%';
+    body[position++] = FormEncoder.HEX[(b >> 4) & 0x0F];
+    body[position++] = FormEncoder.HEX[b & 0x0F];
+    return position;
+  }
+
+}
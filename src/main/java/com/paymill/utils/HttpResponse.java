@@ -0,0 +1,82 @@
+package com.paymill.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The status and the body of a response from PAYMILL. The body is either a {@link String} or the raw UTF-8 stream of the
+ * connection. A stream is handed to the JSON parser as it is, so the body is never materialized as {@link String} or
+ * <code>char[]</code> and the parser works on its own recycled byte buffers.
+ */
+public final class HttpResponse implements Closeable {
+
+  private final int         status;
+
+  private String            body;
+
+  private final InputStream content;
+
+  public HttpResponse( final int status, final String body ) {
+    this.status = status;
+    this.body = body;
+    this.content = null;
+  }
+
+  public HttpResponse( final int status, final InputStream content ) {
+    this.status = status;
+    this.body = null;
+    this.content = content;
+  }
+
+  /**
+   * @return the HTTP status code or <code>0</code>, if it is unknown.
+   */
+  public int getStatus() {
+    return this.status;
+  }
+
+  /**
+   * Returns the response body as {@link String}. If the response is backed by a stream, the stream is consumed.
+   * @return the response body or <code>null</code>.
+   */
+  public String getBody() {
+    if( this.body == null && this.content != null ) {
+      try {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while( (read = this.content.read( buffer )) != -1 ) {
+          output.write( buffer, 0, read );
+        }
+        this.body = output.toString( "UTF-8" );
+      } catch( IOException exc ) {
+        throw new RuntimeException( exc );
+      } finally {
+        this.close();
+      }
+    }
+    return this.body;
+  }
+
+  /**
+   * Returns the raw UTF-8 stream of the response body.
+   * @return {@link InputStream} or <code>null</code>, if the response is backed by a {@link String}.
+   */
+  public InputStream getContent() {
+    return this.content;
+  }
+
+  @Override
+  public void close() {
+    if( this.content != null ) {
+      try {
+        this.content.close();
+      } catch( IOException exc ) {
+        // nothing to do, the response is already consumed
+      }
+    }
+  }
+
+}
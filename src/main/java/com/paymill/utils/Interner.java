@@ -0,0 +1,94 @@
+package com.paymill.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, thread-safe canonicalizing map. The first value interned for a key becomes the canonical instance, which is returned
+ * for every further value with an equal key. Once the maximal size is reached, new keys are no longer stored and their values
+ * are returned as they are, so high-cardinality input can not grow the map without limit. Under concurrent use the size may
+ * exceed the limit by at most the number of interning threads.
+ * @param <K>
+ *          type of the keys.
+ * @param <V>
+ *          type of the canonical values.
+ */
+public final class Interner<K, V> {
+
+  private final ConcurrentMap<K, V> values;
+
+  private final AtomicInteger       size;
+
+  private final int                 maxSize;
+
+  /**
+   * @param maxSize
+   *          maximal number of canonical values.
+   */
+  public Interner( final int maxSize ) {
+    if( maxSize < 0 )
+      throw new IllegalArgumentException( "Maximal size can not be negative" );
+
+    this.values = new ConcurrentHashMap<K, V>();
+    this.size = new AtomicInteger();
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the canonical value for the given key. If there is none yet and the interner is not full, the given value becomes
+   * the canonical one.
+   * @param key
+   *          key of the value or <code>null</code>.
+   * @param value
+   *          value to intern.
+   * @return the canonical value or the given value, if the key is <code>null</code> or the interner is full.
+   */
+  public V intern( final K key, final V value ) {
+    if( key == null ) {
+      return value;
+    }
+    V canonical = this.values.get( key );
+    if( canonical != null ) {
+      return canonical;
+    }
+    if( this.size.get() >= this.maxSize ) {
+      return value;
+    }
+    canonical = this.values.putIfAbsent( key, value );
+    if( canonical != null ) {
+      return canonical;
+    }
+    this.size.incrementAndGet();
+    return value;
+  }
+
+  /**
+   * @param key
+   *          key of the value.
+   * @return the canonical value or <code>null</code>, if the key was not interned.
+   */
+  public V get( final K key ) {
+    return key != null ? this.values.get( key ) : null;
+  }
+
+  /**
+   * @return number of canonical values.
+   */
+  public int size() {
+    return this.size.get();
+  }
+
+  public int getMaxSize() {
+    return this.maxSize;
+  }
+
+  /**
+   * Removes all canonical values.
+   */
+  public void clear() {
+    this.values.clear();
+    this.size.set( 0 );
+  }
+
+}
@@ -0,0 +1,41 @@
+package com.paymill.utils;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link JsonCodec}, which binds all models with a Jackson {@link ObjectMapper}.
+ */
+public final class JacksonCodec implements JsonCodec {
+
+  private final ObjectMapper mapper;
+
+  public JacksonCodec( final ObjectMapper mapper ) {
+    if( mapper == null )
+      throw new IllegalArgumentException( "Mapper can not be null" );
+
+    this.mapper = mapper;
+  }
+
+  @Override
+  public <T> T read( final JsonParser parser, final Class<T> clazz ) throws IOException {
+    return this.mapper.readValue( parser, clazz );
+  }
+
+  @Override
+  public <T> T read( final String json, final Class<T> clazz ) throws IOException {
+    return this.mapper.readValue( json, clazz );
+  }
+
+  @Override
+  public String write( final Object value ) throws IOException {
+    return this.mapper.writeValueAsString( value );
+  }
+
+  public ObjectMapper getMapper() {
+    return this.mapper;
+  }
+
+}
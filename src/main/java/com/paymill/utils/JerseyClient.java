@@ -1,12 +1,12 @@
 package com.paymill.utils;
 
+import java.io.InputStream;
+
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.MultivaluedHashMap;
-import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang3.StringUtils;
@@ -17,7 +17,7 @@ import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
 import com.paymill.utils.HttpClient;
 import com.paymill.utils.ParameterMap;
 
-public final class JerseyClient implements HttpClient {
+public final class JerseyClient implements ResponseAwareHttpClient {
 
   private final Client httpClient;
 
@@ -56,13 +56,13 @@ public final class JerseyClient implements HttpClient {
 
   public String post( String path, ParameterMap<String, String> params ) {
     WebTarget webResource = httpClient.target( path );
-    Response response = webResource.request( MediaType.APPLICATION_JSON_TYPE ).post( Entity.form( convertMap( params ) ) );
+    Response response = webResource.request( MediaType.APPLICATION_JSON_TYPE ).post( JerseyClient.form( params ) );
     return response.readEntity( String.class );
   }
 
   public String put( String path, ParameterMap<String, String> params ) {
     WebTarget webResource = httpClient.target( path );
-    Response response = webResource.request( MediaType.APPLICATION_JSON_TYPE ).put( Entity.form( convertMap( params ) ) );
+    Response response = webResource.request( MediaType.APPLICATION_JSON_TYPE ).put( JerseyClient.form( params ) );
     return response.readEntity( String.class );
   }
 
@@ -77,12 +77,31 @@ public final class JerseyClient implements HttpClient {
     return response.readEntity( String.class );
   }
 
-  private static MultivaluedMap<String, String> convertMap( final ParameterMap<String, String> map ) {
-    if( map == null ) {
-      return null;
+  public HttpResponse execute( String method, String path, ParameterMap<String, String> params ) {
+    WebTarget webResource = httpClient.target( path );
+    Response response;
+    if( "POST".equals( method ) || "PUT".equals( method ) ) {
+      response = webResource.request( MediaType.APPLICATION_JSON_TYPE ).method( method, JerseyClient.form( params ) );
+    } else {
+      if( params != null ) {
+        for( String key : params.keySet() ) {
+          webResource = webResource.queryParam( key, params.get( key ).toArray() );
+        }
+      }
+      response = webResource.request( MediaType.APPLICATION_JSON_TYPE ).method( method );
     }
-    MultivaluedMap<String, String> params = new MultivaluedHashMap<String, String>();
-    params.putAll( map );
-    return params;
+    if( !response.hasEntity() ) {
+      response.close();
+      return new HttpResponse( response.getStatus(), (String) null );
+    }
+    return new HttpResponse( response.getStatus(), response.readEntity( InputStream.class ) );
+  }
+
+  /**
+   * The parameters are encoded directly into the request body, so no intermediate map is created and Jersey writes the bytes as
+   * they are.
+   */
+  private static Entity<byte[]> form( final ParameterMap<String, String> params ) {
+    return Entity.entity( FormEncoder.encode( params ), MediaType.APPLICATION_FORM_URLENCODED_TYPE );
   }
 }
@@ -0,0 +1,28 @@
+package com.paymill.utils;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Binds PAYMILL JSON to models and models back to JSON. Responses are tokenized by a Jackson {@link JsonParser}; the codec only
+ * decides how the tokens of a single model are bound. The codec of a context is passed to
+ * <code>new PaymillContext( HttpClient, ExecutorService, JsonCodec )</code>, the default is {@link JacksonCodec}.
+ */
+public interface JsonCodec {
+
+  /**
+   * Binds the value, at which the parser is positioned. After the call the parser is positioned at the last token of the value.
+   * @param parser
+   *          parser positioned at the first token of the value or before it.
+   * @param clazz
+   *          class of the model.
+   * @return the model or <code>null</code>.
+   */
+  public <T> T read( JsonParser parser, Class<T> clazz ) throws IOException;
+
+  public <T> T read( String json, Class<T> clazz ) throws IOException;
+
+  public String write( Object value ) throws IOException;
+
+}
@@ -1,92 +1,282 @@
 package com.paymill.utils;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
-public final class ParameterMap<K, V> implements Map<K, List<V>> {
-  private final HashMap<K, List<V>> map;
+/**
+ * Parameters of a PAYMILL request. Keys and values are kept in two parallel arrays in insertion order, so request bodies and query
+ * strings are always built in the same order. Nearly all parameters have exactly one value, which is stored as it is; only keys with
+ * several values spill into a {@link List}.
+ */
+public final class ParameterMap<K, V> extends AbstractMap<K, List<V>> {
+
+  private final static int      DEFAULT_CAPACITY = 8;
+
+  private Object[]               keys;
+
+  private Object[]               values;
+
+  private int[]                  hashes;
+
+  private int                    size;
+
+  private Set<Entry<K, List<V>>> entrySet;
 
   public ParameterMap() {
-    this.map = new HashMap<K, List<V>>();
+    this( ParameterMap.DEFAULT_CAPACITY );
   }
 
-  public void add( final K key, final V value ) {
-    List<V> values = this.map.get( key );
+  /**
+   * @param expectedSize
+   *          number of keys, which will be added without growing the map.
+   */
+  public ParameterMap( final int expectedSize ) {
+    int capacity = Math.max( expectedSize, 1 );
+    this.keys = new Object[capacity];
+    this.values = new Object[capacity];
+    this.hashes = new int[capacity];
+  }
 
-    if( values == null ) {
-      values = new ArrayList<V>();
+  public void add( final K key, final V value ) {
+    int index = this.indexOf( key );
+    if( index < 0 ) {
+      this.append( key, value );
+    } else if( this.values[index] instanceof Spill ) {
+      this.spillAt( index ).add( value );
+    } else {
+      Spill<V> spill = new Spill<V>();
+      spill.add( this.valueAt( index, 0 ) );
+      spill.add( value );
+      this.values[index] = spill;
     }
-
-    values.add( value );
-
-    this.map.put( key, values );
   }
 
   public V getFirst( final K key ) {
-    return this.get( key ) != null ? this.get( key ).get( 0 ) : null;
+    int index = this.indexOf( key );
+    if( index < 0 || this.valueCount( index ) == 0 ) {
+      return null;
+    }
+    return this.valueAt( index, 0 );
   }
 
   @Override
   public int size() {
-    return this.map.size();
+    return this.size;
   }
 
   @Override
   public boolean isEmpty() {
-    return this.map.isEmpty();
+    return this.size == 0;
   }
 
   @Override
   public boolean containsKey( final Object o ) {
-    return this.map.containsKey( o );
-  }
-
-  @Override
-  public boolean containsValue( final Object o ) {
-    return this.map.containsValue( o );
+    return this.indexOf( o ) >= 0;
   }
 
+  /**
+   * @return unmodifiable values of the given key or <code>null</code>, if the key is not present. Use {@link #add(Object, Object)}
+   *         or {@link #put(Object, List)} to change them.
+   */
   @Override
   public List<V> get( final Object o ) {
-    return this.map.get( o );
+    int index = this.indexOf( o );
+    return index < 0 ? null : this.listAt( index );
   }
 
   @Override
   public List<V> put( final K k, final List<V> vs ) {
-    return this.map.put( k, vs );
+    List<V> previous = null;
+    int index = this.indexOf( k );
+    if( index < 0 ) {
+      this.append( k, null );
+      index = this.size - 1;
+    } else {
+      previous = this.listAt( index );
+    }
+    if( vs != null && vs.size() == 1 ) {
+      this.values[index] = vs.get( 0 );
+    } else {
+      Spill<V> spill = new Spill<V>();
+      if( vs != null ) {
+        spill.addAll( vs );
+      }
+      this.values[index] = spill;
+    }
+    return previous;
   }
 
   @Override
   public List<V> remove( final Object o ) {
-    return this.map.remove( o );
+    int index = this.indexOf( o );
+    if( index < 0 ) {
+      return null;
+    }
+    List<V> previous = this.listAt( index );
+    this.removeAt( index );
+    return previous;
   }
 
   @Override
-  public void putAll( final Map<? extends K, ? extends List<V>> map ) {
-    this.map.putAll( map );
+  public void clear() {
+    Arrays.fill( this.keys, 0, this.size, null );
+    Arrays.fill( this.values, 0, this.size, null );
+    this.size = 0;
   }
 
   @Override
-  public void clear() {
-    this.map.clear();
+  public Set<Entry<K, List<V>>> entrySet() {
+    if( this.entrySet == null ) {
+      this.entrySet = new EntrySet();
+    }
+    return this.entrySet;
   }
 
-  @Override
-  public Set<K> keySet() {
-    return this.map.keySet();
+  /**
+   * @return the key at the given position, in insertion order.
+   */
+  @SuppressWarnings( "unchecked" )
+  K keyAt( final int index ) {
+    return (K) this.keys[index];
   }
 
-  @Override
-  public Collection<List<V>> values() {
-    return this.map.values();
+  /**
+   * @return number of values of the key at the given position.
+   */
+  int valueCount( final int index ) {
+    Object value = this.values[index];
+    return value instanceof Spill ? ((Spill<?>) value).size() : 1;
   }
 
-  @Override
-  public Set<Entry<K, List<V>>> entrySet() {
-    return this.map.entrySet();
+  /**
+   * @return the value with the given position of the key at the given position.
+   */
+  @SuppressWarnings( "unchecked" )
+  V valueAt( final int index, final int position ) {
+    Object value = this.values[index];
+    if( value instanceof Spill ) {
+      return this.spillAt( index ).get( position );
+    }
+    if( position != 0 ) {
+      throw new IndexOutOfBoundsException( "Index: " + position + ", Size: 1" );
+    }
+    return (V) value;
+  }
+
+  private int indexOf( final Object key ) {
+    int hash = key == null ? 0 : key.hashCode();
+    for( int i = 0; i < this.size; i++ ) {
+      if( this.hashes[i] == hash && (key == null ? this.keys[i] == null : key.equals( this.keys[i] )) ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void append( final K key, final V value ) {
+    if( this.size == this.keys.length ) {
+      int capacity = this.size * 2;
+      this.keys = Arrays.copyOf( this.keys, capacity );
+      this.values = Arrays.copyOf( this.values, capacity );
+      this.hashes = Arrays.copyOf( this.hashes, capacity );
+    }
+    this.keys[this.size] = key;
+    this.values[this.size] = value;
+    this.hashes[this.size] = key == null ? 0 : key.hashCode();
+    this.size++;
+  }
+
+  private void removeAt( final int index ) {
+    int moved = this.size - index - 1;
+    if( moved > 0 ) {
+      System.arraycopy( this.keys, index + 1, this.keys, index, moved );
+      System.arraycopy( this.values, index + 1, this.values, index, moved );
+      System.arraycopy( this.hashes, index + 1, this.hashes, index, moved );
+    }
+    this.size--;
+    this.keys[this.size] = null;
+    this.values[this.size] = null;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private Spill<V> spillAt( final int index ) {
+    return (Spill<V>) this.values[index];
+  }
+
+  private List<V> listAt( final int index ) {
+    if( this.values[index] instanceof Spill ) {
+      return Collections.unmodifiableList( this.spillAt( index ) );
+    }
+    return Collections.singletonList( this.valueAt( index, 0 ) );
+  }
+
+  /**
+   * Values of a key, which was added more than once. The own type tells them apart from single values.
+   */
+  private static final class Spill<V> extends ArrayList<V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private Spill() {
+      super( 2 );
+    }
+
   }
+
+  private final class EntrySet extends AbstractSet<Entry<K, List<V>>> {
+
+    @Override
+    public int size() {
+      return ParameterMap.this.size;
+    }
+
+    @Override
+    public void clear() {
+      ParameterMap.this.clear();
+    }
+
+    @Override
+    public Iterator<Entry<K, List<V>>> iterator() {
+      return new Iterator<Entry<K, List<V>>>() {
+
+        private int next    = 0;
+
+        private int current = -1;
+
+        @Override
+        public boolean hasNext() {
+          return this.next < ParameterMap.this.size;
+        }
+
+        @Override
+        public Entry<K, List<V>> next() {
+          if( !this.hasNext() ) {
+            throw new NoSuchElementException();
+          }
+          this.current = this.next++;
+          return new SimpleImmutableEntry<K, List<V>>( ParameterMap.this.keyAt( this.current ), ParameterMap.this.listAt( this.current ) );
+        }
+
+        @Override
+        public void remove() {
+          if( this.current < 0 ) {
+            throw new IllegalStateException();
+          }
+          ParameterMap.this.removeAt( this.current );
+          this.next = this.current;
+          this.current = -1;
+        }
+
+      };
+    }
+
+  }
+
 }
@@ -0,0 +1,11 @@
+package com.paymill.utils;
+
+/**
+ * Optional extension of the {@link HttpClient}, which also provides the HTTP status of the responses. When the http client of a
+ * context implements it, errors are reported with their status and can be classified, e.g. as retryable.
+ */
+public interface ResponseAwareHttpClient extends HttpClient {
+
+  public HttpResponse execute( String method, String path, ParameterMap<String, String> params );
+
+}
@@ -0,0 +1,129 @@
+package com.paymill.services;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.BinaryCodec;
+import com.paymill.models.Client;
+import com.paymill.models.Merchant;
+import com.paymill.models.Offer;
+import com.paymill.models.Subscription;
+import com.paymill.models.Transaction;
+import com.paymill.models.Webhook;
+
+public class BinaryCodecTest {
+
+  private final static String SUBSCRIPTION = "{\"id\":\"sub_1\",\"offer\":{\"id\":\"offer_1\",\"name\":\"Gold\",\"amount\":990,"
+                                               + "\"interval\":\"1 MONTH\",\"currency\":\"EUR\",\"trial_period_days\":null,"
+                                               + "\"subscription_count\":{\"active\":\"3\",\"inactive\":0},\"created_at\":1400000000},"
+                                               + "\"livemode\":false,\"amount\":990,\"temp_amount\":null,\"currency\":\"EUR\","
+                                               + "\"interval\":\"1 MONTH,FRIDAY\",\"period_of_validity\":\"2 YEAR\",\"trial_start\":null,"
+                                               + "\"next_capture_at\":1400086400,\"created_at\":1400000000,\"updated_at\":1400000001,"
+                                               + "\"payment\":\"pay_1\",\"client\":{\"id\":\"client_1\",\"email\":\"a@b.de\"},"
+                                               + "\"status\":\"active\",\"is_canceled\":false,\"is_deleted\":false,\"app_id\":null}";
+
+  private final static String CLIENT       = "{\"id\":\"client_1\",\"email\":\"a@b.de\",\"description\":\"J\\u00fcrgen\","
+                                               + "\"created_at\":1400000000,\"updated_at\":1400000000,\"app_id\":null,"
+                                               + "\"payment\":[{\"id\":\"pay_1\",\"type\":\"creditcard\",\"card_type\":\"visa\","
+                                               + "\"last4\":\"1111\",\"expire_month\":\"12\",\"expire_year\":\"2030\"},"
+                                               + "{\"id\":\"pay_2\",\"type\":\"debit\",\"code\":\"12345678\"}],"
+                                               + "\"subscription\":[" + BinaryCodecTest.SUBSCRIPTION + "]}";
+
+  private final static String WEBHOOK      = "{\"id\":\"hook_1\",\"url\":\"https://example.com/hook\",\"livemode\":false,"
+                                               + "\"event_types\":[\"transaction.succeeded\",\"refund.succeeded\"],"
+                                               + "\"created_at\":1400000000,\"updated_at\":1400000000,\"app_id\":null}";
+
+  @Test
+  public void testEncode_shouldRoundTripModels() throws Exception {
+    this.assertRoundTrip( PaymillContext.PARSER.readValue( StubHttpClient.transaction( 1 ), Transaction.class ) );
+    this.assertRoundTrip( PaymillContext.PARSER.readValue( BinaryCodecTest.SUBSCRIPTION, Subscription.class ) );
+    this.assertRoundTrip( PaymillContext.PARSER.readValue( BinaryCodecTest.CLIENT, Client.class ) );
+    this.assertRoundTrip( PaymillContext.PARSER.readValue( BinaryCodecTest.WEBHOOK, Webhook.class ) );
+
+    Merchant merchant = new Merchant( "mer_1" );
+    merchant.setMethods( Arrays.asList( "visa", null, "visa" ) );
+    this.assertRoundTrip( merchant );
+  }
+
+  @Test
+  public void testEncode_shouldKeepMillisecondsAndInnerClasses() throws Exception {
+    Subscription subscription = PaymillContext.PARSER.readValue( BinaryCodecTest.SUBSCRIPTION, Subscription.class );
+    subscription.setCanceledAt( new Date( 1400000000123L ) );
+
+    Subscription decoded = BinaryCodec.decode( BinaryCodec.encode( subscription ), Subscription.class );
+
+    Assert.assertEquals( decoded.getCanceledAt(), subscription.getCanceledAt() );
+    Assert.assertEquals( decoded.getInterval().getWeekday(), subscription.getInterval().getWeekday() );
+    Offer.SubscriptionCount count = decoded.getOffer().getSubscriptionCount();
+    Assert.assertEquals( count.getActive(), "3" );
+    Assert.assertEquals( count.getInactive(), Integer.valueOf( 0 ) );
+  }
+
+  @Test
+  public void testEncode_shouldBeSmallerThanJson() throws Exception {
+    Client client = PaymillContext.PARSER.readValue( BinaryCodecTest.CLIENT, Client.class );
+
+    ByteBuffer buffer = BinaryCodec.encode( client );
+
+    Assert.assertTrue( buffer.remaining() * 2 < PaymillContext.PARSER.writeValueAsBytes( client ).length );
+  }
+
+  @Test
+  public void testEncode_intoBuffer_shouldAdvancePosition() throws Exception {
+    Transaction transaction = PaymillContext.PARSER.readValue( StubHttpClient.transaction( 2 ), Transaction.class );
+    ByteBuffer buffer = ByteBuffer.allocateDirect( 4096 );
+
+    BinaryCodec.encode( transaction, buffer );
+    BinaryCodec.encode( transaction, buffer );
+    buffer.flip();
+
+    Assert.assertEquals( BinaryCodec.decode( buffer, Transaction.class ).getId(), "tran_2" );
+    Assert.assertEquals( BinaryCodec.decode( buffer, Transaction.class ).getId(), "tran_2" );
+    Assert.assertFalse( buffer.hasRemaining() );
+  }
+
+  @Test( expectedExceptions = IllegalArgumentException.class )
+  public void testDecode_withOtherModel_shouldFail() throws Exception {
+    BinaryCodec.decode( BinaryCodec.encode( new Webhook( "hook_1" ) ), Transaction.class );
+  }
+
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testDecode_whenNestedLayoutChanged_shouldFail() throws Exception {
+    Transaction transaction = PaymillContext.PARSER.readValue( StubHttpClient.transaction( 1 ), Transaction.class );
+    ByteBuffer buffer = BinaryCodec.encode( transaction );
+    BinaryCodec.encode( new Webhook( "hook_1" ) );
+
+    Field field = BinaryCodec.class.getDeclaredField( "SCHEMAS" );
+    field.setAccessible( true );
+    Map<Class<?>, Object> schemas = (Map<Class<?>, Object>) field.get( null );
+    try {
+      // simulates an upgrade, which changed only the layout of the nested client
+      schemas.remove( Transaction.class );
+      schemas.put( Client.class, schemas.get( Webhook.class ) );
+      BinaryCodec.decode( buffer, Transaction.class );
+      Assert.fail();
+    } catch( IllegalArgumentException exc ) {
+      Assert.assertTrue( exc.getMessage().contains( "layout" ) );
+    } finally {
+      schemas.clear();
+    }
+    buffer.rewind();
+    Assert.assertEquals( BinaryCodec.decode( buffer, Transaction.class ).getId(), "tran_1" );
+  }
+
+  private void assertRoundTrip( final Object model ) throws Exception {
+    Object decoded = BinaryCodec.decode( BinaryCodec.encode( model ), model.getClass() );
+
+    Assert.assertNotSame( decoded, model );
+    Assert.assertEquals( PaymillContext.PARSER.writeValueAsString( decoded ), PaymillContext.PARSER.writeValueAsString( model ) );
+  }
+
+}
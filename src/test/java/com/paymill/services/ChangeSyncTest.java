@@ -0,0 +1,199 @@
+package com.paymill.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Transaction;
+import com.paymill.utils.ParameterMap;
+
+public class ChangeSyncTest {
+
+  private final static long T0 = 1400000000L;
+
+  @Test
+  public void testSync_shouldDeliverOnlyChangesSinceWatermark() {
+    final long[] created = new long[300];
+    final long[] updated = new long[300];
+    for( int i = 0; i < created.length; i++ ) {
+      created[i] = ChangeSyncTest.T0 + i;
+      updated[i] = ChangeSyncTest.T0 + i;
+    }
+    StubHttpClient httpClient = ChangeSyncTest.storeClient( created, updated, 250 );
+    Query<Transaction> query = ChangeSyncTest.query( httpClient );
+
+    RecordingListener listener = new RecordingListener();
+    Watermark watermark = ChangeSync.sync( "/transactions", query, null, listener, httpClient, ChangeSyncTest.T0 + 1000 );
+    Assert.assertEquals( listener.created.size(), 250 );
+    Assert.assertTrue( listener.updated.isEmpty() );
+    Assert.assertEquals( watermark.getDate().getTime(), (ChangeSyncTest.T0 + 1000) * 1000 );
+
+    // one update inside the overlap of the last window, two later updates and one late creation
+    updated[3] = ChangeSyncTest.T0 + 990;
+    updated[7] = ChangeSyncTest.T0 + 1100;
+    updated[249] = ChangeSyncTest.T0 + 1200;
+    created[250] = ChangeSyncTest.T0 + 1150;
+    updated[250] = ChangeSyncTest.T0 + 1150;
+    httpClient = ChangeSyncTest.storeClient( created, updated, 251 );
+    listener = new RecordingListener();
+    watermark = ChangeSync.sync( "/transactions", query, Watermark.valueOf( watermark.toString() ), listener, httpClient,
+        ChangeSyncTest.T0 + 1300 );
+
+    Assert.assertEquals( listener.created, Arrays.asList( "tran_250" ) );
+    Assert.assertEquals( listener.updated, Arrays.asList( "tran_3", "tran_7", "tran_249" ) );
+    Assert.assertEquals( httpClient.getRequests().size(), 1 );
+    Assert.assertEquals( httpClient.getParameters().get( 0 ).getFirst( "updated_at" ), (ChangeSyncTest.T0 + 940) + "-" + (ChangeSyncTest.T0 + 1300) );
+
+    listener = new RecordingListener();
+    ChangeSync.sync( "/transactions", query, watermark, listener, httpClient, ChangeSyncTest.T0 + 1310 );
+    Assert.assertTrue( listener.created.isEmpty() );
+    Assert.assertTrue( listener.updated.isEmpty() );
+  }
+
+  @Test
+  public void testSync_whenPagesOverlap_shouldDeliverOnce() {
+    final long[] created = new long[10];
+    final long[] updated = new long[10];
+    for( int i = 0; i < created.length; i++ ) {
+      created[i] = ChangeSyncTest.T0 + i;
+      updated[i] = ChangeSyncTest.T0 + i;
+    }
+    StubHttpClient httpClient = new StubHttpClient( new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        // every page starts one object early, as if an object became visible while paging
+        int offset = Math.max( Integer.parseInt( params.getFirst( "offset" ) ) - 1, 0 );
+        return ChangeSyncTest.page( created, updated, offset, 4, 10 );
+      }
+
+    } );
+    Query<Transaction> query = new PaymillContext( httpClient ).getTransactionService().query( null, null, 4 );
+
+    RecordingListener listener = new RecordingListener();
+    ChangeSync.sync( "/transactions", query, null, listener, httpClient, ChangeSyncTest.T0 + 100 );
+    Assert.assertEquals( listener.created.size(), 10 );
+  }
+
+  @Test
+  public void testSync_whenObjectLeavesWindow_shouldReadMovedObjects() {
+    final long[] created = new long[10];
+    final long[] updated = new long[10];
+    for( int i = 0; i < created.length; i++ ) {
+      created[i] = ChangeSyncTest.T0 + i;
+      updated[i] = ChangeSyncTest.T0 + i;
+    }
+    final StubHttpClient.Responder store = ChangeSyncTest.store( created, updated, 10 );
+    StubHttpClient httpClient = new StubHttpClient( new StubHttpClient.Responder() {
+
+      private int requests;
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        String page = store.respond( method, path, params );
+        if( this.requests++ == 0 ) {
+          // tran_2 is updated after the first page was read, so all later objects move one offset back
+          updated[2] = ChangeSyncTest.T0 + 200;
+        }
+        return page;
+      }
+
+    } );
+    Query<Transaction> query = new PaymillContext( httpClient ).getTransactionService().query( null, null, 4 ).with( "order", "created_at_asc" );
+
+    RecordingListener listener = new RecordingListener();
+    ChangeSync.sync( "/transactions", query, null, listener, httpClient, ChangeSyncTest.T0 + 100 );
+    Assert.assertEquals( listener.created, Arrays.asList( "tran_0", "tran_1", "tran_2", "tran_3", "tran_4", "tran_5", "tran_6", "tran_7",
+        "tran_8", "tran_9" ) );
+  }
+
+  @Test
+  public void testWatermark_shouldRoundTrip() {
+    Watermark watermark = Watermark.valueOf( "1400000000:tran_1=1399999990,tran_2=1400000000" );
+
+    Assert.assertEquals( watermark.getSeconds(), 1400000000L );
+    Assert.assertEquals( watermark.getSeen().get( "tran_2" ), Long.valueOf( 1400000000L ) );
+    Assert.assertEquals( Watermark.valueOf( watermark.toString() ).toString(), watermark.toString() );
+    Assert.assertNull( Watermark.valueOf( " " ) );
+  }
+
+  @Test( expectedExceptions = IllegalArgumentException.class )
+  public void testWatermark_withInvalidValue_shouldFail() {
+    Watermark.valueOf( "yesterday" );
+  }
+
+  private static Query<Transaction> query( final StubHttpClient httpClient ) {
+    return new PaymillContext( httpClient ).getTransactionService().query( null, null, 100 ).with( "order", "created_at_asc" );
+  }
+
+  private static StubHttpClient storeClient( final long[] created, final long[] updated, final int size ) {
+    return new StubHttpClient( ChangeSyncTest.store( created, updated, size ) );
+  }
+
+  /**
+   * Answers list requests from the first <code>size</code> transactions, filtered by the requested range of updated_at.
+   */
+  private static StubHttpClient.Responder store( final long[] created, final long[] updated, final int size ) {
+    return new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        String[] range = params.getFirst( "updated_at" ).split( "-" );
+        long from = Long.parseLong( range[0] );
+        long to = Long.parseLong( range[1] );
+        Assert.assertEquals( params.getFirst( "order" ), "created_at_asc" );
+
+        List<Integer> matches = new ArrayList<Integer>();
+        for( int i = 0; i < size; i++ ) {
+          if( updated[i] >= from && updated[i] <= to ) {
+            matches.add( i );
+          }
+        }
+        int offset = Integer.parseInt( params.getFirst( "offset" ) );
+        int count = Integer.parseInt( params.getFirst( "count" ) );
+        StringBuilder builder = new StringBuilder( "{\"data\":[" );
+        for( int i = offset; i < Math.min( offset + count, matches.size() ); i++ ) {
+          builder.append( i > offset ? "," : "" ).append( ChangeSyncTest.transaction( matches.get( i ), created, updated ) );
+        }
+        return builder.append( "],\"data_count\":" ).append( matches.size() ).append( "}" ).toString();
+      }
+
+    };
+  }
+
+  private static String page( final long[] created, final long[] updated, final int offset, final int count, final int dataCount ) {
+    StringBuilder builder = new StringBuilder( "{\"data\":[" );
+    for( int i = offset; i < Math.min( offset + count, dataCount ); i++ ) {
+      builder.append( i > offset ? "," : "" ).append( ChangeSyncTest.transaction( i, created, updated ) );
+    }
+    return builder.append( "],\"data_count\":" ).append( dataCount ).append( "}" ).toString();
+  }
+
+  private static String transaction( final int i, final long[] created, final long[] updated ) {
+    return StubHttpClient.transaction( i ).replace( "\"created_at\":" + (ChangeSyncTest.T0 + i) + ",\"updated_at\":" + (ChangeSyncTest.T0 + i),
+        "\"created_at\":" + created[i] + ",\"updated_at\":" + updated[i] );
+  }
+
+  private static class RecordingListener implements ChangeListener<Transaction> {
+
+    private final List<String> created = new ArrayList<String>();
+
+    private final List<String> updated = new ArrayList<String>();
+
+    @Override
+    public void created( final Transaction object ) {
+      this.created.add( object.getId() );
+    }
+
+    @Override
+    public void updated( final Transaction object ) {
+      this.updated.add( object.getId() );
+    }
+
+  }
+
+}
@@ -0,0 +1,53 @@
+package com.paymill.services;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Fee;
+import com.paymill.models.Interval;
+import com.paymill.models.Payment;
+import com.paymill.models.Preauthorization;
+import com.paymill.models.Refund;
+import com.paymill.models.Subscription;
+import com.paymill.models.Transaction;
+import com.paymill.models.Webhook;
+
+public class EnumLookupTest {
+
+  @Test
+  public void testCreate_shouldResolveEveryValueIgnoringCase() {
+    for( Transaction.Status status : Transaction.Status.values() ) {
+      Assert.assertSame( Transaction.Status.create( status.getValue() ), status );
+      Assert.assertSame( Transaction.Status.create( status.getValue().toUpperCase() ), status );
+    }
+    for( Webhook.EventType type : Webhook.EventType.values() ) {
+      Assert.assertSame( Webhook.EventType.create( type.getValue() ), type );
+    }
+    for( Payment.CardType type : Payment.CardType.values() ) {
+      Assert.assertSame( Payment.CardType.create( type.getValue() ), type );
+    }
+    Assert.assertSame( Interval.Unit.create( "month" ), Interval.Unit.MONTH );
+    Assert.assertSame( Interval.Weekday.create( "Friday" ), Interval.Weekday.FRIDAY );
+    Assert.assertSame( Subscription.Status.create( "ACTIVE" ), Subscription.Status.ACTIVE );
+    Assert.assertSame( Refund.Status.create( "refunded" ), Refund.Status.REFUNDED );
+    Assert.assertSame( Preauthorization.Status.create( "closed" ), Preauthorization.Status.CLOSED );
+    Assert.assertSame( Fee.Type.create( "application" ), Fee.Type.APPLICATION );
+    Assert.assertSame( Payment.Type.create( "debit" ), Payment.Type.DEBIT );
+  }
+
+  @Test
+  public void testCreate_withUnknownValue_shouldKeepFallbacks() throws Exception {
+    Assert.assertSame( Transaction.Status.create( "unknown_status" ), Transaction.Status.UNDEFINED );
+    Assert.assertSame( Transaction.Status.create( null ), Transaction.Status.UNDEFINED );
+    Assert.assertSame( Webhook.EventType.create( "transaction.create" ), Webhook.EventType.UNDEFINED );
+    Assert.assertSame( PaymillContext.PARSER.readValue( "\"Closed\"", Transaction.Status.class ), Transaction.Status.CLOSED );
+    try {
+      Interval.Unit.create( "fortnight" );
+      Assert.fail();
+    } catch( IllegalArgumentException exc ) {
+      Assert.assertTrue( exc.getMessage().contains( "fortnight" ) );
+    }
+  }
+
+}
@@ -0,0 +1,141 @@
+package com.paymill.services;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Transaction;
+import com.paymill.utils.ParameterMap;
+
+public class ExportTest {
+
+  @Test
+  public void testExport_asNdjson_shouldCopyAllObjects() throws IOException {
+    File file = File.createTempFile( "transactions", ".ndjson" );
+    file.deleteOnExit();
+    TransactionService transactionService = new PaymillContext( PageIteratorTest.pagingClient( 45 ) ).getTransactionService();
+
+    long rows = transactionService.export( transactionService.query( null, null, 20 ), Export.ndjson(), file );
+
+    List<String> lines = ExportTest.readLines( file, false );
+    Assert.assertEquals( rows, 45 );
+    Assert.assertEquals( lines.size(), 45 );
+    JsonNode row = PaymillContext.PARSER.readTree( lines.get( 44 ) );
+    Assert.assertEquals( row.get( "id" ).asText(), "tran_44" );
+    Assert.assertEquals( row.get( "client" ).get( "id" ).asText(), "client_4" );
+  }
+
+  @Test
+  public void testExport_asGzippedCsv_shouldWriteColumns() throws IOException {
+    File file = File.createTempFile( "transactions", ".csv.gz" );
+    file.deleteOnExit();
+    TransactionService transactionService = new PaymillContext( PageIteratorTest.pagingClient( 30 ) ).getTransactionService();
+
+    Export export = Export.csv( "id", "amount", "client.id", "description", "preauthorization" ).gzip();
+    transactionService.export( transactionService.query( null, null, 20 ), export, file );
+
+    List<String> lines = ExportTest.readLines( file, true );
+    Assert.assertEquals( lines.size(), 31 );
+    Assert.assertEquals( lines.get( 0 ), "id,amount,client.id,description,preauthorization" );
+    Assert.assertEquals( lines.get( 8 ), "tran_7,1007,client_2,Transaction 7," );
+  }
+
+  @Test
+  public void testExport_withQuotes_shouldEscapeCsv() throws IOException {
+    File file = File.createTempFile( "transactions", ".csv" );
+    file.deleteOnExit();
+    StubHttpClient httpClient = new StubHttpClient( "{\"data\":[{\"id\":\"tran_1\",\"description\":\"Say \\\"hi\\\", bye\"}],\"data_count\":1}" );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    transactionService.export( transactionService.query( null, null, 20 ), Export.csv( "id", "description" ), file );
+
+    Assert.assertEquals( ExportTest.readLines( file, false ).get( 1 ), "tran_1,\"Say \"\"hi\"\", bye\"" );
+  }
+
+  @Test
+  public void testExport_afterFailure_shouldResumeFromCheckpoint() throws IOException {
+    File file = File.createTempFile( "transactions", ".ndjson.gz" );
+    file.deleteOnExit();
+    File checkpoint = new File( file.getPath() + ".checkpoint" );
+    checkpoint.deleteOnExit();
+    StubHttpClient failing = new StubHttpClient( new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        int offset = Integer.parseInt( params.getFirst( "offset" ) );
+        if( offset == 20 ) {
+          // a truncated response after some rows were written
+          return StubHttpClient.transactionPage( offset, 10, 45 ).substring( 0, 3000 );
+        }
+        return StubHttpClient.transactionPage( offset, 10, 45 );
+      }
+
+    } );
+    TransactionService transactionService = new PaymillContext( failing ).getTransactionService();
+    Query<Transaction> query = transactionService.query( null, null, 10 );
+
+    try {
+      transactionService.export( query, Export.ndjson().gzip(), file );
+      Assert.fail();
+    } catch( IOException exc ) {
+      Assert.assertTrue( checkpoint.exists() );
+    }
+
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 45 );
+    long rows = new PaymillContext( httpClient ).getTransactionService().export( query, Export.ndjson().gzip(), file );
+
+    List<String> lines = ExportTest.readLines( file, true );
+    Assert.assertEquals( rows, 45 );
+    Assert.assertEquals( lines.size(), 45 );
+    for( int i = 0; i < lines.size(); i++ ) {
+      Assert.assertEquals( PaymillContext.PARSER.readTree( lines.get( i ) ).get( "id" ).asText(), "tran_" + i );
+    }
+    Assert.assertEquals( httpClient.getParameters().get( 0 ).getFirst( "offset" ), "20" );
+    Assert.assertFalse( checkpoint.exists() );
+  }
+
+  @Test( expectedExceptions = IllegalArgumentException.class )
+  public void testCsv_withoutColumns_shouldFail() {
+    Export.csv();
+  }
+
+  @Test( expectedExceptions = IllegalArgumentException.class )
+  public void testCsv_whenColumnsReset_shouldFail() {
+    Export.csv( "id" ).columns();
+  }
+
+  @Test
+  public void testNdjson_whenColumnsReset_shouldCopyObjects() {
+    Assert.assertNull( Export.ndjson().columns( "id" ).columns().getColumns() );
+  }
+
+  private static List<String> readLines( final File file, final boolean gzip ) throws IOException {
+    InputStream input = new FileInputStream( file );
+    if( gzip ) {
+      input = new GZIPInputStream( input );
+    }
+    BufferedReader reader = new BufferedReader( new InputStreamReader( input, "UTF-8" ) );
+    try {
+      List<String> lines = new ArrayList<String>();
+      String line;
+      while( (line = reader.readLine()) != null ) {
+        lines.add( line );
+      }
+      return lines;
+    } finally {
+      reader.close();
+    }
+  }
+
+}
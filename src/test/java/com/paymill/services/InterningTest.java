@@ -0,0 +1,91 @@
+package com.paymill.services;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Interning;
+import com.paymill.models.Subscription;
+import com.paymill.models.SubscriptionView;
+import com.paymill.models.Transaction;
+import com.paymill.utils.Interner;
+
+public class InterningTest {
+
+  private final static String SUBSCRIPTION = "{\"id\":\"sub_%d\",\"offer\":{\"id\":\"offer_1\",\"interval\":\"1 MONTH\",\"currency\":\"EUR\"},"
+                                               + "\"amount\":990,\"currency\":\"EUR\",\"interval\":\"1 MONTH,FRIDAY\","
+                                               + "\"period_of_validity\":\"2 YEAR\",\"app_id\":\"app_1\",\"status\":\"active\"}";
+
+  @AfterMethod
+  public void tearDown() {
+    Interning.disable();
+  }
+
+  @Test
+  public void testList_withInterning_shouldShareRepeatedValues() {
+    Interning.enable( 100 );
+    StubHttpClient httpClient = new StubHttpClient( StubHttpClient.transactionPage( 0, 20, 20 ) );
+    List<Transaction> transactions = new PaymillContext( httpClient ).getTransactionService().list().getData();
+
+    Assert.assertEquals( transactions.get( 0 ).getCurrency(), "EUR" );
+    for( Transaction transaction : transactions ) {
+      Assert.assertSame( transaction.getCurrency(), transactions.get( 0 ).getCurrency() );
+    }
+  }
+
+  @Test
+  public void testDecode_withInterning_shouldShareStringsButCopyPeriods() throws Exception {
+    Interning.enable( 100 );
+    Subscription first = PaymillContext.PARSER.readValue( String.format( InterningTest.SUBSCRIPTION, 1 ), Subscription.class );
+    Subscription second = PaymillContext.PARSER.readValue( String.format( InterningTest.SUBSCRIPTION, 2 ), Subscription.class );
+    SubscriptionView view = PaymillContext.PARSER.readValue( String.format( InterningTest.SUBSCRIPTION, 3 ), SubscriptionView.class );
+
+    Assert.assertSame( first.getAppId(), view.getAppId() );
+    Assert.assertSame( first.getCurrency(), second.getCurrency() );
+    Assert.assertNotSame( first.getInterval(), second.getInterval() );
+    Assert.assertNotSame( first.getInterval(), view.getInterval() );
+    Assert.assertNotSame( first.getPeriodOfValidity(), second.getPeriodOfValidity() );
+    Assert.assertNotSame( first.getOffer().getInterval(), second.getOffer().getInterval() );
+    Assert.assertEquals( first.getInterval().toString(), "1 MONTH,FRIDAY" );
+    Assert.assertEquals( view.getInterval().toString(), "1 MONTH,FRIDAY" );
+    Assert.assertEquals( second.getPeriodOfValidity().toString(), "2 YEAR" );
+  }
+
+  @Test
+  public void testDecode_withInterning_shouldNotLeakPeriodChanges() throws Exception {
+    Interning.enable( 100 );
+    Subscription first = PaymillContext.PARSER.readValue( String.format( InterningTest.SUBSCRIPTION, 1 ), Subscription.class );
+    first.getInterval().setInterval( 3 );
+    first.getOffer().getInterval().setInterval( 2 );
+    Subscription second = PaymillContext.PARSER.readValue( String.format( InterningTest.SUBSCRIPTION, 2 ), Subscription.class );
+
+    Assert.assertEquals( second.getInterval().toString(), "1 MONTH,FRIDAY" );
+    Assert.assertEquals( second.getOffer().getInterval().toString(), "1 MONTH" );
+  }
+
+  @Test
+  public void testDecode_withoutInterning_shouldCreateNewValues() throws Exception {
+    Subscription first = PaymillContext.PARSER.readValue( String.format( InterningTest.SUBSCRIPTION, 1 ), Subscription.class );
+    Subscription second = PaymillContext.PARSER.readValue( String.format( InterningTest.SUBSCRIPTION, 2 ), Subscription.class );
+
+    Assert.assertNotSame( first.getInterval(), second.getInterval() );
+    Assert.assertEquals( first.getInterval().toString(), second.getInterval().toString() );
+  }
+
+  @Test
+  public void testInterner_shouldStopGrowingAtMaxSize() {
+    Interner<String, String> interner = new Interner<String, String>( 2 );
+    String eur = new String( "EUR" );
+    Assert.assertSame( interner.intern( eur, eur ), eur );
+    Assert.assertSame( interner.intern( "EUR", "EUR" ), eur );
+    interner.intern( "USD", "USD" );
+    String gbp = new String( "GBP" );
+    Assert.assertSame( interner.intern( gbp, gbp ), gbp );
+    Assert.assertNull( interner.get( "GBP" ) );
+    Assert.assertEquals( interner.size(), 2 );
+  }
+
+}
@@ -0,0 +1,106 @@
+package com.paymill.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Client;
+import com.paymill.models.Payment;
+import com.paymill.models.Refund;
+import com.paymill.models.StreamingCodec;
+import com.paymill.models.Transaction;
+import com.paymill.utils.JacksonCodec;
+import com.paymill.utils.JsonCodec;
+
+public class JsonCodecTest {
+
+  private final static String REFUND = "{\"id\":\"refund_1\",\"transaction\":" + StubHttpClient.transaction( 3 ) + ",\"amount\":\"500\","
+                                         + "\"status\":\"refunded\",\"description\":null,\"livemode\":false,\"created_at\":1400000000,"
+                                         + "\"updated_at\":1400000001,\"response_code\":20000,\"app_id\":null,\"unknown\":{\"a\":[1,2]}}";
+
+  private final static String PAYMENT = "{\"id\":\"pay_1\",\"type\":\"debit\",\"client\":[],\"code\":\"12345678\",\"account\":\"****1234\","
+                                         + "\"holder\":\"Max\",\"country\":\"DE\",\"created_at\":1400000000,\"updated_at\":1400000000,"
+                                         + "\"app_id\":null,\"is_recurring\":true,\"is_usable_for_preauthorization\":false}";
+
+  private final JsonCodec     jackson = new JacksonCodec( PaymillContext.PARSER );
+
+  private final JsonCodec     codec   = new StreamingCodec();
+
+  @Test
+  public void testRead_withStreamingCodec_shouldMatchJackson() throws Exception {
+    this.assertSameModel( StubHttpClient.transaction( 1 ), Transaction.class );
+    this.assertSameModel( StubHttpClient.transaction( 1 ).replace( "\"refunds\":null", "\"refunds\":[" + JsonCodecTest.REFUND + "]" ), Transaction.class );
+    this.assertSameModel( JsonCodecTest.REFUND, Refund.class );
+    this.assertSameModel( JsonCodecTest.PAYMENT, Payment.class );
+  }
+
+  @Test
+  public void testRead_withStreamingCodec_shouldBindValues() throws Exception {
+    Transaction transaction = this.codec.read( StubHttpClient.transaction( 4 ), Transaction.class );
+
+    Assert.assertEquals( transaction.getId(), "tran_4" );
+    Assert.assertEquals( transaction.getAmount(), Integer.valueOf( 1004 ) );
+    Assert.assertEquals( transaction.getStatus(), Transaction.Status.CLOSED );
+    Assert.assertEquals( transaction.getPayment().getExpireYear(), Integer.valueOf( 2030 ) );
+    Assert.assertEquals( transaction.getClient().getId(), "client_4" );
+    Assert.assertEquals( transaction.getCreatedAt().getTime(), 1400000004000L );
+    Assert.assertTrue( transaction.getFees().isEmpty() );
+    Assert.assertNull( this.codec.read( "null", Payment.class ) );
+  }
+
+  @Test
+  public void testStreamingCodec_shouldBindAllJacksonProperties() {
+    Assert.assertEquals( StreamingCodec.getUnboundProperties( Transaction.class ), Collections.emptySet() );
+    Assert.assertEquals( StreamingCodec.getUnboundProperties( Payment.class ), Collections.emptySet() );
+    Assert.assertEquals( StreamingCodec.getUnboundProperties( Refund.class ), Collections.emptySet() );
+    Assert.assertTrue( StreamingCodec.getUnboundProperties( Client.class ).contains( "email" ) );
+  }
+
+  @Test
+  public void testList_withCodec_shouldUseCodecOfContext() {
+    final List<Class<?>> bound = new ArrayList<Class<?>>();
+    JsonCodec codec = new JsonCodec() {
+
+      @Override
+      public <T> T read( final JsonParser parser, final Class<T> clazz ) throws IOException {
+        bound.add( clazz );
+        return JsonCodecTest.this.codec.read( parser, clazz );
+      }
+
+      @Override
+      public <T> T read( final String json, final Class<T> clazz ) throws IOException {
+        bound.add( clazz );
+        return JsonCodecTest.this.codec.read( json, clazz );
+      }
+
+      @Override
+      public String write( final Object value ) throws IOException {
+        return JsonCodecTest.this.codec.write( value );
+      }
+
+    };
+    StubHttpClient httpClient = new StubHttpClient( StubHttpClient.transactionPage( 0, 3, 3 ) );
+    PaymillContext context = new PaymillContext( httpClient, null, codec );
+    List<Transaction> transactions = context.getTransactionService().list().getData();
+
+    Assert.assertSame( context.getCodec(), codec );
+    Assert.assertEquals( bound.size(), 3 );
+    Assert.assertEquals( transactions.size(), 3 );
+    Assert.assertEquals( transactions.get( 2 ).getId(), "tran_2" );
+    Assert.assertEquals( transactions.get( 2 ).getPayment().getId(), "pay_2" );
+
+    new PaymillContext( httpClient ).getTransactionService().list();
+    Assert.assertEquals( bound.size(), 3 );
+  }
+
+  private void assertSameModel( final String json, final Class<?> clazz ) throws Exception {
+    Assert.assertEquals( this.jackson.write( this.codec.read( json, clazz ) ), this.jackson.write( this.jackson.read( json, clazz ) ) );
+  }
+
+}
@@ -0,0 +1,67 @@
+package com.paymill.services;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Payment;
+import com.paymill.models.PaymentView;
+import com.paymill.models.PaymillList;
+import com.paymill.models.RefundView;
+import com.paymill.models.Subscription;
+import com.paymill.models.SubscriptionView;
+import com.paymill.models.Transaction;
+import com.paymill.models.TransactionView;
+
+public class ModelViewTest {
+
+  @Test
+  public void testListViews_shouldDecodeTransactionViews() {
+    StubHttpClient httpClient = new StubHttpClient( StubHttpClient.transactionPage( 0, 3, 3 ) );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    PaymillList<TransactionView> views = transactionService.listViews( null, null, 3, 0 );
+
+    Assert.assertEquals( views.getDataCount(), 3 );
+    TransactionView view = views.getData().get( 2 );
+    Assert.assertEquals( view.getId(), "tran_2" );
+    Assert.assertEquals( view.getAmount(), 1002 );
+    Assert.assertEquals( view.getOriginAmount(), 1002 );
+    Assert.assertEquals( view.getStatus(), Transaction.Status.CLOSED );
+    Assert.assertEquals( view.getPaymentId(), "pay_2" );
+    Assert.assertEquals( view.getClientId(), "client_2" );
+    Assert.assertNull( view.getPreauthorizationId() );
+    Assert.assertEquals( view.getCreatedAt(), 1400000002L );
+    Assert.assertEquals( view.getResponseCode(), 20000 );
+    Assert.assertFalse( view.isFraud() );
+  }
+
+  @Test
+  public void testViews_withPlainIdsAndEmptyArrays_shouldDecodeReferences() throws Exception {
+    RefundView refund = PaymillContext.PARSER.readValue( "{\"id\":\"refund_1\",\"transaction\":\"tran_1\",\"amount\":\"500\","
+        + "\"status\":\"refunded\",\"livemode\":false,\"created_at\":1400000000,\"updated_at\":null,\"response_code\":20000}",
+        RefundView.class );
+    Assert.assertEquals( refund.getTransactionId(), "tran_1" );
+    Assert.assertEquals( refund.getAmount(), 500 );
+    Assert.assertEquals( refund.getUpdatedAt(), 0L );
+
+    PaymentView payment = PaymillContext.PARSER.readValue( "{\"id\":\"pay_1\",\"type\":\"creditcard\",\"client\":[],"
+        + "\"card_type\":\"visa\",\"expire_month\":\"12\",\"expire_year\":\"2030\",\"is_recurring\":true}", PaymentView.class );
+    Assert.assertNull( payment.getClientId() );
+    Assert.assertEquals( payment.getCardType(), Payment.CardType.VISA );
+    Assert.assertEquals( payment.getExpireYear(), 2030 );
+    Assert.assertTrue( payment.isRecurring() );
+
+    SubscriptionView subscription = PaymillContext.PARSER.readValue( "{\"id\":\"sub_1\",\"offer\":{\"id\":\"offer_1\","
+        + "\"interval\":\"1 MONTH\",\"subscription_count\":{\"active\":1,\"inactive\":0}},\"amount\":990,\"currency\":\"EUR\","
+        + "\"interval\":\"1 MONTH\",\"next_capture_at\":1400000000,\"payment\":{\"id\":\"pay_1\"},\"client\":\"client_1\","
+        + "\"status\":\"active\",\"is_canceled\":false}", SubscriptionView.class );
+    Assert.assertEquals( subscription.getOfferId(), "offer_1" );
+    Assert.assertEquals( subscription.getPaymentId(), "pay_1" );
+    Assert.assertEquals( subscription.getClientId(), "client_1" );
+    Assert.assertEquals( subscription.getInterval().getInterval(), Integer.valueOf( 1 ) );
+    Assert.assertEquals( subscription.getNextCaptureAt(), 1400000000L );
+    Assert.assertEquals( subscription.getStatus(), Subscription.Status.ACTIVE );
+  }
+
+}
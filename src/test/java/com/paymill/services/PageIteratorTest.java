@@ -0,0 +1,276 @@
+package com.paymill.services;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Transaction;
+import com.paymill.utils.ParameterMap;
+
+public class PageIteratorTest {
+
+  @Test
+  public void testIterate_shouldFetchAllPages() {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 45 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    int i = 0;
+    for( Transaction transaction : transactionService.iterate( null, null ) ) {
+      Assert.assertEquals( transaction.getId(), "tran_" + i++ );
+    }
+
+    Assert.assertEquals( i, 45 );
+    Assert.assertEquals( httpClient.getRequests().size(), 3 );
+  }
+
+  @Test
+  public void testIterate_withQuery_shouldUsePageSize() {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 10 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    Iterator<Transaction> transactions = transactionService.iterate( transactionService.query( null, null, 5 ) ).iterator();
+    for( int i = 0; i < 10; i++ ) {
+      Assert.assertEquals( transactions.next().getId(), "tran_" + i );
+    }
+
+    Assert.assertFalse( transactions.hasNext() );
+    Assert.assertEquals( httpClient.getParameters().get( 1 ).getFirst( "offset" ), "5" );
+    Assert.assertEquals( httpClient.getRequests().size(), 2 );
+  }
+
+  @Test
+  public void testIterate_withPageSizeAboveMaximum_shouldFetchAllPages() {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 250 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    int i = 0;
+    for( Transaction transaction : transactionService.iterate( transactionService.query( null, null, 250 ) ) ) {
+      Assert.assertEquals( transaction.getId(), "tran_" + i++ );
+    }
+
+    Assert.assertEquals( i, 250 );
+    Assert.assertEquals( httpClient.getParameters().get( 0 ).getFirst( "count" ), "100" );
+    Assert.assertEquals( httpClient.getRequests().size(), 3 );
+  }
+
+  @Test( expectedExceptions = NoSuchElementException.class )
+  public void testIterate_withoutObjects_shouldBeEmpty() {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 0 );
+    Iterator<Transaction> transactions = new PaymillContext( httpClient ).getTransactionService().iterate( null, null ).iterator();
+
+    Assert.assertFalse( transactions.hasNext() );
+    transactions.next();
+  }
+
+  @Test
+  public void testIterate_inParallel_shouldKeepOrder() {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 95 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    int i = 0;
+    for( Transaction transaction : transactionService.iterate( transactionService.query( null, null, 10 ), 4, true ) ) {
+      Assert.assertEquals( transaction.getId(), "tran_" + i++ );
+    }
+
+    Assert.assertEquals( i, 95 );
+    Assert.assertEquals( httpClient.getRequests().size(), 10 );
+  }
+
+  @Test
+  public void testIterate_inParallelUnordered_shouldReturnAllObjects() {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 95 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    Set<String> ids = new HashSet<String>();
+    for( Transaction transaction : transactionService.iterate( transactionService.query( null, null, 10 ), 4, false ) ) {
+      Assert.assertTrue( ids.add( transaction.getId() ) );
+    }
+
+    Assert.assertEquals( ids.size(), 95 );
+    Assert.assertTrue( ids.contains( "tran_94" ) );
+  }
+
+  @Test
+  public void testIterate_inParallelWithoutDataCount_shouldFetchPagesSequentially() {
+    StubHttpClient httpClient = new StubHttpClient( new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        int offset = params.containsKey( "offset" ) ? Integer.parseInt( params.getFirst( "offset" ) ) : 0;
+        return StubHttpClient.transactionPage( offset, 10, 35 ).replace( ",\"data_count\":35", "" );
+      }
+
+    } );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    int i = 0;
+    for( Transaction transaction : transactionService.iterate( transactionService.query( null, null, 10 ), 4, true ) ) {
+      Assert.assertEquals( transaction.getId(), "tran_" + i++ );
+    }
+
+    Assert.assertEquals( i, 35 );
+    Assert.assertEquals( httpClient.getRequests().size(), 4 );
+  }
+
+  @Test
+  public void testScan_shouldSplitDenseShardsAndKeepOrder() {
+    final AtomicInteger created = new AtomicInteger( 1000 );
+    StubHttpClient httpClient = new StubHttpClient( new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        String[] range = params.getFirst( "created_at" ).split( "-" );
+        int from = Integer.parseInt( range[0] ) - 1400000000;
+        int to = Math.min( Integer.parseInt( range[1] ) - 1400000000, created.getAndIncrement() );
+        int offset = Integer.parseInt( params.getFirst( "offset" ) );
+        int count = Integer.parseInt( params.getFirst( "count" ) );
+        Assert.assertEquals( params.getFirst( "order" ), "created_at_asc" );
+        Assert.assertTrue( offset < 200 );
+
+        StringBuilder builder = new StringBuilder( "{\"data\":[" );
+        for( int i = from + offset; i <= to && i < from + offset + count; i++ ) {
+          builder.append( i > from + offset ? "," : "" ).append( StubHttpClient.transaction( i ) );
+        }
+        return builder.append( "],\"data_count\":" ).append( Math.max( to - from + 1, 0 ) ).append( "}" ).toString();
+      }
+
+    } );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    int i = 0;
+    Query<Transaction> query = transactionService.query( null, Transaction.createOrder().byCreatedAt().desc(), 20 );
+    for( Transaction transaction : transactionService.scan( query, new Date( 1400000000000L ), new Date( 1400000999000L ), 4 ) ) {
+      Assert.assertEquals( transaction.getId(), "tran_" + i++ );
+    }
+
+    Assert.assertEquals( i, 1000 );
+  }
+
+  @Test
+  public void testScan_withDenseSecond_shouldReadItInBoundedRuns() {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 250 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    Iterator<Transaction> transactions = transactionService.scan( transactionService.query( null, null, 10 ), new Date( 1400000000000L ),
+        new Date( 1400000000000L ), 1 ).iterator();
+    Assert.assertEquals( transactions.next().getId(), "tran_0" );
+    Assert.assertEquals( httpClient.getRequests().size(), 10 );
+
+    int i = 1;
+    while( transactions.hasNext() ) {
+      Assert.assertEquals( transactions.next().getId(), "tran_" + i++ );
+    }
+    Assert.assertEquals( i, 250 );
+    Assert.assertEquals( httpClient.getRequests().size(), 25 );
+  }
+
+  @Test
+  public void testIterate_withExecutor_shouldFetchOnIt() {
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool( 1 );
+    try {
+      PaymillContext context = new PaymillContext( PageIteratorTest.pagingClient( 45 ), executor );
+      int i = 0;
+      for( Transaction transaction : context.getTransactionService().iterate( null, null ) ) {
+        Assert.assertEquals( transaction.getId(), "tran_" + i++ );
+      }
+
+      Assert.assertEquals( i, 45 );
+      Assert.assertEquals( executor.getTaskCount(), 2 );
+      context.shutdown();
+      Assert.assertFalse( executor.isShutdown() );
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test( expectedExceptions = RejectedExecutionException.class )
+  public void testIterate_afterShutdown_shouldFail() {
+    PaymillContext context = new PaymillContext( PageIteratorTest.pagingClient( 45 ) );
+    ExecutorService executor = context.getExecutor();
+    context.shutdown();
+
+    Assert.assertTrue( executor.isShutdown() );
+    for( Transaction transaction : context.getTransactionService().iterate( null, null ) ) {
+      Assert.assertNotNull( transaction );
+    }
+  }
+
+  @Test
+  public void testMerge_shouldKeepOrderOfQueries() {
+    StubHttpClient httpClient = new StubHttpClient( new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        int parity = "odd".equals( params.getFirst( "client" ) ) ? 1 : 0;
+        int offset = Integer.parseInt( params.getFirst( "offset" ) );
+        StringBuilder builder = new StringBuilder( "{\"data\":[" );
+        for( int i = 0; i < 5 && offset + i < 25; i++ ) {
+          builder.append( i > 0 ? "," : "" ).append( StubHttpClient.transaction( 49 - parity - 2 * (offset + i) ) );
+        }
+        return builder.append( "],\"data_count\":25}" ).toString();
+      }
+
+    } );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+    Transaction.Order order = Transaction.createOrder().byCreatedAt().desc();
+
+    List<Query<Transaction>> queries = new ArrayList<Query<Transaction>>();
+    queries.add( transactionService.query( Transaction.createFilter().byClientId( "odd" ), order, 5 ) );
+    queries.add( transactionService.query( Transaction.createFilter().byClientId( "even" ), order, 5 ) );
+    int i = 49;
+    for( Transaction transaction : transactionService.merge( queries ) ) {
+      Assert.assertEquals( transaction.getId(), "tran_" + i-- );
+    }
+
+    Assert.assertEquals( i, -1 );
+  }
+
+  @Test
+  public void testMergeComparator_withEnumProperty_shouldCompareJsonValues() {
+    Transaction closed = new Transaction();
+    closed.setStatus( Transaction.Status.CLOSED );
+    Transaction open = new Transaction();
+    open.setStatus( Transaction.Status.OPEN );
+
+    Assert.assertTrue( MergingIterator.comparator( Transaction.class, "status" ).compare( closed, open ) < 0 );
+    Assert.assertTrue( MergingIterator.comparator( Transaction.class, "status_desc" ).compare( closed, open ) > 0 );
+  }
+
+  @Test( expectedExceptions = IllegalArgumentException.class )
+  public void testMerge_withDifferentOrders_shouldFail() {
+    TransactionService transactionService = new PaymillContext( new StubHttpClient( "" ) ).getTransactionService();
+
+    List<Query<Transaction>> queries = new ArrayList<Query<Transaction>>();
+    queries.add( transactionService.query( null, Transaction.createOrder().byCreatedAt().desc(), 5 ) );
+    queries.add( transactionService.query( null, Transaction.createOrder().byCreatedAt().asc(), 5 ) );
+    transactionService.merge( queries );
+  }
+
+  static StubHttpClient pagingClient( final int dataCount ) {
+    return new StubHttpClient( new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        int offset = params.containsKey( "offset" ) ? Integer.parseInt( params.getFirst( "offset" ) ) : 0;
+        int count = params.containsKey( "count" ) ? Integer.parseInt( params.getFirst( "count" ) ) : 20;
+        count = Math.min( count, PageSizeController.MAX_COUNT );
+        return StubHttpClient.transactionPage( offset, count, dataCount );
+      }
+
+    } );
+  }
+
+}
@@ -0,0 +1,165 @@
+package com.paymill.services;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Transaction;
+import com.paymill.utils.Flow;
+import com.paymill.utils.ParameterMap;
+
+public class PagePublisherTest {
+
+  @Test
+  public void testPublish_shouldFetchPagesOnDemand() throws InterruptedException {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 25 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    transactionService.publish( transactionService.query( null, null, 10 ) ).subscribe( subscriber );
+
+    Assert.assertTrue( httpClient.getRequests().isEmpty() );
+    subscriber.subscription.request( 3 );
+    for( int i = 0; i < 3; i++ ) {
+      Assert.assertEquals( subscriber.next(), "tran_" + i );
+    }
+    subscriber.subscription.request( 8 );
+    for( int i = 3; i < 11; i++ ) {
+      Assert.assertEquals( subscriber.next(), "tran_" + i );
+    }
+    Assert.assertNull( subscriber.events.poll( 100, TimeUnit.MILLISECONDS ) );
+    Assert.assertEquals( httpClient.getRequests().size(), 2 );
+
+    subscriber.subscription.request( Long.MAX_VALUE );
+    for( int i = 11; i < 25; i++ ) {
+      Assert.assertEquals( subscriber.next(), "tran_" + i );
+    }
+    Assert.assertEquals( subscriber.next(), "complete" );
+    Assert.assertEquals( httpClient.getRequests().size(), 3 );
+  }
+
+  @Test
+  public void testPublish_whenCancelled_shouldStopPaging() throws InterruptedException {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 100 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+    RecordingSubscriber subscriber = new RecordingSubscriber() {
+
+      @Override
+      public void onNext( final Transaction item ) {
+        super.onNext( item );
+        if( "tran_14".equals( item.getId() ) ) {
+          this.subscription.cancel();
+        }
+      }
+
+    };
+    transactionService.publish( transactionService.query( null, null, 10 ) ).subscribe( subscriber );
+
+    subscriber.subscription.request( Long.MAX_VALUE );
+    for( int i = 0; i < 15; i++ ) {
+      Assert.assertEquals( subscriber.next(), "tran_" + i );
+    }
+    Assert.assertNull( subscriber.events.poll( 100, TimeUnit.MILLISECONDS ) );
+    Assert.assertEquals( httpClient.getRequests().size(), 2 );
+  }
+
+  @Test
+  public void testPublish_whenFetchFails_shouldSignalError() throws InterruptedException {
+    StubHttpClient httpClient = new StubHttpClient( new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        if( "10".equals( params.getFirst( "offset" ) ) ) {
+          throw new IllegalStateException( "unavailable" );
+        }
+        return StubHttpClient.transactionPage( 0, 10, 30 );
+      }
+
+    } );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    transactionService.publish( transactionService.query( null, null, 10 ) ).subscribe( subscriber );
+
+    subscriber.subscription.request( 20 );
+    for( int i = 0; i < 10; i++ ) {
+      Assert.assertEquals( subscriber.next(), "tran_" + i );
+    }
+    Assert.assertEquals( subscriber.next(), "error unavailable" );
+    Assert.assertNull( subscriber.events.poll( 100, TimeUnit.MILLISECONDS ) );
+  }
+
+  @Test
+  public void testPublish_whenSubscriberThrows_shouldCancelAndSignalError() throws InterruptedException {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 100 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+    RecordingSubscriber subscriber = new RecordingSubscriber() {
+
+      @Override
+      public void onNext( final Transaction item ) {
+        if( "tran_3".equals( item.getId() ) ) {
+          throw new IllegalStateException( "rejected" );
+        }
+        super.onNext( item );
+      }
+
+    };
+    transactionService.publish( transactionService.query( null, null, 10 ) ).subscribe( subscriber );
+
+    subscriber.subscription.request( Long.MAX_VALUE );
+    for( int i = 0; i < 3; i++ ) {
+      Assert.assertEquals( subscriber.next(), "tran_" + i );
+    }
+    Assert.assertEquals( subscriber.next(), "error rejected" );
+    subscriber.subscription.request( 5 );
+    Assert.assertNull( subscriber.events.poll( 100, TimeUnit.MILLISECONDS ) );
+    Assert.assertEquals( httpClient.getRequests().size(), 1 );
+  }
+
+  @Test
+  public void testPublish_withNonPositiveRequest_shouldSignalError() throws InterruptedException {
+    TransactionService transactionService = new PaymillContext( PageIteratorTest.pagingClient( 5 ) ).getTransactionService();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    transactionService.publish( null, null ).subscribe( subscriber );
+
+    subscriber.subscription.request( 0 );
+    Assert.assertTrue( subscriber.next().startsWith( "error " ) );
+  }
+
+  private static class RecordingSubscriber implements Flow.Subscriber<Transaction> {
+
+    final BlockingQueue<String> events = new LinkedBlockingQueue<String>();
+
+    Flow.Subscription           subscription;
+
+    @Override
+    public void onSubscribe( final Flow.Subscription subscription ) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext( final Transaction item ) {
+      this.events.add( item.getId() );
+    }
+
+    @Override
+    public void onError( final Throwable throwable ) {
+      this.events.add( "error " + throwable.getMessage() );
+    }
+
+    @Override
+    public void onComplete() {
+      this.events.add( "complete" );
+    }
+
+    String next() throws InterruptedException {
+      String event = this.events.poll( 5, TimeUnit.SECONDS );
+      Assert.assertNotNull( event );
+      return event;
+    }
+
+  }
+
+}
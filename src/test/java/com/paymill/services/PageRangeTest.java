@@ -0,0 +1,105 @@
+package com.paymill.services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Transaction;
+
+public class PageRangeTest {
+
+  @Test
+  public void testPages_shouldReportSizeAndReuseFirstPage() {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 45 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    PageRange<Transaction> range = transactionService.pages( transactionService.query( null, null, 20 ) );
+    Assert.assertEquals( range.size(), 45 );
+    Assert.assertEquals( httpClient.getRequests().size(), 1 );
+
+    int i = 0;
+    for( Transaction transaction : range ) {
+      Assert.assertEquals( transaction.getId(), "tran_" + i++ );
+    }
+    Assert.assertEquals( i, 45 );
+    Assert.assertEquals( httpClient.getRequests().size(), 3 );
+  }
+
+  @Test
+  public void testTrySplit_shouldSplitByPages() {
+    TransactionService transactionService = new PaymillContext( PageIteratorTest.pagingClient( 95 ) ).getTransactionService();
+    PageRange<Transaction> range = transactionService.pages( transactionService.query( null, null, 10 ) );
+
+    PageRange<Transaction> prefix = range.trySplit();
+    Assert.assertEquals( prefix.size(), 50 );
+    Assert.assertEquals( range.size(), 45 );
+    Assert.assertEquals( range.iterator().next().getId(), "tran_50" );
+
+    PageRange<Transaction> single = prefix.trySplit().trySplit();
+    Assert.assertEquals( single.size(), 10 );
+    Assert.assertNull( single.trySplit() );
+  }
+
+  @Test
+  public void testPages_withPageSizeAboveMaximum_shouldNotSkipObjects() {
+    TransactionService transactionService = new PaymillContext( PageIteratorTest.pagingClient( 250 ) ).getTransactionService();
+    PageRange<Transaction> range = transactionService.pages( transactionService.query( null, null, 250 ) );
+
+    Set<String> ids = new HashSet<String>();
+    for( PageRange<Transaction> part : range.split( 3 ) ) {
+      for( Transaction transaction : part ) {
+        ids.add( transaction.getId() );
+      }
+    }
+    Assert.assertEquals( ids.size(), 250 );
+  }
+
+  @Test
+  public void testSplit_shouldProcessDisjointPagesConcurrently() throws Exception {
+    StubHttpClient httpClient = PageIteratorTest.pagingClient( 95 );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+    List<PageRange<Transaction>> ranges = transactionService.pages( transactionService.query( null, null, 10 ) ).split( 4 );
+    Assert.assertEquals( ranges.size(), 4 );
+
+    ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    try {
+      List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+      for( final PageRange<Transaction> range : ranges ) {
+        futures.add( executor.submit( new Callable<List<String>>() {
+
+          @Override
+          public List<String> call() {
+            List<String> ids = new ArrayList<String>();
+            for( Transaction transaction : range ) {
+              ids.add( transaction.getId() );
+            }
+            return ids;
+          }
+
+        } ) );
+      }
+      Set<String> ids = new HashSet<String>();
+      int i = 0;
+      for( Future<List<String>> future : futures ) {
+        for( String id : future.get() ) {
+          Assert.assertEquals( id, "tran_" + i++ );
+          ids.add( id );
+        }
+      }
+      Assert.assertEquals( ids.size(), 95 );
+      Assert.assertEquals( httpClient.getRequests().size(), 10 );
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,81 @@
+package com.paymill.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Transaction;
+import com.paymill.utils.ParameterMap;
+
+public class PageSizeControllerTest {
+
+  @Test
+  public void testRecord_withFastResponses_shouldGrowUpToLimit() {
+    PageSizeController controller = new PageSizeController( 1000, 1024 * 1024 );
+
+    controller.record( 20, 20, 50000000L, 20000 );
+    Assert.assertEquals( controller.getCount(), 40 );
+    controller.record( 40, 40, 50000000L, 40000 );
+    controller.record( 80, 80, 50000000L, 80000 );
+    Assert.assertEquals( controller.getCount(), PageSizeController.MAX_COUNT );
+  }
+
+  @Test
+  public void testRecord_withSlowResponses_shouldShrinkTowardsTarget() {
+    PageSizeController controller = new PageSizeController( 1000, 1024 * 1024 );
+
+    controller.record( 20, 20, 4000000000L, 20000 );
+    Assert.assertEquals( controller.getCount(), 10 );
+    controller.record( 10, 10, 1250000000L, 10000 );
+    Assert.assertEquals( controller.getCount(), 8 );
+    controller.record( 8, 8, 1000000000L, 8000 );
+    Assert.assertEquals( controller.getCount(), 8 );
+  }
+
+  @Test
+  public void testRecord_withLargeResponses_shouldKeepBytesPerPage() {
+    PageSizeController controller = new PageSizeController( 1000, 100000 );
+
+    controller.record( 20, 20, 10000000L, 80000 );
+    Assert.assertEquals( controller.getCount(), 25 );
+    Assert.assertEquals( controller.getPages(), 1 );
+    Assert.assertEquals( controller.getAverageCount(), 20d );
+    Assert.assertEquals( controller.getAverageMillis(), 10d );
+  }
+
+  @Test
+  public void testScan_shouldAdaptPageSize() {
+    final List<String> counts = new ArrayList<String>();
+    StubHttpClient httpClient = new StubHttpClient( new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        counts.add( params.getFirst( "count" ) );
+        int offset = Integer.parseInt( params.getFirst( "offset" ) );
+        return StubHttpClient.transactionPage( offset, Integer.parseInt( params.getFirst( "count" ) ), 500 );
+      }
+
+    } );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+    PageSizeController controller = new PageSizeController( 10000, 10 * 1024 * 1024 );
+
+    int i = 0;
+    for( Transaction transaction : transactionService.scan( transactionService.query( null, null, 5 ), controller ) ) {
+      Assert.assertEquals( transaction.getId(), "tran_" + i++ );
+    }
+
+    Assert.assertEquals( i, 500 );
+    Assert.assertEquals( counts, Arrays.asList( "20", "40", "80", "100", "100", "100", "100" ) );
+    Assert.assertEquals( controller.getPages(), 7 );
+  }
+
+  @Test( expectedExceptions = IllegalArgumentException.class )
+  public void testCreate_withoutTarget_shouldFail() {
+    new PageSizeController( 0, 1024 );
+  }
+
+}
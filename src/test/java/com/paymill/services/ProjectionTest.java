@@ -0,0 +1,57 @@
+package com.paymill.services;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.PaymillList;
+import com.paymill.models.Projection;
+import com.paymill.models.Transaction;
+
+public class ProjectionTest {
+
+  private TransactionService transactionService;
+
+  @BeforeClass
+  public void setUp() {
+    PaymillContext paymill = new PaymillContext( new StubHttpClient( StubHttpClient.transactionPage( 0, 100, 250 ) ) );
+    this.transactionService = paymill.getTransactionService();
+  }
+
+  @Test
+  public void testList_WithProjection_shouldBindOnlyProjectedFields() {
+    PaymillList<Transaction> transactions = this.transactionService.list( null, null, 100, 0, Projection.of( "amount", "currency", "created_at" ) );
+    Assert.assertEquals( transactions.getDataCount(), 250 );
+    Assert.assertEquals( transactions.getData().size(), 100 );
+
+    Transaction transaction = transactions.getData().get( 42 );
+    Assert.assertEquals( transaction.getId(), "tran_42" );
+    Assert.assertEquals( transaction.getAmount(), Integer.valueOf( 1042 ) );
+    Assert.assertEquals( transaction.getCurrency(), "EUR" );
+    Assert.assertEquals( transaction.getCreatedAt().getTime(), (1400000000L + 42) * 1000 );
+    Assert.assertNull( transaction.getStatus() );
+    Assert.assertNull( transaction.getPayment() );
+    Assert.assertNull( transaction.getClient() );
+    Assert.assertNull( transaction.getResponseCode() );
+  }
+
+  @Test
+  public void testList_WithoutProjection_shouldBindAllFields() {
+    PaymillList<Transaction> transactions = this.transactionService.list( null, null, 100, 0 );
+    Transaction transaction = transactions.getData().get( 42 );
+    Assert.assertEquals( transaction.getStatus(), Transaction.Status.CLOSED );
+    Assert.assertEquals( transaction.getPayment().getId(), "pay_0" );
+    Assert.assertEquals( transaction.getClient().getId(), "client_2" );
+  }
+
+  @Test
+  public void testGet_WithProjection_shouldBindOnlyProjectedFields() {
+    PaymillContext paymill = new PaymillContext( new StubHttpClient( "{\"data\":" + StubHttpClient.transaction( 7 ) + ",\"mode\":\"test\"}" ) );
+    Transaction transaction = paymill.getTransactionService().get( "tran_7", Projection.of( "status" ) );
+    Assert.assertEquals( transaction.getId(), "tran_7" );
+    Assert.assertEquals( transaction.getStatus(), Transaction.Status.CLOSED );
+    Assert.assertNull( transaction.getAmount() );
+  }
+
+}
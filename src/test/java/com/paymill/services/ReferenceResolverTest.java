@@ -0,0 +1,74 @@
+package com.paymill.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Transaction;
+import com.paymill.utils.ParameterMap;
+
+public class ReferenceResolverTest {
+
+  @Test
+  public void testResolve_shouldFetchEachMissingReferenceOnce() throws IOException {
+    final AtomicInteger concurrent = new AtomicInteger();
+    final AtomicInteger maximum = new AtomicInteger();
+    StubHttpClient httpClient = new StubHttpClient( new StubHttpClient.Responder() {
+
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        int current = concurrent.incrementAndGet();
+        maximum.set( Math.max( maximum.get(), current ) );
+        try {
+          Thread.sleep( 20 );
+        } catch( InterruptedException exc ) {
+          Thread.currentThread().interrupt();
+        }
+        concurrent.decrementAndGet();
+        String id = path.substring( path.lastIndexOf( '/' ) + 1 );
+        if( path.contains( "/clients/" ) ) {
+          return "{\"data\":{\"id\":\"" + id + "\",\"email\":\"" + id + "@example.com\",\"created_at\":1400000000}}";
+        }
+        return "{\"data\":{\"id\":\"" + id + "\",\"type\":\"creditcard\",\"last4\":\"1111\",\"created_at\":1400000000}}";
+      }
+
+    } );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    List<Transaction> transactions = new ArrayList<Transaction>();
+    for( int i = 0; i < 20; i++ ) {
+      transactions.add( ReferenceResolverTest.transaction( i ) );
+    }
+    // the first transaction carries its client and payment loaded, so client_0 and pay_0 are reused
+    transactions.set( 0, PaymillContext.PARSER.readValue( StubHttpClient.transaction( 0 ), Transaction.class ) );
+    transactionService.resolve( transactions, 3 );
+
+    Assert.assertEquals( httpClient.getRequests().size(), 4 + 6 );
+    Assert.assertTrue( maximum.get() <= 3 );
+    for( int i = 0; i < transactions.size(); i++ ) {
+      Transaction transaction = transactions.get( i );
+      Assert.assertEquals( transaction.getClient().getId(), "client_" + (i % 5) );
+      Assert.assertNotNull( transaction.getClient().getCreatedAt() );
+      Assert.assertEquals( transaction.getPayment().getLast4(), "1111" );
+      Assert.assertNull( transaction.getPreauthorization() );
+    }
+    Assert.assertSame( transactions.get( 5 ).getClient(), transactions.get( 10 ).getClient() );
+    Assert.assertSame( transactions.get( 5 ).getClient(), transactions.get( 0 ).getClient() );
+  }
+
+  @Test( expectedExceptions = IllegalArgumentException.class )
+  public void testResolve_withoutParallelism_shouldFail() {
+    new PaymillContext( new StubHttpClient( "" ) ).getTransactionService().resolve( new ArrayList<Transaction>(), 0 );
+  }
+
+  private static Transaction transaction( final int i ) throws IOException {
+    String json = "{\"id\":\"tran_" + i + "\",\"client\":\"client_" + (i % 5) + "\",\"payment\":\"pay_" + (i % 7) + "\",\"preauthorization\":null}";
+    return PaymillContext.PARSER.readValue( json, Transaction.class );
+  }
+
+}
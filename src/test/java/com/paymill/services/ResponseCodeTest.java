@@ -0,0 +1,52 @@
+package com.paymill.services;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.models.Preauthorization;
+import com.paymill.models.Refund;
+import com.paymill.models.ResponseCode;
+import com.paymill.models.Transaction;
+
+public class ResponseCodeTest {
+
+  @Test
+  public void testFromCode_shouldResolveEveryCode() {
+    for( ResponseCode code : ResponseCode.values() ) {
+      Assert.assertSame( ResponseCode.fromCode( code.getCode() ), code );
+    }
+    Assert.assertNull( ResponseCode.fromCode( 0 ) );
+    Assert.assertNull( ResponseCode.fromCode( 40107 ) );
+    Assert.assertNull( ResponseCode.fromCode( (Integer) null ) );
+  }
+
+  @Test
+  public void testClassification_shouldCoverTransactionsPreauthorizationsAndRefunds() {
+    Transaction transaction = new Transaction();
+    transaction.setResponseCode( 50102 );
+    Assert.assertEquals( transaction.getResponseCodeDetail(), "Card declined by authorization system." );
+    Assert.assertEquals( transaction.getResponseCategory(), ResponseCode.Category.SOFT_DECLINE );
+    Assert.assertTrue( transaction.isRetryable() );
+    Assert.assertFalse( transaction.isSuccessful() );
+
+    transaction.setResponseCode( 50103 );
+    Assert.assertEquals( transaction.getResponseCategory(), ResponseCode.Category.FRAUD );
+    Assert.assertFalse( transaction.isRetryable() );
+
+    Preauthorization preauthorization = new Preauthorization();
+    Assert.assertNull( preauthorization.getResponseCategory() );
+    preauthorization.setTransaction( transaction );
+    Assert.assertEquals( preauthorization.getResponseCategory(), ResponseCode.Category.FRAUD );
+
+    Refund refund = new Refund();
+    refund.setResponseCode( 20000 );
+    Assert.assertEquals( refund.getResponseCategory(), ResponseCode.Category.SUCCESS );
+    refund.setResponseCode( 50500 );
+    Assert.assertTrue( refund.isRetryable() );
+    refund.setResponseCode( 99999 );
+    Assert.assertNull( refund.getResponseCategory() );
+    Assert.assertNull( refund.getResponseCodeDetail() );
+    Assert.assertFalse( refund.isRetryable() );
+  }
+
+}
@@ -0,0 +1,149 @@
+package com.paymill.services;
+
+import java.io.ByteArrayInputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.exceptions.AuthenticationException;
+import com.paymill.exceptions.NotFoundException;
+import com.paymill.exceptions.PaymillException;
+import com.paymill.exceptions.RateLimitException;
+import com.paymill.exceptions.ServerException;
+import com.paymill.exceptions.ValidationException;
+import com.paymill.models.PaymillList;
+import com.paymill.models.Transaction;
+import com.paymill.utils.HttpResponse;
+import com.paymill.utils.ParameterMap;
+import com.paymill.utils.ResponseAwareHttpClient;
+
+public class ResponseEnvelopeTest {
+
+  @Test
+  public void testGet_ErrorWithoutStatus_shouldKeepMessage() {
+    TransactionService transactionService = new PaymillContext( new StubHttpClient( "{\"error\":\"Transaction not found\",\"exception\":\"transaction_not_found\"}" ) )
+        .getTransactionService();
+    try {
+      transactionService.get( "tran_1" );
+      Assert.fail();
+    } catch( NotFoundException exc ) {
+      Assert.assertEquals( exc.getMessage(), "\"Transaction not found\"" );
+      Assert.assertEquals( exc.getErrorCode(), "transaction_not_found" );
+      Assert.assertEquals( exc.getHttpStatus(), 0 );
+      Assert.assertFalse( exc.isRetryable() );
+    }
+  }
+
+  @Test
+  public void testCreate_InvalidField_shouldThrowValidationException() {
+    ClientService clientService = this.createContext( 400, "{\"error\":{\"messages\":{\"emailAddressInvalidFormat\":\"'x' is no valid email\"},\"field\":\"email\"},"
+        + "\"exception\":\"field_invalid_email\"}" ).getClientService();
+    try {
+      clientService.createWithEmail( "x" );
+      Assert.fail();
+    } catch( ValidationException exc ) {
+      Assert.assertEquals( exc.getHttpStatus(), 400 );
+      Assert.assertEquals( exc.getFieldErrors().get( "email" ), "'x' is no valid email" );
+      Assert.assertFalse( exc.isRetryable() );
+    }
+  }
+
+  @Test
+  public void testList_StatusOnly_shouldClassifyByStatus() {
+    Assert.assertTrue( this.listFailure( 401, "{\"error\":\"Access Denied\",\"exception\":\"api_key_invalid\"}" ) instanceof AuthenticationException );
+    Assert.assertTrue( this.listFailure( 429, "" ) instanceof RateLimitException );
+    Assert.assertTrue( this.listFailure( 429, "" ).isRetryable() );
+    Assert.assertTrue( this.listFailure( 502, "<html>Bad Gateway</html>" ) instanceof ServerException );
+    Assert.assertTrue( this.listFailure( 503, "<html>Unavailable</html>" ).isRetryable() );
+  }
+
+  @Test
+  public void testList_StreamedBody_shouldDecodeFromBytes() throws Exception {
+    byte[] content = StubHttpClient.transactionPage( 0, 100, 100 ).getBytes( "UTF-8" );
+    PaymillList<Transaction> transactions = this.createContext( 200, content ).getTransactionService().list();
+    Assert.assertEquals( transactions.getDataCount(), 100 );
+    Assert.assertEquals( transactions.getData().get( 99 ).getId(), "tran_99" );
+  }
+
+  @Test
+  public void testGet_ErrorObjectWithoutFields_shouldNotBeValidationError() {
+    TransactionService transactionService = new PaymillContext( new StubHttpClient( "{\"error\":{\"message\":\"Internal\",\"code\":\"x\"}}" ) )
+        .getTransactionService();
+    try {
+      transactionService.get( "tran_1" );
+      Assert.fail();
+    } catch( PaymillException exc ) {
+      Assert.assertEquals( exc.getClass(), PaymillException.class );
+      Assert.assertTrue( exc.getFieldErrors().isEmpty() );
+    }
+  }
+
+  @Test
+  public void testGet_ParameterErrors_shouldBeValidationError() {
+    TransactionService transactionService = new PaymillContext( new StubHttpClient( "{\"error\":{\"amount\":\"Invalid amount\","
+        + "\"currency\":{\"isEmpty\":\"Value is required\"}}}" ) ).getTransactionService();
+    try {
+      transactionService.get( "tran_1" );
+      Assert.fail();
+    } catch( ValidationException exc ) {
+      Assert.assertEquals( exc.getFieldErrors().get( "amount" ), "Invalid amount" );
+      Assert.assertEquals( exc.getFieldErrors().get( "currency" ), "Value is required" );
+    }
+  }
+
+  @Test
+  public void testList_WithoutDataCount_shouldReportAbsence() {
+    PaymillList<Transaction> transactions = this.createContext( 200, "{\"data\":[]}" ).getTransactionService().list();
+    Assert.assertFalse( transactions.hasDataCount() );
+    Assert.assertTrue( this.createContext( 200, "{\"data\":[],\"data_count\":0}" ).getTransactionService().list().hasDataCount() );
+  }
+
+  private PaymillException listFailure( int status, String body ) {
+    try {
+      this.createContext( status, body ).getTransactionService().list();
+    } catch( PaymillException exc ) {
+      return exc;
+    }
+    return null;
+  }
+
+  private PaymillContext createContext( final int status, final Object body ) {
+    return new PaymillContext( new ResponseAwareHttpClient() {
+
+      @Override
+      public HttpResponse execute( String method, String path, ParameterMap<String, String> params ) {
+        if( body instanceof byte[] ) {
+          return new HttpResponse( status, new ByteArrayInputStream( (byte[]) body ) );
+        }
+        return new HttpResponse( status, (String) body );
+      }
+
+      @Override
+      public String get( String path ) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String get( String path, ParameterMap<String, String> params ) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String post( String path, ParameterMap<String, String> params ) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String put( String path, ParameterMap<String, String> params ) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String delete( String path, ParameterMap<String, String> params ) {
+        throw new UnsupportedOperationException();
+      }
+    } );
+  }
+
+}
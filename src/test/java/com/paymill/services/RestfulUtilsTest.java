@@ -0,0 +1,106 @@
+package com.paymill.services;
+
+import java.util.Date;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paymill.context.PaymillContext;
+import com.paymill.models.Client;
+import com.paymill.models.Transaction;
+import com.paymill.utils.ParameterMap;
+
+public class RestfulUtilsTest {
+
+  @Test
+  public void testList_WithFilterAndOrder_shouldSendSnakeCaseParameters() {
+    StubHttpClient httpClient = new StubHttpClient( StubHttpClient.transactionPage( 0, 0, 0 ) );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+
+    transactionService.list( Transaction.createFilter().byClientId( "client_1" ).byCreatedAt( new Date( 1000000 ), new Date( 2000000 ) ),
+        Transaction.createOrder().byCreatedAt().desc(), 20, 40 );
+
+    ParameterMap<String, String> params = httpClient.getParameters().get( 0 );
+    Assert.assertEquals( params.getFirst( "client" ), "client_1" );
+    Assert.assertEquals( params.getFirst( "created_at" ), "1000-2000" );
+    Assert.assertEquals( params.getFirst( "order" ), "created_at_desc" );
+    Assert.assertEquals( params.getFirst( "count" ), "20" );
+    Assert.assertEquals( params.getFirst( "offset" ), "40" );
+    Assert.assertNull( params.get( "amount" ) );
+  }
+
+  @Test
+  public void testList_withQuery_shouldOnlyChangeOffset() {
+    StubHttpClient httpClient = new StubHttpClient( StubHttpClient.transactionPage( 0, 0, 0 ) );
+    TransactionService transactionService = new PaymillContext( httpClient ).getTransactionService();
+    Transaction.Filter filter = Transaction.createFilter().byClientId( "client_1" );
+
+    Query<Transaction> query = transactionService.query( filter, Transaction.createOrder().byCreatedAt().desc(), 20 );
+    filter.byClientId( "client_2" );
+    transactionService.list( query, null );
+    transactionService.list( query, 20 );
+
+    Assert.assertEquals( query.toString(), "client=client_1&order=created_at_desc&count=20" );
+    Assert.assertEquals( query.getCount(), Integer.valueOf( 20 ) );
+    Assert.assertNull( httpClient.getParameters().get( 0 ).get( "offset" ) );
+    ParameterMap<String, String> params = httpClient.getParameters().get( 1 );
+    Assert.assertEquals( params.getFirst( "client" ), "client_1" );
+    Assert.assertEquals( params.getFirst( "offset" ), "20" );
+  }
+
+  @Test
+  public void testQuery_withSameParameters_shouldBeEqual() {
+    TransactionService transactionService = new PaymillContext( new StubHttpClient( "" ) ).getTransactionService();
+
+    Query<Transaction> first = transactionService.query( Transaction.createFilter().byAmount( 100 ), null, 10 );
+    Query<Transaction> second = transactionService.query( Transaction.createFilter().byAmount( 100 ), null, 10 );
+
+    Assert.assertEquals( first, second );
+    Assert.assertEquals( first.hashCode(), second.hashCode() );
+    Assert.assertFalse( first.equals( transactionService.query( Transaction.createFilter().byAmount( 100 ), null, 20 ) ) );
+  }
+
+  @Test
+  public void testUpdate_shouldSendUpdateableParameters() {
+    StubHttpClient httpClient = new StubHttpClient( "{\"data\":{\"id\":\"client_1\",\"email\":\"john.rambo@paymill.com\"},\"mode\":\"test\"}" );
+    ClientService clientService = new PaymillContext( httpClient ).getClientService();
+
+    Client client = new Client( "client_1" );
+    client.setEmail( "john.rambo@paymill.com" );
+    clientService.update( client );
+
+    Assert.assertTrue( httpClient.getRequests().get( 0 ).endsWith( "/clients/client_1" ) );
+    ParameterMap<String, String> params = httpClient.getParameters().get( 0 );
+    Assert.assertEquals( params.getFirst( "email" ), "john.rambo@paymill.com" );
+    Assert.assertFalse( params.containsKey( "description" ) );
+  }
+
+  @Test
+  public void testUpdate_withLoadedClient_shouldSendOnlyChangedParameters() {
+    StubHttpClient httpClient = new StubHttpClient( "{\"data\":{\"id\":\"client_1\",\"email\":\"john.rambo@paymill.com\","
+        + "\"description\":\"Rambo\"},\"mode\":\"test\"}" );
+    ClientService clientService = new PaymillContext( httpClient ).getClientService();
+
+    Client client = clientService.get( "client_1" );
+    clientService.update( client );
+    client.setEmail( "john.rambo@paymill.com" );
+    clientService.update( client );
+
+    Assert.assertEquals( httpClient.getRequests().size(), 1 );
+
+    client.setDescription( "John" );
+    clientService.update( client );
+
+    Assert.assertEquals( httpClient.getRequests().size(), 2 );
+    ParameterMap<String, String> params = httpClient.getParameters().get( 1 );
+    Assert.assertEquals( params.size(), 1 );
+    Assert.assertEquals( params.getFirst( "description" ), "John" );
+  }
+
+  @Test
+  public void testUtf8Length_shouldCountEncodedBytes() throws Exception {
+    String text = "a\u00e4\u20ac\ud83d\ude00";
+    Assert.assertEquals( RestfulUtils.utf8Length( text ), text.getBytes( "UTF-8" ).length );
+  }
+
+}
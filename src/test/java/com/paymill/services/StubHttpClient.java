@@ -0,0 +1,105 @@
+package com.paymill.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.paymill.utils.HttpClient;
+import com.paymill.utils.ParameterMap;
+
+/**
+ * {@link HttpClient}, which answers requests without network access, so services can be tested without PAYMILL keys.
+ */
+public class StubHttpClient implements HttpClient {
+
+  public interface Responder {
+
+    String respond( String method, String path, ParameterMap<String, String> params );
+
+  }
+
+  private final Responder                          responder;
+
+  private final List<String>                       requests   = Collections.synchronizedList( new ArrayList<String>() );
+
+  private final List<ParameterMap<String, String>> parameters = Collections.synchronizedList( new ArrayList<ParameterMap<String, String>>() );
+
+  public StubHttpClient( final Responder responder ) {
+    this.responder = responder;
+  }
+
+  public StubHttpClient( final String content ) {
+    this( new Responder() {
+      @Override
+      public String respond( String method, String path, ParameterMap<String, String> params ) {
+        return content;
+      }
+    } );
+  }
+
+  public List<String> getRequests() {
+    return this.requests;
+  }
+
+  public List<ParameterMap<String, String>> getParameters() {
+    return this.parameters;
+  }
+
+  @Override
+  public String get( String path ) {
+    return this.execute( "GET", path, null );
+  }
+
+  @Override
+  public String get( String path, ParameterMap<String, String> params ) {
+    return this.execute( "GET", path, params );
+  }
+
+  @Override
+  public String post( String path, ParameterMap<String, String> params ) {
+    return this.execute( "POST", path, params );
+  }
+
+  @Override
+  public String put( String path, ParameterMap<String, String> params ) {
+    return this.execute( "PUT", path, params );
+  }
+
+  @Override
+  public String delete( String path, ParameterMap<String, String> params ) {
+    return this.execute( "DELETE", path, params );
+  }
+
+  private String execute( String method, String path, ParameterMap<String, String> params ) {
+    this.requests.add( method + " " + path );
+    this.parameters.add( params );
+    return this.responder.respond( method, path, params );
+  }
+
+  /**
+   * Creates the JSON of a page of transactions with ascending ids and creation dates.
+   */
+  public static String transactionPage( int offset, int count, int dataCount ) {
+    StringBuilder builder = new StringBuilder( "{\"data\":[" );
+    for( int i = offset; i < Math.min( offset + count, dataCount ); i++ ) {
+      if( i > offset )
+        builder.append( ',' );
+      builder.append( StubHttpClient.transaction( i ) );
+    }
+    return builder.append( "],\"data_count\":" ).append( dataCount ).append( ",\"mode\":\"test\"}" ).toString();
+  }
+
+  public static String transaction( int i ) {
+    return "{\"id\":\"tran_" + i + "\",\"amount\":\"" + (1000 + i) + "\",\"origin_amount\":" + (1000 + i) + ",\"currency\":\"EUR\","
+        + "\"status\":\"closed\",\"description\":\"Transaction " + i + "\",\"livemode\":false,\"refunds\":null,"
+        + "\"payment\":{\"id\":\"pay_" + (i % 7) + "\",\"type\":\"creditcard\",\"client\":\"client_" + (i % 5) + "\","
+        + "\"card_type\":\"visa\",\"country\":null,\"expire_month\":\"12\",\"expire_year\":\"2030\",\"card_holder\":\"\","
+        + "\"last4\":\"1111\",\"created_at\":1400000000,\"updated_at\":1400000000,\"app_id\":null,\"is_recurring\":true,"
+        + "\"is_usable_for_preauthorization\":true},"
+        + "\"client\":{\"id\":\"client_" + (i % 5) + "\",\"email\":null,\"description\":null,\"created_at\":1400000000,"
+        + "\"updated_at\":1400000000,\"app_id\":null,\"payment\":[],\"subscription\":null},"
+        + "\"preauthorization\":null,\"created_at\":" + (1400000000 + i) + ",\"updated_at\":" + (1400000000 + i) + ","
+        + "\"response_code\":20000,\"short_id\":\"7357.7357.735" + (i % 10) + "\",\"is_fraud\":false,\"fees\":[],\"app_id\":null}";
+  }
+
+}
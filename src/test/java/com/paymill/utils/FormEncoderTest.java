@@ -0,0 +1,39 @@
+package com.paymill.utils;
+
+import java.net.URLEncoder;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FormEncoderTest {
+
+  @Test
+  public void testEncode_shouldMatchUrlEncoder() throws Exception {
+    String[] values = { "plain", "john rambo", "a+b&c=d", "~!*'()", "\u00DCmlaut \u00DF", "\u20AC 10", "\uD83D\uDE00", "bad \uD800 surrogate", "" };
+    for( String value : values ) {
+      ParameterMap<String, String> params = new ParameterMap<String, String>();
+      params.add( "items[0][name]", value );
+      String expected = URLEncoder.encode( "items[0][name]", "UTF-8" ) + "=" + URLEncoder.encode( value, "UTF-8" );
+      Assert.assertEquals( new String( FormEncoder.encode( params ), "US-ASCII" ), expected );
+    }
+  }
+
+  @Test
+  public void testEncode_withSeveralValues_shouldJoinPairsInInsertionOrder() throws Exception {
+    ParameterMap<String, String> params = new ParameterMap<String, String>();
+    params.add( "amount", "4200" );
+    params.add( "currency", "EUR" );
+    params.add( "items[0][name]", "Foo Bar" );
+    params.add( "items[0][name]", "Baz" );
+
+    Assert.assertEquals( new String( FormEncoder.encode( params ), "US-ASCII" ),
+        "amount=4200&currency=EUR&items%5B0%5D%5Bname%5D=Foo+Bar&items%5B0%5D%5Bname%5D=Baz" );
+  }
+
+  @Test
+  public void testEncode_withoutParameters_shouldReturnEmptyBody() {
+    Assert.assertEquals( FormEncoder.encode( null ).length, 0 );
+    Assert.assertEquals( FormEncoder.encode( new ParameterMap<String, String>() ).length, 0 );
+  }
+
+}
@@ -0,0 +1,75 @@
+package com.paymill.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ParameterMapTest {
+
+  @Test
+  public void testAdd_shouldKeepInsertionOrder() {
+    ParameterMap<String, String> params = new ParameterMap<String, String>( 1 );
+    for( int i = 20; i > 0; i-- ) {
+      params.add( "key" + i, "value" + i );
+    }
+
+    List<String> keys = new ArrayList<String>( params.keySet() );
+    Assert.assertEquals( keys.size(), 20 );
+    for( int i = 0; i < 20; i++ ) {
+      Assert.assertEquals( keys.get( i ), "key" + (20 - i) );
+      Assert.assertEquals( params.keyAt( i ), "key" + (20 - i) );
+    }
+  }
+
+  @Test
+  public void testAdd_withSeveralValues_shouldSpillIntoList() {
+    ParameterMap<String, String> params = new ParameterMap<String, String>();
+    params.add( "amount", "4200" );
+    params.add( "items[0][name]", "Foo" );
+    params.add( "items[0][name]", "Bar" );
+    params.add( "items[0][name]", "Baz" );
+
+    Assert.assertEquals( params.size(), 2 );
+    Assert.assertEquals( params.get( "amount" ), Arrays.asList( "4200" ) );
+    Assert.assertEquals( params.get( "items[0][name]" ), Arrays.asList( "Foo", "Bar", "Baz" ) );
+    Assert.assertEquals( params.getFirst( "items[0][name]" ), "Foo" );
+    Assert.assertEquals( params.valueCount( 1 ), 3 );
+    Assert.assertEquals( params.valueAt( 1, 2 ), "Baz" );
+    Assert.assertNull( params.get( "currency" ) );
+    Assert.assertNull( params.getFirst( "currency" ) );
+  }
+
+  @Test
+  public void testPutAndRemove_shouldBehaveLikeMap() {
+    ParameterMap<String, String> params = new ParameterMap<String, String>();
+    params.add( "a", "1" );
+    params.add( "b", "2" );
+    params.add( "c", "3" );
+
+    Assert.assertEquals( params.put( "b", Arrays.asList( "4", "5" ) ), Arrays.asList( "2" ) );
+    Assert.assertNull( params.put( "d", Arrays.asList( "6" ) ) );
+    Assert.assertEquals( params.remove( "a" ), Arrays.asList( "1" ) );
+    Assert.assertNull( params.remove( "a" ) );
+
+    Iterator<Map.Entry<String, List<String>>> entries = params.entrySet().iterator();
+    Assert.assertEquals( entries.next().getKey(), "b" );
+    Assert.assertEquals( entries.next().getKey(), "c" );
+    entries.remove();
+    Assert.assertEquals( entries.next().getKey(), "d" );
+    Assert.assertFalse( entries.hasNext() );
+
+    Assert.assertEquals( new ArrayList<String>( params.keySet() ), Arrays.asList( "b", "d" ) );
+    Assert.assertEquals( params.get( "b" ), Arrays.asList( "4", "5" ) );
+    Assert.assertTrue( params.containsValue( Arrays.asList( "6" ) ) );
+
+    params.clear();
+    Assert.assertTrue( params.isEmpty() );
+    Assert.assertFalse( params.containsKey( "b" ) );
+  }
+
+}